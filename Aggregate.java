@@ -0,0 +1,254 @@
+/*****************************************************************************************************
+  Aggregates in the select list: COUNT(*), COUNT(R.a), SUM(R.a), MIN(R.a), MAX(R.a) and AVG(R.a).
+
+  SUM and AVG need an INTEGER attribute; MIN and MAX work on both types. COUNT and SUM produce Longs,
+  AVG produces Doubles, and MIN and MAX produce values of the type of the attribute.
+
+  The aggregates are computed by the HashAggregateOperator, which keeps one Accumulator per aggregate.
+  An Accumulator keeps the state of all the groups in primitive arrays indexed by the group number, so
+  that updating a group does not allocate (or box) anything.
+***************************************************************************************************/
+class Aggregate {
+    static final int COUNT = 0;
+    static final int SUM = 1;
+    static final int MIN = 2;
+    static final int MAX = 3;
+    static final int AVG = 4;
+
+    static final String[] functionNames = {"COUNT", "SUM", "MIN", "MAX", "AVG"};
+
+    int function;
+    TupleAttribute attribute;           // null for COUNT(*)
+
+    /* Position in the select list (see ParsedStatement.addAggregate()). */
+    int select_position = -1;
+
+    Aggregate(int function, TupleAttribute attribute) {
+        this.function = function;
+        this.attribute = attribute;
+    }
+
+    public String toString() {
+        return functionNames[function] + "(" + (attribute == null ? "*" : attribute.toString()) + ")";
+    }
+}
+
+abstract class Accumulator {
+    static final int INITIAL_CAPACITY = 64;
+
+    static Accumulator create(Aggregate a) {
+        switch(a.function) {
+            case Aggregate.COUNT:
+                return new CountAccumulator();
+            case Aggregate.SUM:
+                return new SumAccumulator(a.attribute);
+            case Aggregate.AVG:
+                return new AvgAccumulator(a.attribute);
+            default:
+                if(a.attribute.getAttributeType() == Globals.INTEGER)
+                    return new IntMinMaxAccumulator(a.attribute, a.function == Aggregate.MAX);
+                else
+                    return new StringMinMaxAccumulator(a.attribute, a.function == Aggregate.MAX);
+        }
+    }
+
+    /* Make room for the groups 0 .. capacity - 1. */
+    abstract void ensureCapacity(int capacity);
+
+    /* Add the tuple to the group. first is true for the first tuple of the group. */
+    abstract void add(int group, boolean first, Tuple t);
+
+    /* Add the state of a group of another accumulator (for the same aggregate) to the group. first is true
+       if the group is new. Used to merge partial aggregates. */
+    abstract void merge(int group, boolean first, Accumulator other, int otherGroup);
+
+    abstract Object result(int group);
+
+    /* The result when there are no tuples at all (for an aggregate query without GROUP BY). */
+    Object emptyResult() {
+        return null;
+    }
+
+    abstract int bytesPerGroup();
+
+    static int newCapacity(int current, int needed) {
+        int capacity = Math.max(current, INITIAL_CAPACITY);
+        while(capacity < needed)
+            capacity *= 2;
+        return capacity;
+    }
+}
+
+class CountAccumulator extends Accumulator {
+    long[] counts = new long[0];
+
+    void ensureCapacity(int capacity) {
+        if(capacity > counts.length)
+            counts = java.util.Arrays.copyOf(counts, newCapacity(counts.length, capacity));
+    }
+
+    void add(int group, boolean first, Tuple t) {
+        counts[group] = first ? 1 : counts[group] + 1;
+    }
+
+    void merge(int group, boolean first, Accumulator other, int otherGroup) {
+        long c = ((CountAccumulator) other).counts[otherGroup];
+        counts[group] = first ? c : counts[group] + c;
+    }
+
+    Object result(int group) {
+        return Long.valueOf(counts[group]);
+    }
+
+    Object emptyResult() {
+        return Long.valueOf(0);
+    }
+
+    int bytesPerGroup() {
+        return 8;
+    }
+}
+
+class SumAccumulator extends Accumulator {
+    TupleAttribute attribute;
+    long[] sums = new long[0];
+
+    SumAccumulator(TupleAttribute attribute) {
+        this.attribute = attribute;
+    }
+
+    void ensureCapacity(int capacity) {
+        if(capacity > sums.length)
+            sums = java.util.Arrays.copyOf(sums, newCapacity(sums.length, capacity));
+    }
+
+    void add(int group, boolean first, Tuple t) {
+        int v = attribute.evaluateInt(t);
+        sums[group] = first ? v : sums[group] + v;
+    }
+
+    void merge(int group, boolean first, Accumulator other, int otherGroup) {
+        long v = ((SumAccumulator) other).sums[otherGroup];
+        sums[group] = first ? v : sums[group] + v;
+    }
+
+    Object result(int group) {
+        return Long.valueOf(sums[group]);
+    }
+
+    int bytesPerGroup() {
+        return 8;
+    }
+}
+
+class AvgAccumulator extends SumAccumulator {
+    long[] counts = new long[0];
+
+    AvgAccumulator(TupleAttribute attribute) {
+        super(attribute);
+    }
+
+    void ensureCapacity(int capacity) {
+        super.ensureCapacity(capacity);
+        if(capacity > counts.length)
+            counts = java.util.Arrays.copyOf(counts, sums.length);
+    }
+
+    void add(int group, boolean first, Tuple t) {
+        super.add(group, first, t);
+        counts[group] = first ? 1 : counts[group] + 1;
+    }
+
+    void merge(int group, boolean first, Accumulator other, int otherGroup) {
+        super.merge(group, first, other, otherGroup);
+        long c = ((AvgAccumulator) other).counts[otherGroup];
+        counts[group] = first ? c : counts[group] + c;
+    }
+
+    Object result(int group) {
+        return Double.valueOf((double) sums[group] / counts[group]);
+    }
+
+    int bytesPerGroup() {
+        return 16;
+    }
+}
+
+class IntMinMaxAccumulator extends Accumulator {
+    TupleAttribute attribute;
+    boolean max;
+    int[] values = new int[0];
+
+    IntMinMaxAccumulator(TupleAttribute attribute, boolean max) {
+        this.attribute = attribute;
+        this.max = max;
+    }
+
+    void ensureCapacity(int capacity) {
+        if(capacity > values.length)
+            values = java.util.Arrays.copyOf(values, newCapacity(values.length, capacity));
+    }
+
+    void add(int group, boolean first, Tuple t) {
+        int v = attribute.evaluateInt(t);
+        if(first || (max ? v > values[group] : v < values[group]))
+            values[group] = v;
+    }
+
+    void merge(int group, boolean first, Accumulator other, int otherGroup) {
+        int v = ((IntMinMaxAccumulator) other).values[otherGroup];
+        if(first || (max ? v > values[group] : v < values[group]))
+            values[group] = v;
+    }
+
+    Object result(int group) {
+        return Integer.valueOf(values[group]);
+    }
+
+    int bytesPerGroup() {
+        return 4;
+    }
+}
+
+class StringMinMaxAccumulator extends Accumulator {
+    TupleAttribute attribute;
+    boolean max;
+    String[] values = new String[0];
+
+    StringMinMaxAccumulator(TupleAttribute attribute, boolean max) {
+        this.attribute = attribute;
+        this.max = max;
+    }
+
+    void ensureCapacity(int capacity) {
+        if(capacity > values.length)
+            values = java.util.Arrays.copyOf(values, newCapacity(values.length, capacity));
+    }
+
+    void add(int group, boolean first, Tuple t) {
+        update(group, first, attribute.evaluateString(t));
+    }
+
+    void merge(int group, boolean first, Accumulator other, int otherGroup) {
+        update(group, first, ((StringMinMaxAccumulator) other).values[otherGroup]);
+    }
+
+    void update(int group, boolean first, String v) {
+        if(first) {
+            values[group] = v;
+        } else {
+            int c = v.compareTo(values[group]);
+            if(max ? c > 0 : c < 0)
+                values[group] = v;
+        }
+    }
+
+    Object result(int group) {
+        return values[group];
+    }
+
+    /* The strings themselves are shared with the tuples; we count them anyway, since we keep them alive. */
+    int bytesPerGroup() {
+        return 48;
+    }
+}
@@ -0,0 +1,119 @@
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/*****************************************************************************************************
+  A bounded queue of TupleBatches between producer threads and a consumer (see ExchangeOperator and
+  MorselDrivenOperator).
+
+  It is lock-free: a ring of CAPACITY cells, every one with a sequence number, and two counters (the
+  next cell to write, and the next cell to read) that the threads advance with compareAndSet. A cell
+  can be written when its sequence number is the write position, and read when it is the write
+  position + 1; reading it makes it writable again one lap later. Any number of threads can offer()
+  and poll() at the same time.
+
+  offer() and poll() never wait; put() and take() spin for a little while, and then sleep a little
+  between attempts, since a full (or empty) queue usually means that the other side is busy. The
+  producers count themselves out of runningProducers when they are done, and the consumer close()s
+  the queue if it stops reading early.
+***************************************************************************************************/
+class BatchQueue {
+    TupleBatch[] cells;
+    AtomicLongArray sequences;
+    int mask;
+
+    AtomicLong writePosition = new AtomicLong();
+    AtomicLong readPosition = new AtomicLong();
+
+    /* The number of producers that are not done yet (possibly shared with other queues they write to). */
+    AtomicInteger runningProducers;
+
+    /* Once the consumer is gone, the batches are dropped. */
+    volatile boolean closed = false;
+
+    /* The capacity is rounded up to a power of 2. */
+    BatchQueue(int capacity, AtomicInteger runningProducers) {
+        this.runningProducers = runningProducers;
+
+        int n = 1;
+        while(n < capacity)
+            n *= 2;
+
+        cells = new TupleBatch[n];
+        sequences = new AtomicLongArray(n);
+        mask = n - 1;
+        for(int i = 0; i < n; i++)
+            sequences.set(i, i);
+    }
+
+    /* Returns false if the queue is full. */
+    boolean offer(TupleBatch b) {
+        while(true) {
+            long position = writePosition.get();
+            int cell = (int) (position & mask);
+            long difference = sequences.get(cell) - position;
+
+            if(difference < 0)
+                return false;
+            if(difference == 0 && writePosition.compareAndSet(position, position + 1)) {
+                cells[cell] = b;
+                sequences.set(cell, position + 1);
+                return true;
+            }
+        }
+    }
+
+    /* Returns null if the queue is empty. */
+    TupleBatch poll() {
+        while(true) {
+            long position = readPosition.get();
+            int cell = (int) (position & mask);
+            long difference = sequences.get(cell) - (position + 1);
+
+            if(difference < 0)
+                return null;
+            if(difference == 0 && readPosition.compareAndSet(position, position + 1)) {
+                TupleBatch b = cells[cell];
+                cells[cell] = null;
+                sequences.set(cell, position + mask + 1);
+                return b;
+            }
+        }
+    }
+
+    /* Wait until there is room for the batch, unless the consumer goes away. Returns false if the batch was dropped. */
+    boolean put(TupleBatch b) {
+        for(int attempt = 0; ! offer(b); attempt++) {
+            if(closed)
+                return false;
+            backOff(attempt);
+        }
+        return true;
+    }
+
+    /* Wait for the next batch. Returns null once all the producers are done, and the queue is empty. */
+    TupleBatch take() {
+        for(int attempt = 0; ; attempt++) {
+            TupleBatch b = poll();
+            if(b != null)
+                return b;
+
+            /* The producers finish after their last put(), so if they are all done, nothing else is coming. */
+            if(runningProducers.get() == 0)
+                return poll();
+            backOff(attempt);
+        }
+    }
+
+    void close() {
+        closed = true;
+    }
+
+    static void backOff(int attempt) {
+        if(attempt < 100)
+            Thread.onSpinWait();
+        else
+            LockSupport.parkNanos(20000);
+    }
+}
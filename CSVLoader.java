@@ -0,0 +1,274 @@
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.PriorityQueue;
+import java.util.Vector;
+import java.util.concurrent.RecursiveTask;
+
+/*****************************************************************************************************
+  Loads the tuples of a table from a CSV file ("COPY table FROM 'file';").
+
+  Every (non-empty) line of the file is one tuple, with the values separated by commas. A value in
+  double quotes is a string (with "" standing for a double quote inside it); an unquoted value is an
+  integer if it looks like one, and a string otherwise. As with "INSERT INTO ... VALUES", the values
+  are checked against the relation schema with checkIfConsistent(), and the bad lines are skipped.
+
+  The file is memory-mapped and cut into chunks at line boundaries. The chunks are parsed in parallel
+  on a ForkJoinPool, each into an array of BaseTuples sorted on the primary key. The sorted chunks are
+  then merged and inserted through the bulk-load path in Globals, so that the BerkeleyDB B-tree is
+  filled in key order. To bound the memory used, this is done a few chunks (a "wave") at a time.
+  ***************************************************************************************************/
+class CSVLoader {
+    static final int CHUNK_SIZE = 1 << 20;
+
+    /* Parsed tuples take several times the space of the text they came from. */
+    static final int EXPANSION_FACTOR = 4;
+
+    /* Returns the number of tuples inserted. */
+    static long load(BaseRelationSchema rs, String fileName) {
+        boolean wasBulkLoading = Globals.bulkLoading;
+        long count = 0;
+        RandomAccessFile file = null;
+
+        try {
+            file = new RandomAccessFile(fileName, "r");
+            FileChannel channel = file.getChannel();
+            Vector<long[]> chunks = findChunks(channel);
+
+            int chunksPerWave = (int) Math.max(1, Globals.memoryBudget / (EXPANSION_FACTOR * CHUNK_SIZE));
+
+            Globals.startBulkLoad();
+
+            for(int first = 0; first < chunks.size(); first += chunksPerWave) {
+                Vector<ChunkParser> wave = new Vector<ChunkParser>();
+                for(int i = first; i < Math.min(first + chunksPerWave, chunks.size()); i++) {
+                    ChunkParser cp = new ChunkParser(rs, channel, chunks.get(i)[0], chunks.get(i)[1]);
+                    Globals.pool.execute(cp);
+                    wave.add(cp);
+                }
+
+                Vector<BaseTuple[]> sortedChunks = new Vector<BaseTuple[]>();
+                for(ChunkParser cp : wave) {
+                    sortedChunks.add(cp.join());
+                    for(String line : cp.badLines)
+                        System.out.println("=========> Error: Values do not match the relation schema: " + line);
+                }
+
+                count += insertMerged(rs, sortedChunks);
+            }
+        } catch (IOException e) {
+            System.out.println("=========> Error reading the file " + fileName + ": " + e);
+        } finally {
+            /* Closing the file closes its channel too. */
+            try {
+                if(file != null)
+                    file.close();
+            } catch (IOException e) {
+                System.out.println("=========> Error closing the file " + fileName + ": " + e);
+            }
+            if(wasBulkLoading)
+                Globals.finishBulkLoad();
+            else
+                Globals.stopBulkLoad();
+        }
+
+        return count;
+    }
+
+    /* Cut the file into chunks of about CHUNK_SIZE bytes that end at the end of a line. */
+    static Vector<long[]> findChunks(FileChannel channel) throws IOException {
+        Vector<long[]> chunks = new Vector<long[]>();
+        long size = channel.size();
+        ByteBuffer buf = ByteBuffer.allocate(4096);
+
+        long start = 0;
+        while(start < size) {
+            long end = Math.min(start + CHUNK_SIZE, size);
+
+            /* Move the end past the next newline. */
+            boolean found = (end == size);
+            while(!found) {
+                buf.clear();
+                int n = channel.read(buf, end);
+                if(n <= 0) {
+                    end = size;
+                    break;
+                }
+                for(int i = 0; i < n; i++) {
+                    if(buf.get(i) == '\n') {
+                        end += i + 1;
+                        found = true;
+                        break;
+                    }
+                }
+                if(!found)
+                    end += n;
+            }
+
+            chunks.add(new long[] {start, end});
+            start = end;
+        }
+
+        return chunks;
+    }
+
+    /* Merge the sorted chunks on the primary key, and insert the tuples in that order. */
+    static long insertMerged(BaseRelationSchema rs, Vector<BaseTuple[]> sortedChunks) {
+        final Comparator<BaseTuple> byKey = primaryKeyComparator();
+
+        PriorityQueue<ChunkHead> heads = new PriorityQueue<ChunkHead>(Math.max(1, sortedChunks.size()), new Comparator<ChunkHead>() {
+            public int compare(ChunkHead h1, ChunkHead h2) {
+                return byKey.compare(h1.current(), h2.current());
+            }
+        });
+        for(BaseTuple[] chunk : sortedChunks)
+            if(chunk.length > 0)
+                heads.add(new ChunkHead(chunk));
+
+        long count = 0;
+        while(!heads.isEmpty()) {
+            ChunkHead h = heads.poll();
+            Globals.insertTuple(rs, h.current());
+            count++;
+            if(++h.position < h.tuples.length)
+                heads.add(h);
+        }
+        return count;
+    }
+
+    static Comparator<BaseTuple> primaryKeyComparator() {
+        return new Comparator<BaseTuple>() {
+            public int compare(BaseTuple t1, BaseTuple t2) {
+                return Globals.compareValues(t1.getPrimaryKeyValue(), t2.getPrimaryKeyValue());
+            }
+        };
+    }
+
+    /* Split a line into its values (see the comment at the top). Returns null if a quote is not closed. */
+    static Vector<Object> parseLine(String line) {
+        Vector<Object> values = new Vector<Object>();
+        int n = line.length();
+        int i = 0;
+
+        while(true) {
+            while(i < n && line.charAt(i) == ' ')
+                i++;
+
+            if(i < n && line.charAt(i) == '"') {
+                StringBuilder sb = new StringBuilder("'");
+                i++;
+                while(true) {
+                    if(i >= n)
+                        return null;
+                    char c = line.charAt(i++);
+                    if(c == '"') {
+                        if(i < n && line.charAt(i) == '"') {
+                            sb.append('"');
+                            i++;
+                        } else {
+                            break;
+                        }
+                    } else {
+                        sb.append(c);
+                    }
+                }
+                values.add(sb.append('\'').toString());
+                while(i < n && line.charAt(i) != ',')
+                    i++;
+            } else {
+                int start = i;
+                while(i < n && line.charAt(i) != ',')
+                    i++;
+                values.add(unquotedValue(line.substring(start, i).trim()));
+            }
+
+            if(i >= n)
+                return values;
+            i++;        // skip the comma
+        }
+    }
+
+    static Object unquotedValue(String s) {
+        int start = (s.length() > 1 && s.charAt(0) == '-') ? 1 : 0;
+        boolean isNumber = s.length() > start && s.length() - start <= 10;
+        for(int i = start; isNumber && i < s.length(); i++)
+            isNumber = (s.charAt(i) >= '0' && s.charAt(i) <= '9');
+
+        if(isNumber) {
+            long l = Long.parseLong(s);
+            if(l >= Integer.MIN_VALUE && l <= Integer.MAX_VALUE)
+                return Integer.valueOf((int) l);
+        }
+        return "'" + s + "'";
+    }
+
+    /* Parses one chunk of the file into BaseTuples sorted on the primary key. */
+    static class ChunkParser extends RecursiveTask<BaseTuple[]> {
+        BaseRelationSchema rs;
+        FileChannel channel;
+        long start, end;
+        Vector<String> badLines = new Vector<String>();
+
+        ChunkParser(BaseRelationSchema rs, FileChannel channel, long start, long end) {
+            this.rs = rs;
+            this.channel = channel;
+            this.start = start;
+            this.end = end;
+        }
+
+        protected BaseTuple[] compute() {
+            Vector<BaseTuple> tuples = new Vector<BaseTuple>();
+
+            try {
+                MappedByteBuffer mbb = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+                byte[] bytes = new byte[(int) (end - start)];
+                mbb.get(bytes);
+                String text = new String(bytes, StandardCharsets.UTF_8);
+
+                int lineStart = 0;
+                while(lineStart < text.length()) {
+                    int lineEnd = text.indexOf('\n', lineStart);
+                    if(lineEnd < 0)
+                        lineEnd = text.length();
+                    String line = text.substring(lineStart, lineEnd);
+                    if(line.endsWith("\r"))
+                        line = line.substring(0, line.length() - 1);
+                    lineStart = lineEnd + 1;
+
+                    if(line.trim().length() == 0)
+                        continue;
+
+                    Vector<Object> values = parseLine(line);
+                    if(values == null || ! rs.checkIfConsistent(values))
+                        badLines.add(line);
+                    else
+                        tuples.add(new BaseTuple(rs, values));
+                }
+            } catch (IOException e) {
+                System.out.println("=========> Error reading the file: " + e);
+            }
+
+            BaseTuple[] ret = tuples.toArray(new BaseTuple[tuples.size()]);
+            Arrays.sort(ret, primaryKeyComparator());
+            return ret;
+        }
+    }
+
+    /* The next tuple to be inserted from a sorted chunk. */
+    static class ChunkHead {
+        BaseTuple[] tuples;
+        int position = 0;
+
+        ChunkHead(BaseTuple[] tuples) {
+            this.tuples = tuples;
+        }
+
+        BaseTuple current() {
+            return tuples[position];
+        }
+    }
+}
@@ -50,6 +50,50 @@ public class CommandLine {
         }
     }
 
+    /* Create a secondary index on an attribute of a table. 
+       Globals.addNewIndex() records it in the metadata, and builds it from the existing tuples. */
+    public static void create_index(ParsedStatement ps) {
+        BaseRelationSchema rs = Globals.getRelationSchema(ps.ci_tableName);
+
+        if(rs == null) {
+            System.out.println("=========> Table " + ps.ci_tableName + " does not exist");
+        } else if(Globals.existsIndex(ps.ci_indexName)) {
+            System.out.println("=========> The index " + ps.ci_indexName + " already exists.");
+        } else if(! rs.hasAttribute(ps.ci_attributeName)) {
+            System.out.println("=========> Attribute " + ps.ci_attributeName + " not present in the relation " + ps.ci_tableName);
+        } else {
+            Globals.addNewIndex(new IndexSchema(ps.ci_indexName, ps.ci_tableName, rs.getPosition(ps.ci_attributeName)));
+        }
+    }
+
+    /* Compute the statistics on a table and store them (see TableStatistics). */
+    public static void analyze_table(ParsedStatement ps) {
+        BaseRelationSchema rs = Globals.getRelationSchema(ps.an_tableName);
+
+        if(rs == null) {
+            System.out.println("=========> Table " + ps.an_tableName + " does not exist");
+        } else {
+            Globals.analyzeTable(rs).print();
+        }
+    }
+
+    /* Load the tuples of a table from a CSV file (see CSVLoader). */
+    public static void copy_from_file(ParsedStatement ps) {
+        BaseRelationSchema rs = Globals.getRelationSchema(ps.cp_tableName);
+
+        if(rs == null) {
+            System.out.println("=========> Table " + ps.cp_tableName + " does not exist");
+        } else if(! new File(ps.cp_fileName).canRead()) {
+            System.out.println("=========> Cannot read the file " + ps.cp_fileName);
+        } else {
+            long startTime = System.nanoTime();
+            long n = CSVLoader.load(rs, ps.cp_fileName);
+            double seconds = (System.nanoTime() - startTime) / 1e9;
+            System.out.println(String.format("Copied %d tuples into %s in %.2f seconds (%.0f tuples/second)", 
+                        n, rs.getName(), seconds, n / seconds));
+        }
+    }
+
     /* Insert a new tuple into a relation. */
     public static void insert_values(ParsedStatement ps) {
         // First find the corresponding relation schema and make sure it exists.
@@ -77,21 +121,46 @@ public class CommandLine {
         }
     }
 
+    /* Usage: java CommandLine <database directory> [-bulk]
+
+       With -bulk, the input is treated as a load script: inserts are parsed with the fast-path scanner in 
+       SQLParser.ParseInsert() and go through the bulk-load path in Globals, statements are not echoed, and the load rate is reported at the end. */
     public static void main(String argv[]) {
         // Open the database using the argv arguments
         Globals.initialize(argv[0]);
 
+        boolean bulk = (argv.length > 1 && argv[1].equals("-bulk"));
+        if(bulk) 
+            Globals.startBulkLoad();
+        long startTime = System.nanoTime();
+
         // Start reading the commands
-        BufferedReader in = new BufferedReader(new InputStreamReader(System.in));
-        System.out.println();
-        System.out.print("command> ");
+        BufferedReader in = new BufferedReader(new InputStreamReader(System.in), 1 << 16);
+        if(!bulk) {
+            System.out.println();
+            System.out.print("command> ");
+        }
 
         try {
             String str = "";
             while((str = in.readLine()) != null) {
-                ParsedStatement ps = SQLParser.Parse(str);
+                ParsedStatement ps = null;
+                if(bulk) 
+                    ps = SQLParser.ParseInsert(str);
+                if(ps == null) {
+                    /* Empty lines are fine in a load script. */
+                    if(bulk && str.trim().length() == 0) 
+                        continue;
+                    ps = SQLParser.Parse(str);
+                }
+
                 if(ps != null) {
-                    ps.print();
+                    if(!bulk) 
+                        ps.print();
+
+                    /* Anything other than an insert may look at (or drop) the tables being loaded. */
+                    if(ps.statementType != ParsedStatement.INSERT_VALUES) 
+                        Globals.finishBulkLoad();
 
                     switch(ps.statementType) {
                         case ParsedStatement.CREATE_TABLE:
@@ -110,17 +179,37 @@ public class CommandLine {
                             drop_table(ps);
                             break;
 
+                        case ParsedStatement.CREATE_INDEX:
+                            create_index(ps);
+                            break;
+
+                        case ParsedStatement.ANALYZE:
+                            analyze_table(ps);
+                            break;
+
+                        case ParsedStatement.COPY:
+                            copy_from_file(ps);
+                            break;
+
                         default:
                             assert false : "This shouldn't happen";
                     }
                 }
 
-                System.out.println();
-                System.out.print("command> ");
+                if(!bulk) {
+                    System.out.println();
+                    System.out.print("command> ");
+                }
             }
 
             Globals.close();
 
+            if(bulk) {
+                double seconds = (System.nanoTime() - startTime) / 1e9;
+                System.out.println(String.format("Loaded %d tuples in %.2f seconds (%.0f tuples/second)", 
+                            Globals.bulkLoadedTuples, seconds, Globals.bulkLoadedTuples / seconds));
+            }
+
         } catch (Exception e) {
             System.out.println("Non-fatal exception: " + e);
             e.printStackTrace();
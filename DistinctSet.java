@@ -0,0 +1,116 @@
+import java.util.HashSet;
+
+/*****************************************************************************************************
+  Sets of the (projected) tuples seen so far, used by the ProjectOperator to implement DISTINCT.
+
+  add() returns true if the tuple was not in the set yet. estimatedSize() is the memory used by the
+  set, so that the caller can decide when to stop adding to it and spill instead.
+
+  As for the JoinHashTable, the set is specialized on the output of the projection:
+    IntDistinctSet:   a single INTEGER attribute; open addressing on primitive ints.
+    TupleDistinctSet: anything else; a HashSet of the tuples themselves.
+***************************************************************************************************/
+abstract class DistinctSet {
+    static DistinctSet create(RelationSchema rs) {
+        if(rs.getNumberOfAttributes() == 1 && rs.getAttributeType(0) == Globals.INTEGER) {
+            return new IntDistinctSet();
+        } else {
+            return new TupleDistinctSet();
+        }
+    }
+
+    abstract boolean add(IntermediateFlattenedTuple t);
+
+    abstract boolean contains(IntermediateFlattenedTuple t);
+
+    abstract long estimatedSize();
+}
+
+class IntDistinctSet extends DistinctSet {
+    static final int INITIAL_CAPACITY = 64;
+
+    /* 0 marks an empty slot, so whether 0 itself is in the set is kept separately. */
+    int[] keys = new int[INITIAL_CAPACITY];
+    int mask = INITIAL_CAPACITY - 1;
+    int numKeys = 0;
+    boolean containsZero = false;
+
+    boolean add(IntermediateFlattenedTuple t) {
+        int key = ((Integer) t.values[0]).intValue();
+
+        if(key == 0) {
+            boolean ret = !containsZero;
+            containsZero = true;
+            return ret;
+        }
+
+        if(2 * (numKeys + 1) > keys.length)
+            grow();
+
+        int slot = JoinHashTable.mix(key) & mask;
+        while(keys[slot] != 0) {
+            if(keys[slot] == key)
+                return false;
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        numKeys++;
+        return true;
+    }
+
+    boolean contains(IntermediateFlattenedTuple t) {
+        int key = ((Integer) t.values[0]).intValue();
+
+        if(key == 0)
+            return containsZero;
+
+        int slot = JoinHashTable.mix(key) & mask;
+        while(keys[slot] != 0) {
+            if(keys[slot] == key)
+                return true;
+            slot = (slot + 1) & mask;
+        }
+        return false;
+    }
+
+    long estimatedSize() {
+        return 4L * keys.length;
+    }
+
+    void grow() {
+        int[] oldKeys = keys;
+
+        keys = new int[oldKeys.length * 2];
+        mask = keys.length - 1;
+
+        for(int i = 0; i < oldKeys.length; i++) {
+            if(oldKeys[i] != 0) {
+                int slot = JoinHashTable.mix(oldKeys[i]) & mask;
+                while(keys[slot] != 0)
+                    slot = (slot + 1) & mask;
+                keys[slot] = oldKeys[i];
+            }
+        }
+    }
+}
+
+class TupleDistinctSet extends DistinctSet {
+    HashSet<IntermediateFlattenedTuple> tuples = new HashSet<IntermediateFlattenedTuple>();
+    long size = 0;
+
+    boolean add(IntermediateFlattenedTuple t) {
+        if(tuples.add(t)) {
+            size += 48 + t.estimatedSize();     // 48 for the HashMap entry
+            return true;
+        }
+        return false;
+    }
+
+    boolean contains(IntermediateFlattenedTuple t) {
+        return tuples.contains(t);
+    }
+
+    long estimatedSize() {
+        return size;
+    }
+}
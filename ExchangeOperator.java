@@ -0,0 +1,339 @@
+import java.util.Vector;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*****************************************************************************************************
+  The Exchange operator: moves tuples between threads, so that parts of a plan can run in parallel
+  while every operator keeps its usual init() / get_next() / close() interface (the operators above
+  and below an exchange don't know about the threads).
+
+  An exchange has a number of producers (subplans), each run by its own thread, and a number of
+  consumers. Every consumer reads from its own port: an ExchangeOperator with its own BatchQueue. The
+  producer threads get batches from their subplans (with next_batch()), and route the tuples to the
+  queues in one of the modes:
+    GATHER:      all the tuples go to the single consumer.
+    HASH:        every tuple goes to the consumer given by the hash of its key attribute, so that all
+                 the tuples with the same key meet at the same consumer (e.g. the same hash join).
+    ROUND_ROBIN: every batch goes to the next consumer in turn.
+    BROADCAST:   every batch goes to all the consumers.
+  The queues are bounded (QUEUE_CAPACITY batches), so a fast producer waits for a slow consumer.
+
+  The producer threads are started when the first port is initialized, and run until their subplans
+  are done, or until all the ports have been closed (e.g. because of a LIMIT). A consumer that closes
+  early just stops receiving tuples. We use threads of our own instead of Globals.pool, since producers
+  and consumers block on each other, which would starve a pool of fixed size.
+
+  Plans: parallelize() rewrites a plan of scans and hash joins into Globals.parallelism copies, which
+  run in parallel, and gathers their outputs:
+    - A large scan is split into scans of ranges of the primary key (see ScanOperator.splitIntoRanges()).
+    - A hash join is split according to its inputs. If n copies of the build (right) input fit in
+      memory, it is broadcast to every copy, and the probe (left) input stays split the way it is (or
+      is dealt round-robin, if it could not be split). Otherwise both inputs are hash-repartitioned on
+      their join attributes, so that every copy joins a disjoint part of the keys.
+  The gathered output is not in any particular order.
+***************************************************************************************************/
+public class ExchangeOperator extends Operator {
+    static final int GATHER = 0;
+    static final int HASH = 1;
+    static final int ROUND_ROBIN = 2;
+    static final int BROADCAST = 3;
+
+    static final String[] modeNames = {"gather", "hash repartition", "round-robin repartition", "broadcast"};
+
+    /* The number of batches in every queue, the smallest scan worth splitting, and the cost of handing a tuple to another thread. */
+    static final int QUEUE_CAPACITY = 8;
+    static final double PARALLEL_MIN_ROWS = 10000;
+    static final double TRANSFER_COST = 0.5;
+
+    /* The state shared by the ports of an exchange. */
+    static class Exchange {
+        int mode;
+        Vector<Operator> producers;
+        TupleAttribute key;
+
+        BatchQueue[] queues;
+        Thread[] threads = null;
+
+        AtomicInteger runningProducers;
+        volatile boolean cancelled = false;
+        int openConsumers;
+
+        Exchange(int mode, Vector<Operator> producers, TupleAttribute key, int consumers) {
+            this.mode = mode;
+            this.producers = producers;
+            this.key = key;
+
+            runningProducers = new AtomicInteger(producers.size());
+            queues = new BatchQueue[consumers];
+            for(int i = 0; i < consumers; i++)
+                queues[i] = new BatchQueue(QUEUE_CAPACITY, runningProducers);
+            openConsumers = consumers;
+        }
+
+        /* Start the producer threads, once. */
+        synchronized void start() {
+            if(threads != null)
+                return;
+
+            threads = new Thread[producers.size()];
+            for(int i = 0; i < threads.length; i++) {
+                final Operator op = producers.get(i);
+                threads[i] = new Thread(new Runnable() {
+                    public void run() {
+                        produce(op);
+                    }
+                }, "exchange producer " + i);
+                threads[i].setDaemon(true);
+                threads[i].start();
+            }
+        }
+
+        /* The body of a producer thread. */
+        void produce(Operator op) {
+            try {
+                op.init();
+
+                TupleBatch in = new TupleBatch();
+                TupleBatch[] pending = new TupleBatch[queues.length];
+                int next = 0;
+
+                while(! cancelled && op.next_batch(in)) {
+                    if(in.count == 0)
+                        continue;
+
+                    if(mode == HASH) {
+                        for(int i = 0; i < in.count; i++) {
+                            Tuple t = in.getTuple(in.selection[i]);
+                            Object k = key.evaluate(t);
+                            int c = JoinHashTable.partition((k == null) ? 0 : k.hashCode(), queues.length);
+                            if(pending[c] == null)
+                                pending[c] = new TupleBatch();
+                            pending[c].add(t);
+                            if(pending[c].isFull()) {
+                                send(pending[c], c);
+                                pending[c] = null;
+                            }
+                        }
+                    } else if(mode == BROADCAST) {
+                        TupleBatch b = copyOf(in);
+                        for(int c = 0; c < queues.length; c++)
+                            send(b, c);
+                    } else {
+                        send(copyOf(in), next);
+                        next = (next + 1) % queues.length;
+                    }
+                }
+
+                for(int c = 0; c < queues.length; c++)
+                    if(pending[c] != null && ! cancelled)
+                        send(pending[c], c);
+
+                op.close();
+            } catch (Throwable e) {
+                e.printStackTrace();
+                System.out.println("=========> Error in a producer thread of an exchange");
+                System.exit(1);
+            }
+            runningProducers.decrementAndGet();
+        }
+
+        void send(TupleBatch b, int consumer) {
+            if(! queues[consumer].closed)
+                queues[consumer].put(b);
+        }
+
+        /* A batch of the selected tuples of a batch that is going to be refilled. */
+        static TupleBatch copyOf(TupleBatch in) {
+            TupleBatch b = new TupleBatch();
+            for(int i = 0; i < in.count; i++)
+                b.add(in.getTuple(in.selection[i]));
+            return b;
+        }
+
+        /* Once all the ports are closed, stop the producers (they are waiting for room in the queues, or
+           still running their subplans), and wait for them to close their subplans. */
+        synchronized void close(int consumer) {
+            if(queues[consumer].closed)
+                return;
+            queues[consumer].close();
+            if(--openConsumers > 0 || threads == null)
+                return;
+
+            cancelled = true;
+            for(Thread t : threads) {
+                try {
+                    t.join();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+    }
+
+    Exchange exchange;
+    int consumer;
+
+    /* The layout of the tuples, as for a ScanOperator or a JoinOperator (all the producers produce the same). */
+    int slot;
+    int num_slots;
+
+    /* The batch we are returning tuples from. */
+    TupleBatch current = null;
+    int position = 0;
+
+    ExchangeOperator(Exchange exchange, int consumer) {
+        this.exchange = exchange;
+        this.consumer = consumer;
+
+        Operator p = exchange.producers.get(0);
+        slot = JoinOperator.slotOf(p);
+        num_slots = JoinOperator.numSlots(p);
+    }
+
+    /* The outputs of the producers, all to a single consumer. */
+    static ExchangeOperator gather(Vector<Operator> producers) {
+        return new ExchangeOperator(new Exchange(GATHER, producers, null, 1), 0);
+    }
+
+    /* The outputs of the producers, split among n consumers by the hash of the key attribute (or round-robin if it is null). */
+    static Vector<Operator> repartition(Vector<Operator> producers, TupleAttribute key, int n) {
+        return ports(new Exchange((key == null) ? ROUND_ROBIN : HASH, producers, key, n));
+    }
+
+    /* The outputs of the producers, to each of n consumers. */
+    static Vector<Operator> broadcast(Vector<Operator> producers, int n) {
+        return ports(new Exchange(BROADCAST, producers, null, n));
+    }
+
+    static Vector<Operator> ports(Exchange exchange) {
+        Vector<Operator> v = new Vector<Operator>();
+        for(int i = 0; i < exchange.queues.length; i++) {
+            ExchangeOperator port = new ExchangeOperator(exchange, i);
+            port.estimate();
+            v.add(port);
+        }
+        return v;
+    }
+
+    /* Run the plan in parallel, if it is made of scans and hash joins, and it is large enough. Assumes the plan has been estimated. */
+    static Operator parallelize(Operator op) {
+        if(Globals.parallelism < 2)
+            return op;
+
+        Vector<Operator> streams = split(op, Globals.parallelism);
+        if(streams == null || streams.size() < 2)
+            return op;
+
+        ExchangeOperator gather = gather(streams);
+        gather.estimate();
+        return gather;
+    }
+
+    /* Operators that produce the output of op between them, and can run in parallel. null if we don't know how to split op. */
+    static Vector<Operator> split(Operator op, int n) {
+        if(op instanceof ScanOperator) {
+            if(op.estimated_rows < PARALLEL_MIN_ROWS)
+                return null;
+            Vector<ScanOperator> ranges = ((ScanOperator) op).splitIntoRanges(n);
+            return (ranges == null) ? null : new Vector<Operator>(ranges);
+        }
+
+        if(! (op instanceof HashJoinOperator))
+            return null;
+
+        HashJoinOperator hj = (HashJoinOperator) op;
+        Vector<Operator> left = split(hj.leftOp, n);
+        Vector<Operator> right = split(hj.rightOp, n);
+        if(left == null && right == null)
+            return null;
+        if(left == null)
+            left = single(hj.leftOp);
+        if(right == null)
+            right = single(hj.rightOp);
+
+        Vector<Operator> probes;
+        Vector<Operator> builds;
+        if(hj.rightOp.estimated_rows * hj.rightOp.estimated_width * n <= Globals.memoryBudget) {
+            probes = (left.size() >= 2) ? left : repartition(left, null, n);
+            builds = broadcast(right, probes.size());
+        } else {
+            probes = repartition(left, (TupleAttribute) hj.jp.lhs(), n);
+            builds = repartition(right, (TupleAttribute) hj.jp.rhs(), n);
+        }
+
+        Vector<Operator> copies = new Vector<Operator>();
+        for(int i = 0; i < probes.size(); i++) {
+            HashJoinOperator copy = new HashJoinOperator(probes.get(i), builds.get(i), hj.jp);
+            copy.estimate();
+            copies.add(copy);
+        }
+        return copies;
+    }
+
+    static Vector<Operator> single(Operator op) {
+        Vector<Operator> v = new Vector<Operator>();
+        v.add(op);
+        return v;
+    }
+
+    /* The producers run in parallel; every consumer gets its share of their output. */
+    void estimate() {
+        double rows = 0;
+        double cost = 0;
+        for(Operator p : exchange.producers) {
+            rows += p.estimated_rows;
+            cost = Math.max(cost, p.estimated_cost);
+        }
+        if(exchange.mode == HASH || exchange.mode == ROUND_ROBIN)
+            rows /= exchange.queues.length;
+
+        estimated_rows = rows;
+        estimated_width = exchange.producers.get(0).estimated_width;
+        estimated_cost = cost + rows * TRANSFER_COST;
+    }
+
+    /* Pretty print. The producers are copies of the same plan over different parts of the data, so we only show the first one. */
+    void print(int num_tabs) {
+        for(int i = 0; i < num_tabs; i++)
+            System.out.print("	");
+        System.out.println("Exchange operator: " + modeNames[exchange.mode] + (exchange.mode == HASH ? " on " + exchange.key : "")
+                + " from " + exchange.producers.size() + " producer(s)"
+                + (exchange.mode == GATHER ? "" : " to consumer " + (consumer + 1) + " of " + exchange.queues.length)
+                + estimates());
+        exchange.producers.get(0).print(num_tabs+1);
+    }
+
+    void init() {
+        current = null;
+        position = 0;
+        exchange.start();
+    }
+
+    /* Move to a batch with tuples left. false once the producers are done. */
+    boolean nextInputBatch() {
+        while(current == null || position == current.count) {
+            current = exchange.queues[consumer].take();
+            position = 0;
+            if(current == null)
+                return false;
+        }
+        return true;
+    }
+
+    Tuple get_next() {
+        if(! nextInputBatch())
+            return null;
+        return current.tuples[current.selection[position++]];
+    }
+
+    boolean next_batch(TupleBatch batch) {
+        batch.reset();
+        while(! batch.isFull() && nextInputBatch())
+            batch.add(current.tuples[current.selection[position++]]);
+        return batch.size > 0;
+    }
+
+    void close() {
+        current = null;
+        exchange.close(consumer);
+    }
+}
@@ -0,0 +1,237 @@
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Vector;
+
+/*****************************************************************************************************
+  External merge sort of a stream of tuples, using at most Globals.memoryBudget bytes of memory.
+
+  add(t): 
+    Tuples are collected in memory. Once they exceed the memory budget, they are sorted and written 
+    out as a sorted run (a SpillFile).
+  finish():
+    If everything fit in memory, we just sort it. Otherwise the last run is written out, and 
+    next() does a k-way merge of all the runs (with a LoserTree). If there are more than MAX_FAN_IN 
+    runs, groups of MAX_FAN_IN runs are first merged into longer runs, so that we never have too 
+    many files (and their buffers) open at once.
+  next(): 
+    Returns the tuples in sorted order, and null at the end.
+  close():
+    Deletes the runs.
+***************************************************************************************************/
+class ExternalSorter {
+    static final int MAX_FAN_IN = 64;
+
+    Comparator<Tuple> comparator;
+
+    Vector<Tuple> buffer = new Vector<Tuple>();
+    long bufferBytes = 0;
+    int bufferPosition = 0;
+
+    Vector<SpillFile> runs = new Vector<SpillFile>();
+
+    /* For merging the runs. */
+    LoserTree merger = null;
+
+    ExternalSorter(Comparator<Tuple> comparator) {
+        this.comparator = comparator;
+    }
+
+    void add(Tuple t) {
+        buffer.add(t);
+        bufferBytes += t.estimatedSize() + 8;
+
+        if(bufferBytes > Globals.memoryBudget) 
+            writeRun();
+    }
+
+    /* Sort the buffered tuples and write them out as a run. */
+    void writeRun() {
+        Collections.sort(buffer, comparator);
+
+        SpillFile run = new SpillFile();
+        for(Tuple t : buffer) 
+            run.write(t);
+        runs.add(run);
+
+        buffer.clear();
+        bufferBytes = 0;
+    }
+
+    /* Done adding. Get ready to produce the output. */
+    void finish() {
+        if(runs.size() == 0) {
+            Collections.sort(buffer, comparator);
+            bufferPosition = 0;
+        } else {
+            if(buffer.size() != 0) 
+                writeRun();
+
+            /* Intermediate merge passes. The merged run goes to the end, so the runs are merged level by level. */
+            while(runs.size() > MAX_FAN_IN) {
+                Vector<SpillFile> group = new Vector<SpillFile>(runs.subList(0, MAX_FAN_IN));
+                runs.subList(0, MAX_FAN_IN).clear();
+
+                LoserTree lt = new LoserTree(group, comparator);
+                SpillFile merged = new SpillFile();
+                Tuple t;
+                while((t = lt.next()) != null) 
+                    merged.write(t);
+                for(SpillFile run : group) 
+                    run.delete();
+                runs.add(merged);
+            }
+
+            merger = new LoserTree(runs, comparator);
+        }
+    }
+
+    Tuple next() {
+        if(merger == null) {
+            if(bufferPosition == buffer.size()) 
+                return null;
+            return buffer.get(bufferPosition++);
+        }
+
+        return merger.next();
+    }
+
+    void close() {
+        for(SpillFile run : runs) 
+            run.delete();
+        runs.clear();
+        buffer.clear();
+        merger = null;
+    }
+}
+
+/*****************************************************************************************************
+  A tournament tree of losers, for merging k sorted runs.
+
+  The runs are the leaves of a complete binary tree (leaf i is node k + i). Every internal node 
+  remembers the loser of the match played there, and tree[0] is the overall winner, i.e., the run 
+  with the smallest current tuple. After the winner's tuple is returned, only the matches on the path 
+  from its leaf to the root are replayed, so each tuple costs log2(k) comparisons (a heap needs 
+  about twice as many). An exhausted run loses every match; ties go to the earlier run.
+***************************************************************************************************/
+class LoserTree {
+    Vector<SpillFile> runs;
+    Comparator<Tuple> comparator;
+
+    int k;
+    Tuple[] current;
+    int[] tree;
+
+    LoserTree(Vector<SpillFile> runs, Comparator<Tuple> comparator) {
+        this.runs = runs;
+        this.comparator = comparator;
+
+        k = runs.size();
+        current = new Tuple[k];
+        tree = new int[Math.max(k, 1)];
+
+        for(int i = 0; i < k; i++) {
+            runs.get(i).startReading();
+            current[i] = runs.get(i).read();
+        }
+
+        if(k > 0) 
+            tree[0] = build(1);
+    }
+
+    /* Play the matches in the subtree rooted at node, and return the winner. */
+    int build(int node) {
+        if(node >= k) 
+            return node - k;
+
+        int a = build(2 * node);
+        int b = build(2 * node + 1);
+        if(beats(a, b)) {
+            tree[node] = b;
+            return a;
+        } else {
+            tree[node] = a;
+            return b;
+        }
+    }
+
+    boolean beats(int a, int b) {
+        if(current[a] == null) 
+            return false;
+        if(current[b] == null) 
+            return true;
+        int c = comparator.compare(current[a], current[b]);
+        return c < 0 || (c == 0 && a < b);
+    }
+
+    Tuple next() {
+        if(k == 0) 
+            return null;
+
+        int winner = tree[0];
+        Tuple ret = current[winner];
+        if(ret == null) 
+            return null;
+
+        current[winner] = runs.get(winner).read();
+        for(int node = (winner + k) / 2; node >= 1; node /= 2) {
+            if(beats(tree[node], winner)) {
+                int t = tree[node];
+                tree[node] = winner;
+                winner = t;
+            }
+        }
+        tree[0] = winner;
+
+        return ret;
+    }
+}
+
+/* Compares tuples on a list of attributes, in order. */
+class TupleComparator implements Comparator<Tuple> {
+    Vector<TupleAttribute> attributes;
+
+    TupleComparator(Vector<TupleAttribute> attributes) {
+        this.attributes = attributes;
+    }
+
+    TupleComparator(TupleAttribute ta) {
+        attributes = new Vector<TupleAttribute>();
+        attributes.add(ta);
+    }
+
+    public int compare(Tuple t1, Tuple t2) {
+        for(TupleAttribute ta : attributes) {
+            int c;
+            if(ta.getAttributeType() == Globals.INTEGER) {
+                int i1 = ta.evaluateInt(t1);
+                int i2 = ta.evaluateInt(t2);
+                c = (i1 < i2) ? -1 : ((i1 == i2) ? 0 : 1);
+            } else {
+                c = ta.evaluateString(t1).compareTo(ta.evaluateString(t2));
+            }
+            if(c != 0) 
+                return c;
+        }
+        return 0;
+    }
+}
+
+/* Compares flattened tuples (the output of a ProjectOperator) on a list of positions, in order. */
+class FlattenedTupleComparator implements Comparator<Tuple> {
+    int[] positions;
+
+    FlattenedTupleComparator(int[] positions) {
+        this.positions = positions;
+    }
+
+    public int compare(Tuple t1, Tuple t2) {
+        Object[] v1 = ((IntermediateFlattenedTuple) t1).values;
+        Object[] v2 = ((IntermediateFlattenedTuple) t2).values;
+        for(int p : positions) {
+            int c = Globals.compareValues(v1[p], v2[p]);
+            if(c != 0) 
+                return c;
+        }
+        return 0;
+    }
+}
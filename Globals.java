@@ -7,11 +7,15 @@ import com.sleepycat.je.DatabaseException;
 import com.sleepycat.je.Environment;
 import com.sleepycat.je.EnvironmentConfig;
 import com.sleepycat.je.DatabaseEntry;
+import com.sleepycat.je.SecondaryConfig;
+import com.sleepycat.je.SecondaryDatabase;
 import com.sleepycat.bind.EntryBinding;
 import com.sleepycat.bind.tuple.TupleBinding;
 
+import java.util.HashSet;
 import java.util.Hashtable;
 import java.util.Vector;
+import java.util.concurrent.ForkJoinPool;
 import java.io.*;
 
 
@@ -24,6 +28,19 @@ public class Globals {
     public static final int INTEGER = 1;
     public static final int STRING = 2;
 
+    /* Memory (in bytes) that a single operator may use for its in-memory state (e.g., the build side 
+       of a hash join) before it has to spill to temporary files. Can be set with -DmemoryBudget=... */
+    static long memoryBudget = Long.getLong("memoryBudget", 64L * 1024 * 1024).longValue();
+
+    /* Number of threads for the work we do in parallel (parsing CSV files, parallel aggregation), and the pool 
+       of threads that does it. Can be set with -Dparallelism=... (1 turns parallel query execution off). */
+    static int parallelism = Integer.getInteger("parallelism", Runtime.getRuntime().availableProcessors()).intValue();
+    static ForkJoinPool pool = new ForkJoinPool(Math.max(1, parallelism));
+
+    /* Run the plans that it can run with morsel-driven parallelism (see MorselDrivenOperator) instead of 
+       exchanges (see ExchangeOperator). Set with -Dmorsels=true. */
+    static boolean morselDriven = Boolean.getBoolean("morsels");
+
     /********************************
       The Environment
       ******************************/
@@ -48,8 +65,10 @@ public class Globals {
 
     static void close() {
         try {
-            if (myDbEnvironment != null)
+            if (myDbEnvironment != null) {
+                finishBulkLoad();
                 myDbEnvironment.close();
+            }
         } catch (Exception dbe) {
             System.out.println("=========> Error during finishing up: " + dbe);
             dbe.printStackTrace();
@@ -62,9 +81,15 @@ public class Globals {
       Open a Database (basically a "table" in our normal parlance).
       *******************************/
     static Database openDatabase(String name, boolean allowCreate) {
+        return openDatabase(name, allowCreate, false);
+    }
+
+    /* A deferred-write Database only writes its changes to disk on sync() or close(). */
+    static Database openDatabase(String name, boolean allowCreate, boolean deferredWrite) {
         try {
             DatabaseConfig dbConfig = new DatabaseConfig();
             dbConfig.setAllowCreate(allowCreate);
+            dbConfig.setDeferredWrite(deferredWrite);
             return myDbEnvironment.openDatabase(null, name, dbConfig);
         } catch (Exception dbe) {
             // Exception handling goes here
@@ -117,22 +142,79 @@ public class Globals {
         }
     }
 
+    /********************************
+      Open a secondary index on a (open) table. BerkeleyDB keeps the index up to date on 
+      every put to the table, as long as the index is open. 
+      If allowCreate is true, the index is created and populated from the table if needed.
+      *******************************/
+    static SecondaryDatabase openSecondaryDatabase(IndexSchema is, Database primary, boolean allowCreate) {
+        return openSecondaryDatabase(is, primary, allowCreate, false);
+    }
+
+    static SecondaryDatabase openSecondaryDatabase(IndexSchema is, Database primary, boolean allowCreate, boolean deferredWrite) {
+        try {
+            SecondaryConfig secConfig = new SecondaryConfig();
+            secConfig.setAllowCreate(allowCreate);
+            secConfig.setAllowPopulate(allowCreate);
+            secConfig.setDeferredWrite(deferredWrite);
+            secConfig.setSortedDuplicates(true);
+            secConfig.setKeyCreator(new RelationSpecificKeyCreator(is));
+            return myDbEnvironment.openSecondaryDatabase(null, is.getDatabaseName(), primary, secConfig);
+        } catch (Exception dbe) {
+            // Exception handling goes here
+            System.out.println("=========> Error opening the index:" + dbe);
+            dbe.printStackTrace();
+            System.exit(1);
+            return null;
+        }
+    }
+
+    static SecondaryDatabase openSecondaryDatabase(IndexSchema is, Database primary) {
+        return openSecondaryDatabase(is, primary, false);
+    }
+
+    /* Open all the indexes on a table, so that a put to the table updates them as well. */
+    static Vector<SecondaryDatabase> openAllSecondaryDatabases(BaseRelationSchema rs, Database primary) {
+        Vector<SecondaryDatabase> v = new Vector<SecondaryDatabase>();
+        for(IndexSchema is : rs.indexes) 
+            v.add(openSecondaryDatabase(is, primary));
+        return v;
+    }
+
+    static void closeAllSecondaryDatabases(Vector<SecondaryDatabase> v) {
+        for(SecondaryDatabase sdb : v) 
+            closeDatabase(sdb);
+    }
+
     /***********************************************************
       Insert tuple into a table using its primary key as the key. 
       **********************************************************/
     static void insertTuple(BaseRelationSchema rs, BaseTuple bt) {
         try {
+            if(bulkLoading) {
+                bulkInsertTuple(rs, bt);
+                return;
+            }
+
             Database myDatabase = Globals.openDatabase(rs.getName());
 
             assert myDatabase != null; // There should not be any inconsistency between our RelationSchemas Hashtable and the database
 
+            /* The indexes need to be open for BerkeleyDB to maintain them. */
+            Vector<SecondaryDatabase> indexes = openAllSecondaryDatabases(rs, myDatabase);
+
             DatabaseEntry myData = new DatabaseEntry();
             rs.getCustomBinding().objectToEntry(bt, myData);
 
             DatabaseEntry myKey = bt.primaryKeyToEntry();
 
-            myDatabase.put(null, myKey, myData);
+            /* Keep the statistics on the table (if there are any) up to date. */
+            boolean newKey = putTuple(myDatabase, myKey, myData);
+            TableStatistics ts = findTableStatistics(rs);
+            if(ts != null && newKey) 
+                ts.addTuple(bt, myData.getSize());
 
+            closeAllSecondaryDatabases(indexes);
             Globals.closeDatabase(myDatabase);
         } catch (Exception dbe) {
             System.out.println("=========> BerkeleyDB error while inserting... something must be seriously wrong. Bailing out.");
@@ -142,12 +224,212 @@ public class Globals {
         }
     }
 
+    /* Insert a tuple, replacing the tuple with the same key if there is one. Returns false if there was one: the 
+       statistics already count it. */
+    static boolean putTuple(Database myDatabase, DatabaseEntry myKey, DatabaseEntry myData) throws DatabaseException {
+        if(myDatabase.putNoOverwrite(null, myKey, myData) == OperationStatus.SUCCESS) 
+            return true;
+        myDatabase.put(null, myKey, myData);
+        return false;
+    }
+
+    /********************************
+      BULK LOADING.
+
+      Opening and closing a table (and its indexes) for every inserted tuple dominates the cost of 
+      loading a long script of inserts. In bulk-load mode, insertTuple() instead keeps the handles of the 
+      tables it inserts into open (in deferred-write mode), and syncs them to disk every bulkLoadBatchSize 
+      inserts (can be set with -DbulkLoadBatchSize=...). The handles must be closed with finishBulkLoad() 
+      before anything else touches those tables (CommandLine does that before every statement that is not 
+      an insert).
+      ******************************/
+    static int bulkLoadBatchSize = Integer.getInteger("bulkLoadBatchSize", 10000).intValue();
+    static boolean bulkLoading = false;
+    static int insertsSinceSync = 0;
+    static long bulkLoadedTuples = 0;
+
+    static Hashtable<String, Database> bulkLoadTables = new Hashtable<String, Database>();
+    static Hashtable<String, Vector<SecondaryDatabase>> bulkLoadIndexes = new Hashtable<String, Vector<SecondaryDatabase>>();
+
+    static void startBulkLoad() {
+        bulkLoading = true;
+    }
+
+    static void stopBulkLoad() {
+        finishBulkLoad();
+        bulkLoading = false;
+    }
+
+    static void bulkInsertTuple(BaseRelationSchema rs, BaseTuple bt) throws DatabaseException {
+        Database myDatabase = bulkLoadTables.get(rs.getName());
+        if(myDatabase == null) {
+            myDatabase = openDatabase(rs.getName(), false, true);
+            Vector<SecondaryDatabase> indexes = new Vector<SecondaryDatabase>();
+            for(IndexSchema is : rs.indexes) 
+                indexes.add(openSecondaryDatabase(is, myDatabase, false, true));
+            bulkLoadTables.put(rs.getName(), myDatabase);
+            bulkLoadIndexes.put(rs.getName(), indexes);
+        }
+
+        DatabaseEntry myData = new DatabaseEntry();
+        rs.getCustomBinding().objectToEntry(bt, myData);
+
+        boolean newKey = putTuple(myDatabase, bt.primaryKeyToEntry(), myData);
+        TableStatistics ts = findTableStatistics(rs);
+        if(ts != null && newKey) 
+            ts.addTuple(bt, myData.getSize());
+
+        bulkLoadedTuples++;
+        if(++insertsSinceSync == bulkLoadBatchSize) {
+            for(String name : bulkLoadTables.keySet()) {
+                for(SecondaryDatabase sdb : bulkLoadIndexes.get(name)) 
+                    sdb.sync();
+                bulkLoadTables.get(name).sync();
+            }
+            insertsSinceSync = 0;
+        }
+    }
+
+    /* Close (and hence write out) all the tables kept open for bulk loading, and the statistics of the tables that 
+       were inserted into. We stay in bulk-load mode. */
+    static void finishBulkLoad() {
+        for(String name : bulkLoadTables.keySet()) {
+            closeAllSecondaryDatabases(bulkLoadIndexes.get(name));
+            closeDatabase(bulkLoadTables.get(name));
+        }
+        bulkLoadTables.clear();
+        bulkLoadIndexes.clear();
+        insertsSinceSync = 0;
+        writeModifiedTableStatistics();
+    }
+
+    /********************************
+      STATISTICS (for the planner). See TableStatistics.java.
+
+      The statistics computed by "ANALYZE table;" are stored in the "statistics" Database, keyed by the 
+      table name. They are read the first time they are needed, and kept up to date by insertTuple() (the 
+      tuples with new keys only). ANALYZE writes them right away; after inserts, they are written back by 
+      finishBulkLoad(), which runs at the end of a load and before any statement other than an insert. 
+      For a table that was never analyzed, the planner makes do with defaults (see TableStatistics.defaults()): 
+      reading the whole table to plan a query would cost more than most queries.
+      ******************************/
+    static Hashtable<String, TableStatistics> tableStatistics = new Hashtable<String, TableStatistics>();
+
+    /* The tables whose statistics we already tried to read from the "statistics" Database. */
+    static HashSet<String> tableStatisticsRead = new HashSet<String>();
+
+    /* The statistics on the table, if we have them in memory or in the "statistics" Database. null otherwise. */
+    static TableStatistics findTableStatistics(BaseRelationSchema rs) {
+        TableStatistics ts = tableStatistics.get(rs.getName());
+        if(ts == null && tableStatisticsRead.add(rs.getName())) {
+            ts = readTableStatistics(rs);
+            if(ts != null) 
+                tableStatistics.put(rs.getName(), ts);
+        }
+        return ts;
+    }
+
+    static TableStatistics getTableStatistics(BaseRelationSchema rs) {
+        TableStatistics ts = findTableStatistics(rs);
+        if(ts == null) {
+            ts = TableStatistics.defaults(rs);
+            tableStatistics.put(rs.getName(), ts);
+        }
+        return ts;
+    }
+
+    static TableStatistics readTableStatistics(BaseRelationSchema rs) {
+        try {
+            Database myDatabase = openOrCreateDatabase("statistics");
+
+            DatabaseEntry foundData = new DatabaseEntry();
+            TableStatistics ts = null;
+            if(myDatabase.get(null, simpleObjectToEntry(rs.getName()), foundData, LockMode.DEFAULT) == OperationStatus.SUCCESS) 
+                ts = (TableStatistics) new TableStatisticsTupleBinding().entryToObject(foundData);
+
+            closeDatabase(myDatabase);
+            return ts;
+        } catch (Exception dbe) {
+            System.out.println("=========> Error reading the statistics: " + dbe);
+            dbe.printStackTrace();
+            System.exit(1);
+            return null;
+        }
+    }
+
+    static void writeTableStatistics(TableStatistics ts) {
+        try {
+            Database myDatabase = openOrCreateDatabase("statistics");
+
+            DatabaseEntry myData = new DatabaseEntry();
+            new TableStatisticsTupleBinding().objectToEntry(ts, myData);
+            myDatabase.put(null, simpleObjectToEntry(ts.rs.getName()), myData);
+
+            closeDatabase(myDatabase);
+            ts.modified = false;
+        } catch (Exception dbe) {
+            System.out.println("=========> Error writing the statistics: " + dbe);
+            dbe.printStackTrace();
+            System.exit(1);
+        }
+    }
+
+    static void removeTableStatistics(String name) {
+        tableStatistics.remove(name);
+        try {
+            Database myDatabase = openOrCreateDatabase("statistics");
+            myDatabase.delete(null, simpleObjectToEntry(name));
+            closeDatabase(myDatabase);
+        } catch (Exception dbe) {
+            System.out.println("=========> Error removing the statistics: " + dbe);
+            dbe.printStackTrace();
+            System.exit(1);
+        }
+    }
+
+    /* This is executed as a result of the "analyze" command. */
+    static TableStatistics analyzeTable(BaseRelationSchema rs) {
+        TableStatistics ts = TableStatistics.collect(rs);
+        ts.persistent = true;
+        writeTableStatistics(ts);
+        syncEnvironment();
+        tableStatistics.put(rs.getName(), ts);
+        return ts;
+    }
+
+    /* Write back the statistics that were changed by insertTuple(). */
+    static void writeModifiedTableStatistics() {
+        boolean written = false;
+        for(TableStatistics ts : tableStatistics.values()) {
+            if(ts.persistent && ts.modified) {
+                writeTableStatistics(ts);
+                written = true;
+            }
+        }
+        if(written) 
+            syncEnvironment();
+    }
+
+    /* Without transactions, nothing is on disk until BerkeleyDB flushes its log: flush it, so that the statistics we 
+       just wrote (and the tuples they count) survive a crash. */
+    static void syncEnvironment() {
+        try {
+            myDbEnvironment.sync();
+        } catch (Exception dbe) {
+            System.out.println("=========> Error writing the statistics: " + dbe);
+            dbe.printStackTrace();
+            System.exit(1);
+        }
+    }
+
     /********************************
       RELATION SCHEMAS
       ******************************/
     /* At the beginning, we will read in all RelationSchemas from the "metadata" file. 
-       We will store it as a HashTable. */
+       We will store it as a HashTable. 
+       The "metadata" file also contains the IndexSchemas (under keys starting with "index:"). */
     static Hashtable allRelationSchemas = null;
+    static Hashtable allIndexes = null;
 
     static boolean existsRelation(String name) {
         return allRelationSchemas.containsKey(name);
@@ -157,13 +439,19 @@ public class Globals {
         return (BaseRelationSchema) allRelationSchemas.get(name);
     }
 
+    static boolean existsIndex(String name) {
+        return allIndexes.containsKey(name);
+    }
+
     static void readRelationSchemas() {
         try {
             allRelationSchemas = new Hashtable();
+            allIndexes = new Hashtable();
 
             Database myDatabase = openOrCreateDatabase("metadata"); 
 
             RelationSchemaTupleBinding rstb = new RelationSchemaTupleBinding();
+            IndexSchemaTupleBinding istb = new IndexSchemaTupleBinding();
 
             /* Read all the relationschemas and insert into the HashTable. */
             Cursor myCursor = myDatabase.openCursor(null, null);
@@ -171,13 +459,27 @@ public class Globals {
             DatabaseEntry foundKey = new DatabaseEntry();
             DatabaseEntry foundData = new DatabaseEntry();
 
+            Vector<IndexSchema> indexes = new Vector<IndexSchema>();
+
             while (myCursor.getNext(foundKey, foundData, LockMode.DEFAULT) == OperationStatus.SUCCESS) {
-                BaseRelationSchema rs = (BaseRelationSchema) rstb.entryToObject(foundData);
-                allRelationSchemas.put(rs.relationName, rs);
+                String key = new String(foundKey.getData(), foundKey.getOffset(), foundKey.getSize(), "UTF-8");
+
+                if(key.startsWith(IndexSchema.METADATA_KEY_PREFIX)) {
+                    indexes.add((IndexSchema) istb.entryToObject(foundData));
+                } else {
+                    BaseRelationSchema rs = (BaseRelationSchema) rstb.entryToObject(foundData);
+                    allRelationSchemas.put(rs.relationName, rs);
+                }
             }
 
             myCursor.close();
 
+            /* Attach the indexes to their relations (the order in the metadata file is arbitrary). */
+            for(IndexSchema is : indexes) {
+                allIndexes.put(is.getName(), is);
+                getRelationSchema(is.relationName).indexes.add(is);
+            }
+
             closeDatabase(myDatabase);
         } catch (Exception dbe) {
             // Exception handling goes here
@@ -211,7 +513,35 @@ public class Globals {
         }
     }
 
-    /* This statement is essentially executed as a result of the "drop table" command. */
+    /* This statement is essentially executed as a result of the "create index" command. 
+       We record the index in the metadata, and then create the SecondaryDatabase, which BerkeleyDB 
+       populates from the existing contents of the table. */
+    static void addNewIndex(IndexSchema is) {
+        Database myDatabase = openDatabase("metadata"); 
+        IndexSchemaTupleBinding istb = new IndexSchemaTupleBinding();
+
+        try {
+            DatabaseEntry myData = new DatabaseEntry();
+            istb.objectToEntry(is, myData);
+
+            myDatabase.put(null, simpleObjectToEntry(is.getDatabaseName()), myData);
+
+            closeDatabase(myDatabase);
+
+            allIndexes.put(is.getName(), is);
+            is.getRelationSchema().indexes.add(is);
+
+            Database primary = openDatabase(is.relationName);
+            closeDatabase(openSecondaryDatabase(is, primary, true));
+            closeDatabase(primary);
+        } catch (Exception e) {
+            e.printStackTrace();
+            System.exit(1);
+        }
+    }
+
+    /* This statement is essentially executed as a result of the "drop table" command. 
+       The indexes on the table are dropped along with it. */
     static void removeRelationSchema(BaseRelationSchema rs) {
         Database myDatabase = openDatabase("metadata"); 
 
@@ -220,10 +550,17 @@ public class Globals {
 
             myDatabase.delete(null, myKey);
 
+            for(IndexSchema is : rs.indexes) {
+                myDatabase.delete(null, simpleObjectToEntry(is.getDatabaseName()));
+                removeDatabase(is.getDatabaseName());
+                allIndexes.remove(is.getName());
+            }
+
             closeDatabase(myDatabase);
 
             /* Also add the relation schema to the in-memory hash table. */
             allRelationSchemas.remove(rs.relationName);
+            removeTableStatistics(rs.relationName);
         } catch (Exception e) {
             e.printStackTrace();
             System.exit(1);
@@ -252,4 +589,33 @@ public class Globals {
         return null;
     }
 
+    /* The inverse of simpleObjectToEntry(), for a key of the given type. */
+    static Object simpleEntryToObject(DatabaseEntry de, int type) {
+        try {
+            if(type == STRING) 
+                return new String(de.getData(), de.getOffset(), de.getSize(), "UTF-8");
+            EntryBinding myBinding = TupleBinding.getPrimitiveBinding(Integer.class);
+            return myBinding.entryToObject(de);
+        } catch (Exception e) {
+            e.printStackTrace();
+            System.exit(1);
+        }
+        return null;
+    }
+
+    /* Compare two attribute values. This matches the order in which BerkeleyDB returns the keys 
+       produced by simpleObjectToEntry(): IntegerBinding keeps numeric order, and our strings 
+       are plain ASCII, so byte order is the same as String order. */
+    static int compareValues(Object o1, Object o2) {
+        if(o1 instanceof Integer) {
+            int i1 = ((Integer) o1).intValue();
+            int i2 = ((Integer) o2).intValue();
+            return (i1 < i2) ? -1 : ((i1 == i2) ? 0 : 1);
+        } else if(o1 instanceof String) {
+            return ((String) o1).compareTo((String) o2);
+        } else {
+            /* Longs and Doubles, from aggregates. */
+            return ((Comparable) o1).compareTo(o2);
+        }
+    }
 }
@@ -0,0 +1,207 @@
+import java.util.Vector;
+
+/*****************************************************************************************************
+  Hash tables mapping the values of the GROUP BY attributes of a tuple to a group number, used by the
+  HashAggregateOperator. Groups are numbered 0, 1, 2, ... in the order in which they are created, and
+  the accumulators of the aggregates keep their state in arrays indexed by the group number.
+
+  As for the JoinHashTable, the table is specialized on the grouping attributes:
+    IntGroupHashTable:   a single INTEGER attribute; open addressing on primitive ints.
+    TupleGroupHashTable: anything else (including no attributes at all: a single group); open
+                         addressing on IntermediateFlattenedTuples of the values, with cached hashes.
+***************************************************************************************************/
+abstract class GroupHashTable {
+    static final int INITIAL_CAPACITY = 64;
+
+    Vector<TupleAttribute> group_by_attributes;
+    int numGroups = 0;
+
+    static GroupHashTable create(Vector<TupleAttribute> group_by_attributes) {
+        if(group_by_attributes.size() == 1 && group_by_attributes.get(0).getAttributeType() == Globals.INTEGER) {
+            return new IntGroupHashTable(group_by_attributes);
+        } else {
+            return new TupleGroupHashTable(group_by_attributes);
+        }
+    }
+
+    /* Returns the group of the tuple. If there is no such group yet, creates one if create is true,
+       and returns -1 otherwise. */
+    abstract int findGroup(Tuple t, boolean create);
+
+    /* Returns the group with the same grouping values as the given group of another table (of the same kind),
+       creating it if needed. Used to merge partial aggregates. */
+    abstract int findGroup(GroupHashTable other, int group);
+
+    /* The value of the i-th grouping attribute for the group. */
+    abstract Object groupValue(int group, int i);
+
+    /* The grouping values of the tuple, as an object with the right hashCode() for partitioning. */
+    abstract Object groupKey(Tuple t);
+
+    abstract long estimatedSize();
+
+    int size() {
+        return numGroups;
+    }
+}
+
+class IntGroupHashTable extends GroupHashTable {
+    TupleAttribute attribute;
+
+    int[] keys = new int[INITIAL_CAPACITY];
+    int[] groups = new int[INITIAL_CAPACITY];     // group + 1; 0 means the slot is empty
+    int mask = INITIAL_CAPACITY - 1;
+
+    int[] groupKeys = new int[INITIAL_CAPACITY];  // the key of every group
+
+    IntGroupHashTable(Vector<TupleAttribute> group_by_attributes) {
+        this.group_by_attributes = group_by_attributes;
+        attribute = group_by_attributes.get(0);
+    }
+
+    int findGroup(Tuple t, boolean create) {
+        return findGroup(attribute.evaluateInt(t), create);
+    }
+
+    int findGroup(GroupHashTable other, int group) {
+        return findGroup(((IntGroupHashTable) other).groupKeys[group], true);
+    }
+
+    int findGroup(int key, boolean create) {
+        int slot = JoinHashTable.mix(key) & mask;
+        while(groups[slot] != 0) {
+            if(keys[slot] == key)
+                return groups[slot] - 1;
+            slot = (slot + 1) & mask;
+        }
+
+        if(! create)
+            return -1;
+
+        if(numGroups == groupKeys.length)
+            groupKeys = java.util.Arrays.copyOf(groupKeys, 2 * numGroups);
+        groupKeys[numGroups] = key;
+
+        keys[slot] = key;
+        groups[slot] = ++numGroups;
+
+        if(2 * numGroups > keys.length)
+            grow();
+        return numGroups - 1;
+    }
+
+    Object groupValue(int group, int i) {
+        return Integer.valueOf(groupKeys[group]);
+    }
+
+    Object groupKey(Tuple t) {
+        return attribute.evaluate(t);
+    }
+
+    long estimatedSize() {
+        return 8L * keys.length + 4L * groupKeys.length;
+    }
+
+    void grow() {
+        int[] oldKeys = keys;
+        int[] oldGroups = groups;
+
+        keys = new int[oldKeys.length * 2];
+        groups = new int[oldKeys.length * 2];
+        mask = keys.length - 1;
+
+        for(int i = 0; i < oldKeys.length; i++) {
+            if(oldGroups[i] != 0) {
+                int slot = JoinHashTable.mix(oldKeys[i]) & mask;
+                while(groups[slot] != 0)
+                    slot = (slot + 1) & mask;
+                keys[slot] = oldKeys[i];
+                groups[slot] = oldGroups[i];
+            }
+        }
+    }
+}
+
+class TupleGroupHashTable extends GroupHashTable {
+    IntermediateFlattenedTuple[] keys = new IntermediateFlattenedTuple[INITIAL_CAPACITY];
+    int[] hashes = new int[INITIAL_CAPACITY];
+    int[] groups = new int[INITIAL_CAPACITY];     // group + 1; 0 means the slot is empty
+    int mask = INITIAL_CAPACITY - 1;
+
+    Vector<IntermediateFlattenedTuple> groupKeys = new Vector<IntermediateFlattenedTuple>();
+    long keyBytes = 0;
+
+    TupleGroupHashTable(Vector<TupleAttribute> group_by_attributes) {
+        this.group_by_attributes = group_by_attributes;
+    }
+
+    int findGroup(Tuple t, boolean create) {
+        return findGroup((IntermediateFlattenedTuple) groupKey(t), create);
+    }
+
+    int findGroup(GroupHashTable other, int group) {
+        return findGroup(((TupleGroupHashTable) other).groupKeys.get(group), true);
+    }
+
+    int findGroup(IntermediateFlattenedTuple key, boolean create) {
+        int h = key.hashCode();
+
+        int slot = JoinHashTable.mix(h) & mask;
+        while(groups[slot] != 0) {
+            if(hashes[slot] == h && keys[slot].equals(key))
+                return groups[slot] - 1;
+            slot = (slot + 1) & mask;
+        }
+
+        if(! create)
+            return -1;
+
+        groupKeys.add(key);
+        keyBytes += key.estimatedSize();
+
+        keys[slot] = key;
+        hashes[slot] = h;
+        groups[slot] = ++numGroups;
+
+        if(2 * numGroups > keys.length)
+            grow();
+        return numGroups - 1;
+    }
+
+    Object groupValue(int group, int i) {
+        return groupKeys.get(group).values[i];
+    }
+
+    Object groupKey(Tuple t) {
+        IntermediateFlattenedTuple key = new IntermediateFlattenedTuple(group_by_attributes.size());
+        for(int i = 0; i < group_by_attributes.size(); i++)
+            key.setValue(i, group_by_attributes.get(i).evaluate(t));
+        return key;
+    }
+
+    long estimatedSize() {
+        return 16L * keys.length + 8L * groupKeys.size() + keyBytes;
+    }
+
+    void grow() {
+        IntermediateFlattenedTuple[] oldKeys = keys;
+        int[] oldHashes = hashes;
+        int[] oldGroups = groups;
+
+        keys = new IntermediateFlattenedTuple[oldKeys.length * 2];
+        hashes = new int[oldKeys.length * 2];
+        groups = new int[oldKeys.length * 2];
+        mask = keys.length - 1;
+
+        for(int i = 0; i < oldKeys.length; i++) {
+            if(oldGroups[i] != 0) {
+                int slot = JoinHashTable.mix(oldHashes[i]) & mask;
+                while(groups[slot] != 0)
+                    slot = (slot + 1) & mask;
+                keys[slot] = oldKeys[i];
+                hashes[slot] = oldHashes[i];
+                groups[slot] = oldGroups[i];
+            }
+        }
+    }
+}
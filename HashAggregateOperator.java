@@ -0,0 +1,344 @@
+import java.util.Vector;
+import java.util.concurrent.RecursiveAction;
+
+/*****************************************************************************************************
+  Hash Aggregate Operator implementation, used for GROUP BY and aggregates (COUNT, SUM, MIN, MAX, AVG).
+
+  This operator has exactly one child. The key parameters include:
+    list of attributes to group on (empty if there is no GROUP BY: then everything is one group)
+    list of attributes to project on (all of them must be grouped on)
+    list of aggregates
+
+  The output tuples are flattened, with the attributes and the aggregates in the order of the select
+  list (see outputColumns()).
+
+  init(): aggregate the child's output
+  get_next(): return the next group
+  close(): delete the spill files, if any
+
+  The groups are found with a GroupHashTable, and the aggregates are kept in Accumulators (primitive
+  arrays indexed by the group number). If the groups grow beyond Globals.memoryBudget, we stop creating
+  new groups; from then on, the tuples of the existing groups are still aggregated in place, but a tuple
+  of a new group is written to one of NUM_PARTITIONS spill files (by hash of its grouping values, as in
+  the HashJoinOperator). Once the groups in memory have been returned, the partitions are aggregated
+  one by one in the same way (re-partitioning them if needed, up to MAX_LEVEL levels). A group is
+  never split, since all of its spilled tuples are in the same partition.
+
+  Parallel partial aggregation: if the child is a large scan of a table, the planner may call parallelize(),
+  which splits the scan into ranges of the primary key (see ScanOperator.splitIntoRanges()). Each range is
+  then scanned and aggregated by its own task on Globals.pool, into its own GroupHashTable and Accumulators,
+  and the partial groups are merged at the end (Accumulator.merge()). This is only done if the groups are
+  expected to fit in memory, since the partial aggregates do not spill.
+***************************************************************************************************/
+public class HashAggregateOperator extends Operator {
+    Operator child;
+    Vector<TupleAttribute> group_by_attributes;
+    Vector<TupleAttribute> select_attributes;
+    Vector<Aggregate> aggregates;
+
+    /* The output columns (TupleAttributes and Aggregates), and for the attributes, their position in the GROUP BY. */
+    Vector<Object> output_columns;
+    int[] group_positions;
+
+    /* The groups of the current input. The input is the child if currentPartition is null, and a
+       spilled partition otherwise. */
+    GroupHashTable groups;
+    Accumulator[] accumulators;
+    int nextGroup;
+    boolean emptyGroup;
+
+    boolean childDone;
+    SpillFile currentPartition;
+    int currentLevel;
+    Vector<SpillFile> pendingPartitions = new Vector<SpillFile>();
+    Vector<Integer> pendingLevels = new Vector<Integer>();
+
+    /* For parallel partial aggregation: the ranges of the child scan, or null. */
+    static final double PARALLEL_MIN_ROWS = 10000;
+    static final int RANGES_PER_THREAD = 4;
+    Vector<ScanOperator> ranges = null;
+
+    HashAggregateOperator(Operator child, Vector<TupleAttribute> group_by_attributes, Vector<TupleAttribute> select_attributes, Vector<Aggregate> aggregates) {
+        this.child = child;
+        this.group_by_attributes = group_by_attributes;
+        this.select_attributes = select_attributes;
+        this.aggregates = aggregates;
+
+        output_columns = outputColumns(select_attributes, aggregates);
+        group_positions = new int[output_columns.size()];
+        for(int i = 0; i < output_columns.size(); i++) {
+            if(output_columns.get(i) instanceof TupleAttribute)
+                group_positions[i] = SortOperator.positionIn((TupleAttribute) output_columns.get(i), group_by_attributes);
+        }
+    }
+
+    /* The select list: the attributes, with the aggregates inserted at their positions. */
+    static Vector<Object> outputColumns(Vector<TupleAttribute> select_attributes, Vector<Aggregate> aggregates) {
+        Vector<Object> columns = new Vector<Object>(select_attributes);
+        if(aggregates != null) {
+            for(Aggregate a : aggregates)
+                columns.add(Math.min(a.select_position, columns.size()), a);
+        }
+        return columns;
+    }
+
+    /* Position of the attribute in the output, or -1 if it is not there (used for sorting the output). */
+    int outputPosition(TupleAttribute ta) {
+        for(int i = 0; i < output_columns.size(); i++)
+            if(output_columns.get(i) instanceof TupleAttribute && sameAttribute(ta, (TupleAttribute) output_columns.get(i)))
+                return i;
+        return -1;
+    }
+
+    /* Pretty print. */
+    void print(int num_tabs) {
+        for(int i = 0; i < num_tabs; i++)
+            System.out.print("	");
+        System.out.println("Hash Aggregate operator: " + output_columns + " grouping by " + group_by_attributes 
+                + (ranges == null ? "" : " in parallel over " + ranges.size() + " key ranges") + estimates());
+        child.print(num_tabs+1);
+    }
+
+    /* There can't be more groups than combinations of the distinct values of the grouping attributes. */
+    void estimate() {
+        double combinations = 1;
+        for(TupleAttribute ta : group_by_attributes)
+            combinations *= JoinOperator.distinctValues(child, ta);
+
+        estimated_rows = group_by_attributes.size() == 0 ? 1 : Math.max(1, Math.min(child.estimated_rows, combinations));
+        estimated_width = 32 + 24 * output_columns.size();
+        estimated_cost = child.estimated_cost + child.estimated_rows * HASH_PROBE_COST + estimated_rows * HASH_BUILD_COST;
+        if(estimated_rows * estimated_width > Globals.memoryBudget)
+            estimated_cost += SPILL_COST * child.estimated_rows;
+
+        /* The ranges are scanned and aggregated in parallel, and then every thread's groups are merged. */
+        if(ranges != null) {
+            int threads = Math.min(Globals.parallelism, ranges.size());
+            estimated_cost = (child.estimated_cost + child.estimated_rows * HASH_PROBE_COST) / threads 
+                + ranges.size() * estimated_rows * HASH_BUILD_COST;
+        }
+    }
+
+    /* Use parallel partial aggregation, if the child is a large enough scan that we can split into ranges, and 
+       the groups fit in memory. Assumes estimate() has been called. */
+    boolean parallelize() {
+        if(Globals.parallelism < 2 || ! (child instanceof ScanOperator) || child.estimated_rows < PARALLEL_MIN_ROWS 
+                || estimated_rows * estimated_width > Globals.memoryBudget) 
+            return false;
+
+        ranges = ((ScanOperator) child).splitIntoRanges(Globals.parallelism * RANGES_PER_THREAD);
+        if(ranges == null) 
+            return false;
+        estimate();
+        return true;
+    }
+
+    Accumulator[] newAccumulators() {
+        Accumulator[] accs = new Accumulator[aggregates.size()];
+        for(int i = 0; i < accs.length; i++)
+            accs[i] = Accumulator.create(aggregates.get(i));
+        return accs;
+    }
+
+    void init() {
+        /* In parallel mode, the range scans are opened by the tasks. */
+        if(ranges == null)
+            child.init();
+
+        childDone = false;
+        currentPartition = null;
+        groups = null;
+        nextGroup = 0;
+        emptyGroup = false;
+    }
+
+    Tuple get_next() {
+        while(groups == null || nextGroup == groups.size()) {
+            if(emptyGroup) {
+                emptyGroup = false;
+                return emptyResult();
+            }
+            if(! aggregateNextInput())
+                return null;
+        }
+        return result(nextGroup++);
+    }
+
+    /* Aggregate the next input (the child, then the spilled partitions), spilling the tuples of new groups
+       once the groups use up the memory budget. Returns false if there is no input left. */
+    boolean aggregateNextInput() {
+        if(currentPartition != null) {
+            currentPartition.delete();
+            currentPartition = null;
+        }
+
+        if(! childDone) {
+            childDone = true;
+            currentLevel = 0;
+        } else if(! pendingPartitions.isEmpty()) {
+            currentPartition = pendingPartitions.remove(0);
+            currentLevel = pendingLevels.remove(0).intValue();
+            currentPartition.startReading();
+        } else {
+            return false;
+        }
+
+        groups = GroupHashTable.create(group_by_attributes);
+        accumulators = newAccumulators();
+        int bytesPerGroup = 0;
+        for(Accumulator acc : accumulators)
+            bytesPerGroup += acc.bytesPerGroup();
+        int capacity = 0;
+        nextGroup = 0;
+
+        if(ranges != null) {
+            aggregateInParallel();
+            if(groups.size() == 0 && group_by_attributes.size() == 0)
+                emptyGroup = true;
+            return true;
+        }
+
+        SpillFile[] spilledPartitions = null;
+        Tuple t;
+        while((t = (currentPartition == null) ? child.get_next() : currentPartition.read()) != null) {
+            int before = groups.size();
+            int g = groups.findGroup(t, spilledPartitions == null);
+
+            if(g == -1) {
+                spilledPartitions[HashJoinOperator.partitionOf(groups.groupKey(t), currentLevel)].write(t);
+                continue;
+            }
+
+            boolean first = groups.size() != before;
+            if(first && g == capacity) {
+                capacity = Math.max(2 * capacity, Accumulator.INITIAL_CAPACITY);
+                for(Accumulator acc : accumulators)
+                    acc.ensureCapacity(capacity);
+            }
+            for(Accumulator acc : accumulators)
+                acc.add(g, first, t);
+
+            if(first && groups.estimatedSize() + (long) groups.size() * bytesPerGroup > Globals.memoryBudget && currentLevel < HashJoinOperator.MAX_LEVEL)
+                spilledPartitions = HashJoinOperator.newPartitions();
+        }
+
+        if(spilledPartitions != null) {
+            for(SpillFile sf : spilledPartitions) {
+                if(sf.size() > 0) {
+                    pendingPartitions.add(sf);
+                    pendingLevels.add(currentLevel + 1);
+                } else {
+                    sf.delete();
+                }
+            }
+        }
+
+        /* Without GROUP BY, an empty input still produces one row (e.g., COUNT(*) = 0). */
+        if(currentPartition == null && groups.size() == 0 && group_by_attributes.size() == 0)
+            emptyGroup = true;
+        return true;
+    }
+
+    /* Run a PartialAggregation for every range, and merge their groups into ours (in the order of the ranges). */
+    void aggregateInParallel() {
+        Vector<PartialAggregation> tasks = new Vector<PartialAggregation>();
+        for(ScanOperator so : ranges) {
+            PartialAggregation pa = new PartialAggregation(this, so);
+            Globals.pool.execute(pa);
+            tasks.add(pa);
+        }
+
+        int capacity = 0;
+        for(PartialAggregation pa : tasks) {
+            pa.join();
+
+            for(int pg = 0; pg < pa.groups.size(); pg++) {
+                int before = groups.size();
+                int g = groups.findGroup(pa.groups, pg);
+
+                boolean first = groups.size() != before;
+                if(first && g == capacity) {
+                    capacity = Math.max(2 * capacity, Accumulator.INITIAL_CAPACITY);
+                    for(Accumulator acc : accumulators)
+                        acc.ensureCapacity(capacity);
+                }
+                for(int i = 0; i < accumulators.length; i++)
+                    accumulators[i].merge(g, first, pa.accumulators[i], pg);
+            }
+        }
+    }
+
+    IntermediateFlattenedTuple result(int g) {
+        IntermediateFlattenedTuple out = new IntermediateFlattenedTuple(output_columns.size());
+        int a = 0;
+        for(int i = 0; i < output_columns.size(); i++) {
+            if(output_columns.get(i) instanceof Aggregate)
+                out.setValue(i, accumulators[a++].result(g));
+            else
+                out.setValue(i, groups.groupValue(g, group_positions[i]));
+        }
+        return out;
+    }
+
+    IntermediateFlattenedTuple emptyResult() {
+        IntermediateFlattenedTuple out = new IntermediateFlattenedTuple(output_columns.size());
+        int a = 0;
+        for(int i = 0; i < output_columns.size(); i++) {
+            if(output_columns.get(i) instanceof Aggregate)
+                out.setValue(i, accumulators[a++].emptyResult());
+        }
+        return out;
+    }
+
+    void close() {
+        if(ranges == null)
+            child.close();
+
+        if(currentPartition != null)
+            currentPartition.delete();
+        for(SpillFile sf : pendingPartitions)
+            sf.delete();
+        currentPartition = null;
+        pendingPartitions.clear();
+        pendingLevels.clear();
+        groups = null;
+        accumulators = null;
+    }
+}
+
+/* Scans one range of the child of a HashAggregateOperator, and aggregates it into its own groups. */
+class PartialAggregation extends RecursiveAction {
+    HashAggregateOperator op;
+    ScanOperator range;
+
+    GroupHashTable groups;
+    Accumulator[] accumulators;
+
+    PartialAggregation(HashAggregateOperator op, ScanOperator range) {
+        this.op = op;
+        this.range = range;
+    }
+
+    protected void compute() {
+        groups = GroupHashTable.create(op.group_by_attributes);
+        accumulators = op.newAccumulators();
+        int capacity = 0;
+
+        range.init();
+        Tuple t;
+        while((t = range.get_next()) != null) {
+            int before = groups.size();
+            int g = groups.findGroup(t, true);
+
+            boolean first = groups.size() != before;
+            if(first && g == capacity) {
+                capacity = Math.max(2 * capacity, Accumulator.INITIAL_CAPACITY);
+                for(Accumulator acc : accumulators)
+                    acc.ensureCapacity(capacity);
+            }
+            for(Accumulator acc : accumulators)
+                acc.add(g, first, t);
+        }
+        range.close();
+    }
+}
@@ -13,19 +13,98 @@ import java.io.*;
 import java.util.Vector;
 import java.util.Hashtable;
 
+/****************************************************************************************************
+  This class implements the Hash Join. 
+
+  init(): 
+    Build phase: we read all the tuples from the right child, and insert them into a hash table
+    keyed on the right attribute of the join predicate. The hash table is specialized on the 
+    type of that attribute (see JoinHashTable.java).
+
+  get_next():
+    Probe phase: we get a left tuple, look up its join attribute in the hash table, and return 
+    the matches one by one. Once the matches run out, we get the next left tuple.
+
+  If the right relation does not fit in Globals.memoryBudget, we switch to a Grace hash join:
+    1. The tuples already in the hash table and the rest of the right relation are hash-partitioned
+       into NUM_PARTITIONS SpillFiles. The left relation is then partitioned the same way.
+    2. Each pair of partitions is joined in turn: the right partition is loaded into the hash 
+       table, and the left partition is used as the probe input.
+    3. If a right partition still does not fit, the pair is re-partitioned (with a different hash 
+       function) and the sub-partitions are joined recursively. We stop re-partitioning after 
+       MAX_LEVEL levels, since at that point the partition is probably a single heavily 
+       duplicated key, and further splitting would not help.
+******************************************************************************************************/
+
 public class HashJoinOperator extends JoinOperator {
+    static final int NUM_PARTITIONS = 16;
+    static final int MAX_LEVEL = 4;
+
     /* HashJoinOperator can typically only be used if the Join Predicate is an equality. 
        For us, since we only deal with equality predicates, this is not an issue.
-       We should also worry about whether the "right" relation will fit in memory, but
-       we will ignore that for now.
-
-       NOTE: SET THIS TO RETURN "TRUE" AFTER YOU IMPLEMENT THE OPERATOR. */
+       If the "right" relation does not fit in memory we fall back to partitioning (see above). */
     static boolean canBeUsed(Operator left, Operator right, Predicate jp) {
-        return false;
+        return true;
+    }
+
+    /* A pair of partitions waiting to be joined. */
+    static class PartitionPair {
+        SpillFile left;
+        SpillFile right;
+        int level;
+
+        PartitionPair(SpillFile left, SpillFile right, int level) {
+            this.left = left;
+            this.right = right;
+            this.level = level;
+        }
     }
 
+    /* The build side. */
+    JoinHashTable table = null;
+    long tableBytes = 0;
+
+    /* State for the partitioned (Grace) mode. */
+    boolean partitioned = false;
+    Vector<PartitionPair> pendingPartitions = null;
+    SpillFile currentLeftPartition = null;
+
     void init() {
-        assert false : "Hash Join Not Implemented Yet";
+        super.init();
+
+        partitioned = false;
+        pendingPartitions = new Vector<PartitionPair>();
+        currentLeftPartition = null;
+        newTable();
+
+        SpillFile[] rightPartitions = null;
+
+        Tuple t = null;
+        while((t = rightOp.get_next()) != null) {
+            if(! partitioned) {
+                addToTable(t);
+
+                if(tableBytes > Globals.memoryBudget) {
+                    /* Out of memory: move to the partitioned mode. */
+                    partitioned = true;
+                    rightPartitions = newPartitions();
+                    spillTable(rightPartitions, 0);
+                }
+            } else {
+                rightPartitions[partitionOf(buildKey(t), 0)].write(t);
+            }
+        }
+
+        if(partitioned) {
+            SpillFile[] leftPartitions = newPartitions();
+            while((t = leftOp.get_next()) != null) 
+                leftPartitions[partitionOf(probeKey(t), 0)].write(t);
+
+            addPartitionPairs(leftPartitions, rightPartitions, 1);
+        }
+
+        leftTuple = null;
+        currentEntry = -1;
     }
 
     HashJoinOperator(Operator l, Operator r, Predicate jp) {
@@ -36,17 +115,221 @@ public class HashJoinOperator extends JoinOperator {
     void print(int num_tabs) {
         for(int i = 0; i < num_tabs; i++) 
             System.out.print("	");
-        System.out.println("Hash Join operator with predicate " + jp);
+        System.out.println("Hash Join operator with predicate " + jp + estimates());
         leftOp.print(num_tabs+1);
         rightOp.print(num_tabs+1);
     }
 
+    /* If the right input does not fit in memory, both inputs are written out and read back (at least) once. */
+    void estimate() {
+        estimateJoinOutput();
+        estimated_cost = leftOp.estimated_cost + rightOp.estimated_cost
+                         + rightOp.estimated_rows * HASH_BUILD_COST + leftOp.estimated_rows * HASH_PROBE_COST + estimated_rows;
+        if(rightOp.estimated_rows * rightOp.estimated_width > Globals.memoryBudget) 
+            estimated_cost += SPILL_COST * (leftOp.estimated_rows + rightOp.estimated_rows);
+    }
+
+    Object buildKey(Tuple t) {
+        return right_key.evaluate(t);
+    }
+
+    Object probeKey(Tuple t) {
+        return left_key.evaluate(t);
+    }
+
+    void newTable() {
+        table = JoinHashTable.create(((TupleAttribute) jp.rhs()).getAttributeType());
+        tableBytes = 0;
+    }
+
+    void addToTable(Tuple t) {
+        table.insert(jp.rhs(), t);
+        tableBytes += t.estimatedSize() + 16;
+    }
+
+    /* Which partition does a key go to at a given level of partitioning ? 
+       Every level uses a different hash function, so that re-partitioning actually splits the keys. */
+    static int partitionOf(Object key, int level) {
+        int h = JoinHashTable.mix(key.hashCode() + level * 0x61C88647);
+        return (h >>> 1) % NUM_PARTITIONS;
+    }
+
+    static SpillFile[] newPartitions() {
+        SpillFile[] partitions = new SpillFile[NUM_PARTITIONS];
+        for(int i = 0; i < NUM_PARTITIONS; i++) 
+            partitions[i] = new SpillFile();
+        return partitions;
+    }
+
+    /* Write out everything in the hash table to the partitions, and drop the table. */
+    void spillTable(SpillFile[] partitions, int level) {
+        for(int i = 0; i < table.size(); i++) {
+            Tuple t = table.tuple(i);
+            partitions[partitionOf(buildKey(t), level)].write(t);
+        }
+        table = null;
+        tableBytes = 0;
+    }
+
+    /* Queue up the partition pairs that need to be joined. If either side is empty, the pair 
+       cannot produce any output, and we simply drop it. */
+    void addPartitionPairs(SpillFile[] leftPartitions, SpillFile[] rightPartitions, int level) {
+        for(int i = 0; i < NUM_PARTITIONS; i++) {
+            if(leftPartitions[i].size() == 0 || rightPartitions[i].size() == 0) {
+                leftPartitions[i].delete();
+                rightPartitions[i].delete();
+            } else {
+                pendingPartitions.add(new PartitionPair(leftPartitions[i], rightPartitions[i], level));
+            }
+        }
+    }
+
+    /* Load the right side of the next pending partition pair into the hash table, re-partitioning
+       if it is still too large. Returns false if there are no more partitions left. */
+    boolean loadNextPartition() {
+        while(pendingPartitions.size() != 0) {
+            PartitionPair pair = pendingPartitions.remove(pendingPartitions.size() - 1);
+
+            newTable();
+            pair.right.startReading();
+
+            boolean overflow = false;
+            Tuple t = null;
+            while((t = pair.right.read()) != null) {
+                addToTable(t);
+                if(tableBytes > Globals.memoryBudget && pair.level < MAX_LEVEL) {
+                    overflow = true;
+                    break;
+                }
+            }
+
+            if(overflow) {
+                SpillFile[] rightPartitions = newPartitions();
+                spillTable(rightPartitions, pair.level);
+                while((t = pair.right.read()) != null) 
+                    rightPartitions[partitionOf(buildKey(t), pair.level)].write(t);
+                pair.right.delete();
+
+                SpillFile[] leftPartitions = newPartitions();
+                pair.left.startReading();
+                while((t = pair.left.read()) != null) 
+                    leftPartitions[partitionOf(probeKey(t), pair.level)].write(t);
+                pair.left.delete();
+
+                addPartitionPairs(leftPartitions, rightPartitions, pair.level + 1);
+                continue;
+            }
+
+            pair.right.delete();
+            currentLeftPartition = pair.left;
+            currentLeftPartition.startReading();
+            return true;
+        }
+        return false;
+    }
+
+    /* The next tuple to probe the hash table with: directly from the left child, or from 
+       the current left partition if we are in the partitioned mode. */
+    Tuple nextProbeTuple() {
+        if(! partitioned) 
+            return leftOp.get_next();
+
+        while(true) {
+            if(currentLeftPartition != null) {
+                Tuple t = currentLeftPartition.read();
+                if(t != null) 
+                    return t;
+                currentLeftPartition.delete();
+                currentLeftPartition = null;
+            }
+
+            if(! loadNextPartition())
+                return null;
+        }
+    }
+
+    /* The current left tuple and the next entry in the hash table that matches it. */
+    Tuple leftTuple = null;
+    int currentEntry = -1;
+
     Tuple get_next() {
-        assert false : "Hash Join Not Implemented Yet";
-        return null;
+        while(true) {
+            if(currentEntry != -1) {
+                Tuple rightTuple = table.tuple(currentEntry);
+                currentEntry = table.next(currentEntry);
+                return combine(leftTuple, rightTuple);
+            }
+
+            leftTuple = nextProbeTuple();
+            if(leftTuple == null) 
+                return null;
+
+            currentEntry = table.first(jp.lhs(), leftTuple);
+        }
+    }
+
+    /* Batch-at-a-time probing: we probe with a batch of the left child at a time, reading the join attribute 
+       from the batch (a column, for a batch from a scan), and only build the left tuples that have matches. 
+       In the partitioned mode, the probe tuples come from the partitions, so we fall back to get_next(). */
+    TupleBatch probeBatch = null;
+    int probePosition = 0;
+
+    boolean next_batch(TupleBatch batch) {
+        if(partitioned) 
+            return nextBatchOfRows(batch);
+
+        if(probeBatch == null) {
+            probeBatch = new TupleBatch();
+            probePosition = 0;
+        }
+
+        TupleAttribute probeAttribute = (TupleAttribute) jp.lhs();
+        boolean intKeys = (probeAttribute.getAttributeType() == Globals.INTEGER);
+
+        batch.reset();
+        while(! batch.isFull()) {
+            if(currentEntry != -1) {
+                batch.add(combine(leftTuple, table.tuple(currentEntry)));
+                currentEntry = table.next(currentEntry);
+                continue;
+            }
+
+            if(probePosition == probeBatch.count) {
+                probePosition = 0;
+                if(! leftOp.next_batch(probeBatch)) 
+                    break;
+                continue;
+            }
+
+            int row = probeBatch.selection[probePosition++];
+            if(intKeys) 
+                currentEntry = ((IntJoinHashTable) table).firstInt(probeBatch.getInt(probeAttribute, row));
+            else 
+                currentEntry = table.first(probeBatch.getString(probeAttribute, row));
+            if(currentEntry != -1) 
+                leftTuple = probeBatch.getTuple(row);
+        }
+        return batch.size > 0;
     }
 
     void close() {
-        assert false : "Hash Join Not Implemented Yet";
+        super.close();
+        probeBatch = null;
+
+        /* Get rid of any partitions we did not get to. */
+        if(currentLeftPartition != null) 
+            currentLeftPartition.delete();
+        currentLeftPartition = null;
+        if(pendingPartitions != null) {
+            for(PartitionPair pair : pendingPartitions) {
+                pair.left.delete();
+                pair.right.delete();
+            }
+            pendingPartitions = null;
+        }
+
+        /* Let the garbage collector have the build side. */
+        table = null;
+        leftTuple = null;
     }
 }
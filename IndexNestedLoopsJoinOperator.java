@@ -0,0 +1,71 @@
+import java.util.Vector;
+
+/****************************************************************************************************
+  This class implements the Index Nested Loops Join.
+
+  It can be used when the right child is a ScanOperator that supports lookups on the right attribute
+  of the join predicate: either the attribute is the primary key of the table, or the right child is
+  an IndexScanOperator on that attribute. 
+  Instead of rescanning the right table for every left tuple (like the NestedLoopsJoinOperator), 
+  we do a B-tree lookup with the join value of the left tuple, and return the matches one by one.
+******************************************************************************************************/
+
+public class IndexNestedLoopsJoinOperator extends JoinOperator {
+    static boolean canBeUsed(Operator left, Operator right, Predicate jp) {
+        return (right instanceof ScanOperator) && ((ScanOperator) right).supportsLookupOn((TupleAttribute) jp.rhs());
+    }
+
+    IndexNestedLoopsJoinOperator(Operator l, Operator r, Predicate jp) {
+        super(l, r, jp);
+    }
+
+    /* Pretty print for the query plan. */
+    void print(int num_tabs) {
+        for(int i = 0; i < num_tabs; i++) 
+            System.out.print("	");
+        System.out.println("Index Nested Loops Join operator with predicate " + jp + estimates());
+        leftOp.print(num_tabs+1);
+        rightOp.print(num_tabs+1);
+    }
+
+    /* One lookup into the right table for every left tuple. */
+    void estimate() {
+        ScanOperator rightScan = (ScanOperator) rightOp;
+        TupleAttribute ta = (TupleAttribute) jp.rhs();
+
+        estimateJoinOutput();
+        estimated_rows = leftOp.estimated_rows * rightScan.rowsPerLookup(ta);
+        estimated_cost = leftOp.estimated_cost + leftOp.estimated_rows * rightScan.lookupCost(ta) + estimated_rows;
+    }
+
+    /* We go through the left tuples in order, so we preserve whatever order the left child produces. But a left 
+       tuple can match several right tuples, so a unique key of the left child is no longer unique here: a list of 
+       attributes is only sorted if it is a prefix of getSortOrder() (see Operator.isSortedOn()). */
+    Vector<TupleAttribute> getSortOrder() {
+        return leftOp.getSortOrder();
+    }
+
+    boolean isSortedOn(TupleAttribute ta) {
+        return leftOp.isSortedOn(ta);
+    }
+
+    Tuple leftTuple = null;
+
+    Tuple get_next() {
+        ScanOperator rightScan = (ScanOperator) rightOp;
+
+        while(true) {
+            if(leftTuple != null) {
+                Tuple rightTuple = rightScan.nextLookupMatch();
+                if(rightTuple != null) 
+                    return combine(leftTuple, rightTuple);
+            }
+
+            leftTuple = leftOp.get_next();
+            if(leftTuple == null) 
+                return null;
+
+            rightScan.startLookup(left_key.evaluate(leftTuple));
+        }
+    }
+}
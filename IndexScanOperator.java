@@ -0,0 +1,154 @@
+import com.sleepycat.je.DatabaseEntry;
+import com.sleepycat.je.DatabaseException;
+import com.sleepycat.je.LockMode;  
+import com.sleepycat.je.OperationStatus; 
+import com.sleepycat.je.SecondaryCursor;
+import com.sleepycat.je.SecondaryDatabase;
+
+import java.util.Vector;
+
+/*****************************************************************************************************
+  Index Scan Operator implementation.
+
+  Reads the tuples of a table whose indexed attribute has a given value, through a secondary index 
+  (see IndexSchema.java), instead of scanning the whole table. 
+
+  It is used in two ways:
+    1. For a scan with an equality predicate on the indexed attribute (searchKey is the constant).
+    2. As the right child of an IndexNestedLoopsJoinOperator, where the key changes for every left
+       tuple (see startLookup()). searchKey is null until the first lookup.
+
+  Apart from the way the cursor moves (see advance()), everything is done by the ScanOperator; in 
+  particular all the predicates are still checked on every tuple.
+***************************************************************************************************/
+public class IndexScanOperator extends ScanOperator {
+    IndexSchema index;
+    Object searchKey;
+
+    SecondaryDatabase mySecondaryDatabase = null;
+    SecondaryCursor mySecondaryCursor = null;
+
+    IndexScanOperator(BaseRelationSchema rs, Vector<Predicate> predicates_vector, IndexSchema index, Object searchKey) 
+    {
+        super(rs, predicates_vector);
+        this.index = index;
+        this.searchKey = searchKey;
+    }
+
+    /* Pretty print. */
+    void print(int num_tabs) {
+        for(; num_tabs > 0; num_tabs--) 
+            System.out.print("	");
+        System.out.print("Index scan operator on " + rs.getName() + " using index " + index);
+        if(searchKey != null) 
+            System.out.print(" = " + searchKey);
+
+        if(predicates.size() != 0) {
+            System.out.print(" with predicates: ");
+            for(Predicate p : predicates)
+                System.out.print((p == predicates.get(0) ? "": ", ") + p);
+        }
+        System.out.println(estimates());
+    }
+
+    /* Every tuple found in the index has to be fetched from the table. */
+    void estimate() {
+        TableStatistics ts = Globals.getTableStatistics(rs);
+        double matches = (double) ts.getRowCount() / ts.getDistinctCount(index.getAttributePosition());
+
+        estimated_rows = ts.getRowCount() * selectivity(predicates);
+        estimated_width = 32 + 24 * rs.getNumberOfAttributes() + 2 * ts.getAverageRowBytes();
+        if(searchKey != null) 
+            estimated_cost = LOOKUP_COST + matches * RANDOM_FETCH_COST;
+        else
+            estimated_cost = ts.getRowCount();
+    }
+
+    double lookupCost(TupleAttribute ta) {
+        TableStatistics ts = Globals.getTableStatistics(rs);
+        return LOOKUP_COST + RANDOM_FETCH_COST * ts.getRowCount() / ts.getDistinctCount(index.getAttributePosition());
+    }
+
+    boolean isIndexedAttribute(TupleAttribute ta) {
+        return ta.getRelationSchema() == rs && ta.position_of_attribute_in_table == index.getAttributePosition();
+    }
+
+    /* All the tuples have the same value of the indexed attribute, and BerkeleyDB keeps the 
+       duplicates sorted by the primary key. */
+    boolean isSortedOn(TupleAttribute ta) {
+        return isIndexedAttribute(ta) || super.isSortedOn(ta);
+    }
+
+    boolean supportsLookupOn(TupleAttribute ta) {
+        return isIndexedAttribute(ta);
+    }
+
+    ScanOperator withIndexOn(TupleAttribute ta) {
+        return isIndexedAttribute(ta) ? this : null;
+    }
+
+    void startLookup(Object key) {
+        searchKey = key;
+        positioned = false;
+        finished = false;
+    }
+
+    Tuple nextLookupMatch() {
+        return get_next();
+    }
+
+    void init() {
+        /* Open the relation, and the index on it. */
+        myDatabase = Globals.openDatabase(rs.getName());
+        mySecondaryDatabase = Globals.openSecondaryDatabase(index, myDatabase);
+
+        /* Open the cursor. */
+        open_cursor();
+    }
+
+    void open_cursor() {
+        try {
+            if(mySecondaryCursor != null) 
+                mySecondaryCursor.close();
+
+            mySecondaryCursor = mySecondaryDatabase.openSecondaryCursor(null, null);
+            positioned = false;
+            finished = false;
+        } catch (Exception dbe) {
+            // Exception handling goes here
+            dbe.printStackTrace();
+            System.out.println("=========> Error during initialization of the index scan operator");
+            System.exit(1);
+        }
+    }
+
+    /* Position on the first duplicate of the search key, and then walk the duplicates. */
+    OperationStatus advance(DatabaseEntry foundKey, DatabaseEntry foundData) throws DatabaseException {
+        if(finished || searchKey == null) 
+            return OperationStatus.NOTFOUND;
+
+        if(! positioned) {
+            positioned = true;
+            foundKey.setData(Globals.simpleObjectToEntry(searchKey).getData());
+            return mySecondaryCursor.getSearchKey(foundKey, foundData, LockMode.DEFAULT);
+        }
+
+        return mySecondaryCursor.getNextDup(foundKey, foundData, LockMode.DEFAULT);
+    }
+
+    void close() {
+        try {
+            mySecondaryCursor.close();
+            mySecondaryCursor = null;
+        } catch (Exception dbe) {
+            // Exception handling goes here
+            dbe.printStackTrace();
+            System.out.println("=========> Error during closing of the index scan operator");
+            System.exit(1);
+        }
+
+        /* The index has to be closed before the relation. */
+        Globals.closeDatabase(mySecondaryDatabase);
+        Globals.closeDatabase(myDatabase);
+    }
+}
@@ -0,0 +1,94 @@
+import com.sleepycat.je.DatabaseEntry;
+import com.sleepycat.je.SecondaryDatabase;
+import com.sleepycat.je.SecondaryKeyCreator;
+import com.sleepycat.bind.tuple.TupleBinding;
+import com.sleepycat.bind.tuple.TupleOutput;
+import com.sleepycat.bind.tuple.TupleInput;
+
+/*****************************************************************************************************
+  IndexSchema describes a secondary index, created with:
+        CREATE INDEX name ON table(attribute);
+
+  The index is a BerkeleyDB SecondaryDatabase (with sorted duplicates) associated with the table's 
+  Database. Its key is the value of the attribute, encoded the same way as the primary keys 
+  (Globals.simpleObjectToEntry()), and BerkeleyDB maintains it for us on every put to the table, 
+  as long as the SecondaryDatabase is open at that time (see Globals.insertTuple()).
+
+  Like the RelationSchemas, the IndexSchemas are stored in the "metadata" Database, under the key 
+  "index:" + name, and are kept in memory in Globals.
+***************************************************************************************************/
+class IndexSchema {
+    static final String METADATA_KEY_PREFIX = "index:";
+
+    String indexName;
+    String relationName;
+    int attributePosition;
+
+    IndexSchema(String indexName, String relationName, int attributePosition) {
+        this.indexName = indexName;
+        this.relationName = relationName;
+        this.attributePosition = attributePosition;
+    }
+
+    String getName() {
+        return indexName;
+    }
+
+    /* The name of the SecondaryDatabase. Since ":" cannot appear in a table name, this cannot 
+       clash with the name of a table. */
+    String getDatabaseName() {
+        return METADATA_KEY_PREFIX + indexName;
+    }
+
+    BaseRelationSchema getRelationSchema() {
+        return Globals.getRelationSchema(relationName);
+    }
+
+    int getAttributePosition() {
+        return attributePosition;
+    }
+
+    public String toString() {
+        return indexName + " on " + getRelationSchema().attributeNames[attributePosition];
+    }
+}
+
+/* Extracts the secondary key (the value of the indexed attribute) from a record of the table. */
+class RelationSpecificKeyCreator implements SecondaryKeyCreator {
+    IndexSchema index;
+
+    RelationSpecificKeyCreator(IndexSchema index) {
+        this.index = index;
+    }
+
+    public boolean createSecondaryKey(SecondaryDatabase secondary, DatabaseEntry key, DatabaseEntry data, DatabaseEntry result) {
+        BaseTuple bt = (BaseTuple) index.getRelationSchema().getCustomBinding().entryToObject(data);
+        result.setData(Globals.simpleObjectToEntry(bt.getAttributeValueByPosition(index.getAttributePosition())).getData());
+        return true;
+    }
+}
+
+/**********************************************************************************************
+  Serialization of the IndexSchemas for the "metadata" Database. 
+  See RelationSchemaTupleBinding.
+***********************************************************************************************/
+class IndexSchemaTupleBinding extends TupleBinding {
+    IndexSchemaTupleBinding() {
+    }
+
+    public void objectToEntry(Object object, TupleOutput to) {
+        IndexSchema is = (IndexSchema) object;
+
+        to.writeString(is.indexName);
+        to.writeString(is.relationName);
+        to.writeInt(is.attributePosition);
+    }
+
+    public Object entryToObject(TupleInput ti) {
+        String indexName = ti.readString();
+        String relationName = ti.readString();
+        int attributePosition = ti.readInt();
+
+        return new IndexSchema(indexName, relationName, attributePosition);
+    }
+}
@@ -0,0 +1,214 @@
+/*****************************************************************************************************
+  Hash tables used as the build side of the HashJoinOperator.
+
+  All build tuples are appended to a flat array of entries. Tuples that share a join key are chained
+  together through entryNext, so a probe returns the index of the first matching entry and the
+  caller walks the chain with next() until it sees -1.
+
+  The bucket array itself is specialized on the type of the join key:
+    IntJoinHashTable:    open addressing on primitive ints (no Integer boxing on insert or probe).
+    StringJoinHashTable: open addressing on Strings, with the hash codes cached next to the keys.
+***************************************************************************************************/
+abstract class JoinHashTable {
+    static final int INITIAL_CAPACITY = 64;
+
+    /* The entries. entryNext[i] is the index of the next entry with the same key, or -1. */
+    Tuple[] entryTuples = new Tuple[INITIAL_CAPACITY];
+    int[] entryNext = new int[INITIAL_CAPACITY];
+    int numEntries = 0;
+
+    /* Number of distinct keys, used to decide when to grow the bucket array. */
+    int numKeys = 0;
+
+    /* Create the table appropriate for the type of the join attribute. */
+    static JoinHashTable create(int attributeType) {
+        if(attributeType == Globals.INTEGER) {
+            return new IntJoinHashTable();
+        } else {
+            assert attributeType == Globals.STRING;
+            return new StringJoinHashTable();
+        }
+    }
+
+    abstract void insert(Object key, Tuple t);
+
+    /* Returns the first entry whose key matches, or -1. */
+    abstract int first(Object key);
+
+    /* Insert and look up with the key given by evaluating a variable on a tuple. The IntJoinHashTable 
+       evaluates it without boxing. */
+    void insert(Variable key, Tuple t) {
+        insert(key.evaluate(t), t);
+    }
+
+    int first(Variable key, Tuple t) {
+        return first(key.evaluate(t));
+    }
+
+    int next(int entry) {
+        return entryNext[entry];
+    }
+
+    Tuple tuple(int entry) {
+        return entryTuples[entry];
+    }
+
+    int size() {
+        return numEntries;
+    }
+
+    /* Append a new entry that points to the previous head of its chain. */
+    int addEntry(Tuple t, int chainHead) {
+        if(numEntries == entryTuples.length) {
+            Tuple[] newTuples = new Tuple[numEntries * 2];
+            int[] newNext = new int[numEntries * 2];
+            System.arraycopy(entryTuples, 0, newTuples, 0, numEntries);
+            System.arraycopy(entryNext, 0, newNext, 0, numEntries);
+            entryTuples = newTuples;
+            entryNext = newNext;
+        }
+        entryTuples[numEntries] = t;
+        entryNext[numEntries] = chainHead;
+        return numEntries++;
+    }
+
+    /* Spread the bits of a hash code so that linear probing behaves on clustered keys. */
+    static int mix(int h) {
+        h *= 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /* Which of n parts a key goes to, when the keys are split among several tables (see ExchangeOperator and
+       MorselDrivenOperator). This takes the high bits of a different hash function than mix(), since the
+       tables index their slots with the low bits of mix(): otherwise every table would only ever fill a
+       fraction of its slots. */
+    static int partition(int hashCode, int n) {
+        int h = hashCode * 0x85EBCA6B;
+        return (int) (((h & 0xffffffffL) * n) >>> 32);
+    }
+}
+
+class IntJoinHashTable extends JoinHashTable {
+    int[] keys = new int[INITIAL_CAPACITY];
+    int[] heads = new int[INITIAL_CAPACITY];     // head entry + 1; 0 means the bucket is empty
+    int mask = INITIAL_CAPACITY - 1;
+
+    void insert(Object key, Tuple t) {
+        insertInt(((Integer) key).intValue(), t);
+    }
+
+    void insert(Variable key, Tuple t) {
+        insertInt(key.evaluateInt(t), t);
+    }
+
+    void insertInt(int key, Tuple t) {
+        if(2 * (numKeys + 1) > keys.length)
+            grow();
+
+        int slot = mix(key) & mask;
+        while(heads[slot] != 0 && keys[slot] != key)
+            slot = (slot + 1) & mask;
+
+        if(heads[slot] == 0) {
+            keys[slot] = key;
+            numKeys++;
+        }
+        heads[slot] = addEntry(t, heads[slot] - 1) + 1;
+    }
+
+    int first(Object key) {
+        return firstInt(((Integer) key).intValue());
+    }
+
+    int first(Variable key, Tuple t) {
+        return firstInt(key.evaluateInt(t));
+    }
+
+    int firstInt(int key) {
+        int slot = mix(key) & mask;
+        while(heads[slot] != 0) {
+            if(keys[slot] == key)
+                return heads[slot] - 1;
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    void grow() {
+        int[] oldKeys = keys;
+        int[] oldHeads = heads;
+
+        keys = new int[oldKeys.length * 2];
+        heads = new int[oldKeys.length * 2];
+        mask = keys.length - 1;
+
+        for(int i = 0; i < oldKeys.length; i++) {
+            if(oldHeads[i] != 0) {
+                int slot = mix(oldKeys[i]) & mask;
+                while(heads[slot] != 0)
+                    slot = (slot + 1) & mask;
+                keys[slot] = oldKeys[i];
+                heads[slot] = oldHeads[i];
+            }
+        }
+    }
+}
+
+class StringJoinHashTable extends JoinHashTable {
+    String[] keys = new String[INITIAL_CAPACITY];
+    int[] hashes = new int[INITIAL_CAPACITY];
+    int[] heads = new int[INITIAL_CAPACITY];     // head entry + 1; 0 means the bucket is empty
+    int mask = INITIAL_CAPACITY - 1;
+
+    void insert(Object key, Tuple t) {
+        if(2 * (numKeys + 1) > keys.length)
+            grow();
+
+        String s = (String) key;
+        int h = s.hashCode();
+        int slot = mix(h) & mask;
+        while(heads[slot] != 0 && !(hashes[slot] == h && keys[slot].equals(s)))
+            slot = (slot + 1) & mask;
+
+        if(heads[slot] == 0) {
+            keys[slot] = s;
+            hashes[slot] = h;
+            numKeys++;
+        }
+        heads[slot] = addEntry(t, heads[slot] - 1) + 1;
+    }
+
+    int first(Object key) {
+        String s = (String) key;
+        int h = s.hashCode();
+        int slot = mix(h) & mask;
+        while(heads[slot] != 0) {
+            if(hashes[slot] == h && keys[slot].equals(s))
+                return heads[slot] - 1;
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    void grow() {
+        String[] oldKeys = keys;
+        int[] oldHashes = hashes;
+        int[] oldHeads = heads;
+
+        keys = new String[oldKeys.length * 2];
+        hashes = new int[oldKeys.length * 2];
+        heads = new int[oldKeys.length * 2];
+        mask = keys.length - 1;
+
+        for(int i = 0; i < oldKeys.length; i++) {
+            if(oldHeads[i] != 0) {
+                int slot = mix(oldHashes[i]) & mask;
+                while(heads[slot] != 0)
+                    slot = (slot + 1) & mask;
+                keys[slot] = oldKeys[i];
+                hashes[slot] = oldHashes[i];
+                heads[slot] = oldHeads[i];
+            }
+        }
+    }
+}
@@ -25,17 +25,51 @@ public abstract class JoinOperator extends Operator {
 
     Predicate jp;
 
+    /* The layout of the output tuples (see IntermediateTuple): the number of slots, and the slot of each input 
+       if it produces BaseTuples (-1 if it produces IntermediateTuples). */
+    int num_slots;
+    int left_slot;
+    int right_slot;
+
+    /* The join predicate and its two sides, compiled for the kinds of tuples our inputs produce (see QueryCompiler). 
+       They evaluate the same as jp, jp.lhs() and jp.rhs(). */
+    Predicate compiled_jp;
+    Variable left_key;
+    Variable right_key;
+
     JoinOperator(Operator l, Operator r, Predicate jp) {
         this.leftOp = l;
         this.rightOp = r;
         this.jp = jp;
+
+        num_slots = numSlots(l);
+        left_slot = slotOf(l);
+        right_slot = slotOf(r);
+    }
+
+    /* The inputs of the joins are scans or other joins (possibly through an ExchangeOperator, see ExchangeOperator.parallelize()). */
+    static int slotOf(Operator op) {
+        if(op instanceof ExchangeOperator)
+            return ((ExchangeOperator) op).slot;
+        return (op instanceof ScanOperator) ? ((ScanOperator) op).slot : -1;
+    }
+
+    static int numSlots(Operator op) {
+        if(op instanceof ExchangeOperator)
+            return ((ExchangeOperator) op).num_slots;
+        return (op instanceof ScanOperator) ? ((ScanOperator) op).num_slots : ((JoinOperator) op).num_slots;
+    }
+
+    /* The output tuple for a pair of matching input tuples. */
+    IntermediateTuple combine(Tuple left, Tuple right) {
+        return new IntermediateTuple(left, left_slot, right, right_slot, num_slots);
     }
 
     /* Pretty print for the query plan. */
     void print(int num_tabs) {
         for(int i = 0; i < num_tabs; i++) 
             System.out.print("	");
-        System.out.println("Join operator with predicate " + jp);
+        System.out.println("Join operator with predicate " + jp + estimates());
         leftOp.print(num_tabs+1);
         rightOp.print(num_tabs+1);
     }
@@ -52,6 +86,16 @@ public abstract class JoinOperator extends Operator {
     void init() {
         leftOp.init();
         rightOp.init();
+        compile();
+    }
+
+    void compile() {
+        int left_shape = QueryCompiler.shapeOfSlot(left_slot);
+        int right_shape = QueryCompiler.shapeOfSlot(right_slot);
+
+        compiled_jp = QueryCompiler.compileJoin(jp, left_shape, right_shape);
+        left_key = QueryCompiler.compile(jp.lhs(), left_shape);
+        right_key = QueryCompiler.compile(jp.rhs(), right_shape);
     }
 
     boolean checkPredicateSatisfied(Tuple left, Tuple right) {
@@ -63,13 +107,42 @@ public abstract class JoinOperator extends Operator {
         rightOp.close();
     }
 
-    /* We will use the HashJoinOperator if we can use it, otherwise we use the NestedLoopsJoinOperator. */
-    static JoinOperator createNewJoinOperator(Operator left, Operator right, Predicate jp) {
-        if(HashJoinOperator.canBeUsed(left, right, jp)) {
-            return new HashJoinOperator(left, right, jp);
-        } else {
-            /* Nested Loops can always be used. */
-            return new NestedLoopsJoinOperator(left, right, jp);
+    /* The number of distinct values of an attribute in the output of an operator (at most the number of tuples). */
+    static double distinctValues(Operator op, TupleAttribute ta) {
+        double d = Globals.getTableStatistics(ta.getRelationSchema()).getDistinctCount(ta.position_of_attribute_in_table);
+        return Math.max(1, Math.min(d, op.estimated_rows));
+    }
+
+    /* The usual estimate for the size of an equi-join: every value of the attribute with fewer distinct values 
+       finds its matches on the other side. Output tuples carry both input tuples. */
+    void estimateJoinOutput() {
+        double d = Math.max(distinctValues(leftOp, (TupleAttribute) jp.lhs()), distinctValues(rightOp, (TupleAttribute) jp.rhs()));
+        estimated_rows = leftOp.estimated_rows * rightOp.estimated_rows / d;
+        estimated_width = leftOp.estimated_width + rightOp.estimated_width + 32;
+    }
+
+    /* All the join operators we could use to join the two inputs with the predicate. The planner 
+       estimates the cost of each of them and picks the cheapest. 
+       The nested loops joins need the right input to be a table; if there is a secondary index on the 
+       right join attribute, we also consider probing it (by using an IndexScanOperator as the right input). */
+    static Vector<JoinOperator> candidateJoinOperators(Operator left, Operator right, Predicate jp) {
+        Vector<JoinOperator> v = new Vector<JoinOperator>();
+
+        v.add(new HashJoinOperator(left, right, jp));
+        v.add(new SortMergeJoinOperator(left, right, jp));
+
+        if(right instanceof ScanOperator) {
+            v.add(new NestedLoopsJoinOperator(left, right, jp));
+
+            ScanOperator indexed = ((ScanOperator) right).withIndexOn((TupleAttribute) jp.rhs());
+            if(indexed != null && indexed != right) {
+                indexed.estimate();
+                right = indexed;
+            }
+            if(IndexNestedLoopsJoinOperator.canBeUsed(left, right, jp)) 
+                v.add(new IndexNestedLoopsJoinOperator(left, right, jp));
         }
+
+        return v;
     }
 }
@@ -0,0 +1,85 @@
+import java.util.Vector;
+
+/*****************************************************************************************************
+  Limit Operator implementation, used for "LIMIT n OFFSET m".
+
+  This operator has exactly one child. It skips the first m tuples of the child and returns the next n.
+  As soon as it has returned n tuples, it closes the child, so that the scans and joins below it stop
+  (and release their resources) without producing the rest of their output.
+
+  init(): initialize the child
+  get_next(): return the next tuple, or null once the limit is reached
+  close(): close the child (if we have not done so already)
+***************************************************************************************************/
+public class LimitOperator extends Operator {
+    Operator child;
+    int limit;
+    int offset;
+
+    int returned = 0;
+    boolean childClosed = false;
+
+    LimitOperator(Operator child, int limit, int offset) {
+        this.child = child;
+        this.limit = limit;
+        this.offset = offset;
+    }
+
+    /* Pretty print. */
+    void print(int num_tabs) {
+        for(int i = 0; i < num_tabs; i++)
+            System.out.print("	");
+        System.out.println("Limit operator: " + limit + " tuples after skipping " + offset + estimates());
+        child.print(num_tabs+1);
+    }
+
+    /* We don't try to estimate how much of the child's work is saved by stopping early. */
+    void estimate() {
+        estimated_rows = Math.max(0, Math.min(limit, child.estimated_rows - offset));
+        estimated_width = child.estimated_width;
+        estimated_cost = child.estimated_cost;
+    }
+
+    Vector<TupleAttribute> getSortOrder() {
+        return child.getSortOrder();
+    }
+
+    boolean isSortedOn(TupleAttribute ta) {
+        return child.isSortedOn(ta);
+    }
+
+    boolean isSortedOn(Vector<TupleAttribute> attributes) {
+        return child.isSortedOn(attributes);
+    }
+
+    void init() {
+        child.init();
+        childClosed = false;
+        returned = 0;
+
+        for(int i = 0; i < offset; i++)
+            if(child.get_next() == null)
+                break;
+    }
+
+    Tuple get_next() {
+        if(returned == limit) {
+            if(! childClosed) {
+                child.close();
+                childClosed = true;
+            }
+            return null;
+        }
+
+        Tuple t = childClosed ? null : child.get_next();
+        if(t != null)
+            returned++;
+        return t;
+    }
+
+    void close() {
+        if(! childClosed)
+            child.close();
+        childClosed = true;
+    }
+}
@@ -0,0 +1,339 @@
+import java.util.Vector;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*****************************************************************************************************
+  Morsel-driven parallel execution of a fused pipeline (see PipelineOperator). This is an alternative
+  to the exchanges (see ExchangeOperator), which Query uses instead of them with -Dmorsels=true.
+
+  With exchanges, the plan is cut up front into one copy per thread. If a copy gets more than its share
+  of the work (e.g. a range of keys with more matches than the others), the other threads finish early
+  and wait for it. Here instead, the scans are cut into many small morsels: ranges of the primary key
+  of about MORSEL_ROWS rows (see ScanOperator.splitIntoRanges()). Globals.parallelism workers on
+  Globals.pool take the next morsel from a shared counter whenever they are done with the previous one,
+  and run it through the whole pipeline, so a worker that gets heavy morsels just takes fewer of them.
+
+  The plan runs as pipelines, each ending in a sink:
+    1. The build side of every hash join, into a PartitionedHashTable. If the build side is a large
+       scan, the workers scan its morsels, and every worker collects its tuples in lists of its own, one
+       per partition of the keys; once all the morsels are done, every partition is built into its own
+       JoinHashTable by one task. Other build sides are run by their operators as usual.
+    2. The probe side: the workers scan the morsels of the scan at the bottom of the pipeline, probe the
+       partitioned hash tables, and project, each with a PipelineOperator.Cursor of its own. The output
+       tuples go a batch at a time into a BatchQueue, from which get_next() and next_batch() return them.
+
+  The output comes in no particular order, so Query only uses this operator if the order doesn't
+  matter. The hash tables do not spill: we only run plans whose build sides fit in memory.
+***************************************************************************************************/
+public class MorselDrivenOperator extends PipelineOperator {
+    static final double MORSEL_ROWS = 20000;
+    static final int MAX_MORSELS = 1000;
+    static final int PARTITIONS_PER_WORKER = 4;
+    static final int QUEUE_CAPACITY = 16;
+
+    int workers = Globals.parallelism;
+
+    /* The morsels of the scan, and the next one to run. */
+    Vector<ScanOperator> morsels;
+    AtomicInteger nextMorsel = new AtomicInteger();
+
+    /* The hash tables of the joins. */
+    PartitionedHashTable[] tables;
+
+    /* The output of the workers, and the batch we are returning tuples from. */
+    BatchQueue outputQueue = null;
+    Vector<ProbeWorker> probeWorkers = new Vector<ProbeWorker>();
+    TupleBatch current = null;
+    int position = 0;
+
+    /* Can we run the plan below a projection ? It must be a chain of hash join probes over a scan (see PipelineOperator),
+       whose build sides fit in memory, and with a scan (on either side) large enough to split into morsels. */
+    static boolean canRun(Operator child) {
+        Vector<HashJoinOperator> chain = probeChain(child);
+        if(Globals.parallelism < 2 || chain == null)
+            return false;
+
+        boolean split = morselsOf(chain.get(0).leftOp) != null;
+        for(HashJoinOperator hj : chain) {
+            if(hj.rightOp.estimated_rows * hj.rightOp.estimated_width > Globals.memoryBudget)
+                return false;
+            if(morselsOf(hj.rightOp) != null)
+                split = true;
+        }
+        return split;
+    }
+
+    /* Returns a MorselDrivenOperator if we can run the plan below, a PipelineOperator (or a ProjectOperator) otherwise. */
+    static ProjectOperator create(Operator child, Vector<TupleAttribute> select_attributes, boolean distinct) {
+        if(! canRun(child))
+            return PipelineOperator.create(child, select_attributes, distinct);
+
+        MorselDrivenOperator mo = new MorselDrivenOperator(child, select_attributes, distinct, probeChain(child));
+        if(! mo.resolveSources())
+            return PipelineOperator.create(child, select_attributes, distinct);
+        return mo;
+    }
+
+    /* The morsels of an operator, if it is a scan large enough to be worth splitting. null otherwise. */
+    static Vector<ScanOperator> morselsOf(Operator op) {
+        if(! (op instanceof ScanOperator) || op.estimated_rows < ExchangeOperator.PARALLEL_MIN_ROWS)
+            return null;
+
+        int n = (int) Math.max(2 * Globals.parallelism, Math.min(MAX_MORSELS, op.estimated_rows / MORSEL_ROWS));
+        return ((ScanOperator) op).splitIntoRanges(n);
+    }
+
+    MorselDrivenOperator(Operator child, Vector<TupleAttribute> select_attributes, boolean distinct, Vector<HashJoinOperator> chain) {
+        super(child, select_attributes, distinct, chain);
+
+        /* A small scan is a single morsel. */
+        morsels = morselsOf(scan);
+        if(morsels == null) {
+            morsels = new Vector<ScanOperator>();
+            morsels.add(scan);
+        }
+    }
+
+    String description() {
+        return "Morsel-driven operator: " + workers + " workers over " + morsels.size() + " morsels of " + scan.getRelationSchema().getName()
+            + ", " + joins.length + " hash join probe(s) and projection";
+    }
+
+    /* The output is in no particular order. */
+    Vector<TupleAttribute> getSortOrder() {
+        return new Vector<TupleAttribute>();
+    }
+
+    boolean isSortedOn(TupleAttribute ta) {
+        return false;
+    }
+
+    boolean isSortedOn(Vector<TupleAttribute> attributes) {
+        return attributes.size() == 0;
+    }
+
+    /* Build all the hash tables, and start the workers on the probe side. */
+    void init() {
+        initDistinct();
+
+        tables = new PartitionedHashTable[joins.length];
+        for(int j = 0; j < joins.length; j++)
+            tables[j] = build(joins[j]);
+
+        nextMorsel.set(0);
+        outputQueue = new BatchQueue(QUEUE_CAPACITY, new AtomicInteger(workers));
+        probeWorkers.clear();
+        for(int w = 0; w < workers; w++) {
+            ProbeWorker pw = new ProbeWorker(this);
+            Globals.pool.execute(pw);
+            probeWorkers.add(pw);
+        }
+
+        current = null;
+        position = 0;
+    }
+
+    PartitionedHashTable build(HashJoinOperator hj) {
+        hj.compile();
+        PartitionedHashTable table = new PartitionedHashTable(hj.right_key, ((TupleAttribute) hj.jp.rhs()).getAttributeType(), workers * PARTITIONS_PER_WORKER, workers);
+
+        Vector<ScanOperator> buildMorsels = morselsOf(hj.rightOp);
+        if(buildMorsels == null) {
+            hj.rightOp.init();
+            Tuple t;
+            while((t = hj.rightOp.get_next()) != null)
+                table.add(0, t);
+            hj.rightOp.close();
+        } else {
+            AtomicInteger next = new AtomicInteger();
+            Vector<BuildWorker> tasks = new Vector<BuildWorker>();
+            for(int w = 0; w < workers; w++) {
+                BuildWorker bw = new BuildWorker(table, w, buildMorsels, next);
+                Globals.pool.execute(bw);
+                tasks.add(bw);
+            }
+            for(BuildWorker bw : tasks)
+                bw.join();
+        }
+
+        table.build();
+        return table;
+    }
+
+    JoinHashTable tableOf(int d, int hashCode) {
+        return tables[d].tableOf(hashCode);
+    }
+
+    /* Move to a batch of the workers with tuples left. false once the workers are done. */
+    boolean nextOutputBatch() {
+        while(current == null || position == current.count) {
+            current = outputQueue.take();
+            position = 0;
+            if(current == null)
+                return false;
+        }
+        return true;
+    }
+
+    /* ProjectOperator.get_next() (with or without DISTINCT) gets its input from here. */
+    IntermediateFlattenedTuple nextProjectedTuple() {
+        if(! nextOutputBatch())
+            return null;
+        return (IntermediateFlattenedTuple) current.tuples[current.selection[position++]];
+    }
+
+    boolean next_batch(TupleBatch batch) {
+        if(distinct)
+            return nextBatchOfRows(batch);
+
+        batch.reset();
+        while(! batch.isFull() && nextOutputBatch())
+            batch.add(current.tuples[current.selection[position++]]);
+        return batch.size > 0;
+    }
+
+    /* Stop the workers (if we are closed early, e.g. because of a LIMIT), and wait for them to close their morsels. */
+    void close() {
+        if(outputQueue != null) {
+            outputQueue.close();
+            for(ProbeWorker pw : probeWorkers)
+                pw.join();
+            outputQueue = null;
+        }
+        closeDistinct();
+        tables = null;
+        current = null;
+    }
+}
+
+/* The hash table of a join, split into partitions by key (see JoinHashTable.partition()), so that the workers can
+   fill it at the same time: every worker adds its tuples to lists of its own (one per partition), and then every
+   partition is built into a JoinHashTable by a task of its own. */
+class PartitionedHashTable {
+    Variable key;
+    int attributeType;
+    JoinHashTable[] partitions;
+
+    /* The tuples of worker w for partition p are in lists.get(w * partitions.length + p). */
+    Vector<Vector<Tuple>> lists = new Vector<Vector<Tuple>>();
+
+    PartitionedHashTable(Variable key, int attributeType, int numPartitions, int workers) {
+        this.key = key;
+        this.attributeType = attributeType;
+        partitions = new JoinHashTable[numPartitions];
+        for(int i = 0; i < numPartitions * workers; i++)
+            lists.add(new Vector<Tuple>());
+    }
+
+    void add(int worker, Tuple t) {
+        int p = JoinHashTable.partition(key.evaluate(t).hashCode(), partitions.length);
+        lists.get(worker * partitions.length + p).add(t);
+    }
+
+    /* Build the partitions in parallel. */
+    void build() {
+        Vector<PartitionBuild> tasks = new Vector<PartitionBuild>();
+        for(int p = 0; p < partitions.length; p++) {
+            PartitionBuild pb = new PartitionBuild(this, p);
+            Globals.pool.execute(pb);
+            tasks.add(pb);
+        }
+        for(PartitionBuild pb : tasks)
+            pb.join();
+        lists = null;
+    }
+
+    void build(int p) {
+        JoinHashTable table = JoinHashTable.create(attributeType);
+        for(int i = p; i < lists.size(); i += partitions.length)
+            for(Tuple t : lists.get(i))
+                table.insert(key, t);
+        partitions[p] = table;
+    }
+
+    /* The partition that holds the keys with this hash code. */
+    JoinHashTable tableOf(int hashCode) {
+        return partitions[JoinHashTable.partition(hashCode, partitions.length)];
+    }
+}
+
+class PartitionBuild extends RecursiveAction {
+    PartitionedHashTable table;
+    int partition;
+
+    PartitionBuild(PartitionedHashTable table, int partition) {
+        this.table = table;
+        this.partition = partition;
+    }
+
+    protected void compute() {
+        table.build(partition);
+    }
+}
+
+/* A worker of a build side: scans morsels, and adds their tuples to the hash table. */
+class BuildWorker extends RecursiveAction {
+    PartitionedHashTable table;
+    int worker;
+    Vector<ScanOperator> morsels;
+    AtomicInteger nextMorsel;
+
+    BuildWorker(PartitionedHashTable table, int worker, Vector<ScanOperator> morsels, AtomicInteger nextMorsel) {
+        this.table = table;
+        this.worker = worker;
+        this.morsels = morsels;
+        this.nextMorsel = nextMorsel;
+    }
+
+    protected void compute() {
+        TupleBatch batch = new TupleBatch();
+        int m;
+        while((m = nextMorsel.getAndIncrement()) < morsels.size()) {
+            ScanOperator morsel = morsels.get(m);
+            morsel.init();
+            while(morsel.next_batch(batch))
+                for(int i = 0; i < batch.count; i++)
+                    table.add(worker, batch.getTuple(batch.selection[i]));
+            morsel.close();
+        }
+    }
+}
+
+/* A worker of the probe side: runs morsels of the scan through the probes and the projection, into the output queue.
+   The consumer waits on the queue, so if anything goes wrong here, we stop right away. */
+class ProbeWorker extends RecursiveAction {
+    MorselDrivenOperator op;
+
+    ProbeWorker(MorselDrivenOperator op) {
+        this.op = op;
+    }
+
+    protected void compute() {
+        BatchQueue queue = op.outputQueue;
+        try {
+            PipelineOperator.Cursor c = new PipelineOperator.Cursor(op.joins.length);
+            TupleBatch out = new TupleBatch();
+            int m;
+            while(! queue.closed && (m = op.nextMorsel.getAndIncrement()) < op.morsels.size()) {
+                ScanOperator morsel = op.morsels.get(m);
+                morsel.init();
+                c.start(morsel);
+                while(! queue.closed && op.advance(c)) {
+                    out.add(op.output(c));
+                    if(out.isFull()) {
+                        queue.put(out);
+                        out = new TupleBatch();
+                    }
+                }
+                morsel.close();
+            }
+            if(out.size > 0)
+                queue.put(out);
+        } catch (Throwable e) {
+            e.printStackTrace();
+            System.out.println("=========> Error in a worker of a morsel-driven pipeline");
+            System.exit(1);
+        }
+        queue.runningProducers.decrementAndGet();
+    }
+}
@@ -47,12 +47,29 @@ public class NestedLoopsJoinOperator extends JoinOperator {
     void print(int num_tabs) {
         for(int i = 0; i < num_tabs; i++) 
             System.out.print("	");
-        System.out.println("Nested Loops Join operator with predicate " + jp);
+        System.out.println("Nested Loops Join operator with predicate " + jp + estimates());
         leftOp.print(num_tabs+1);
         rightOp.print(num_tabs+1);
     }
 
 
+    /* The right input is scanned once for every left tuple. */
+    void estimate() {
+        estimateJoinOutput();
+        estimated_cost = leftOp.estimated_cost + Math.max(1, leftOp.estimated_rows) * rightOp.estimated_cost + estimated_rows;
+    }
+
+    /* We go through the left tuples in order, so we preserve whatever order the left child produces. But a left 
+       tuple can match several right tuples, so a unique key of the left child is no longer unique here: a list of 
+       attributes is only sorted if it is a prefix of getSortOrder() (see Operator.isSortedOn()). */
+    Vector<TupleAttribute> getSortOrder() {
+        return leftOp.getSortOrder();
+    }
+
+    boolean isSortedOn(TupleAttribute ta) {
+        return leftOp.isSortedOn(ta);
+    }
+
     Tuple leftTuple = null;
 
     Tuple get_next() {
@@ -69,8 +86,8 @@ public class NestedLoopsJoinOperator extends JoinOperator {
 
             Tuple rightTuple = null;
             while((rightTuple = rightOp.get_next()) != null) {
-                if(jp.evaluate(leftTuple, rightTuple))
-                    return new IntermediateTuple(leftTuple, rightTuple);
+                if(compiled_jp.evaluate(leftTuple, rightTuple))
+                    return combine(leftTuple, rightTuple);
             }
 
             /* No matching tuples left. Reinitialize the right scan. Set the leftTuple = null. */
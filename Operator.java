@@ -19,6 +19,18 @@ import java.util.Vector;
   init(): initialize the operator state
   Tuple get_next(): get the next output tuple
   close(): clean up.
+
+  Operators can also be iterated a batch at a time (see TupleBatch):
+
+  boolean next_batch(batch): refill the batch with the next output tuples; false once there are none left.
+
+  By default, next_batch() collects tuples from get_next(), so every operator supports both interfaces, and
+  operators that only implement get_next() compose with the ones that implement next_batch() directly 
+  (ScanOperator, ProjectOperator, HashJoinOperator). A consumer must use one or the other on a given operator.
+
+  The planner also asks every operator to estimate() the number of tuples it will produce and the 
+  cost of producing them (see Query.plan()). Costs are measured in units of "reading one tuple 
+  sequentially from a table".
 ***************************************************************************************************/
 public abstract class Operator {
     static final int SCAN = 1;
@@ -26,12 +38,88 @@ public abstract class Operator {
 
     int operator_type = 0;
 
+    /* Cost model constants. */
+    static final double LOOKUP_COST = 4;            // one B-tree search
+    static final double RANDOM_FETCH_COST = 2;      // fetching a record found through a secondary index
+    static final double HASH_BUILD_COST = 2;        // inserting a tuple into a hash table
+    static final double HASH_PROBE_COST = 1;        // probing a hash table
+    static final double SPILL_COST = 4;             // writing a tuple to a SpillFile and reading it back
+    static final double TUPLE_BYTES = 100;          // rough size of a tuple in memory, if we know nothing better
+
+    /* Estimates, filled in by estimate(). The width is the size of an output tuple in memory, in bytes. */
+    double estimated_rows = 0;
+    double estimated_cost = 0;
+    double estimated_width = TUPLE_BYTES;
+
     abstract void init();
 
     abstract Tuple get_next();
 
     abstract void close();
 
+    /* Note that a batch may come back with no rows selected (e.g., if they were all filtered out); only the 
+       return value says whether we are done. */
+    boolean next_batch(TupleBatch batch) {
+        return nextBatchOfRows(batch);
+    }
+
+    /* The adapter from get_next() to next_batch(). */
+    boolean nextBatchOfRows(TupleBatch batch) {
+        batch.reset();
+        Tuple t;
+        while(! batch.isFull() && (t = get_next()) != null) 
+            batch.add(t);
+        return batch.size > 0;
+    }
+
+    /* The order of the output of this operator: ascending on the first attribute, ties ordered on the 
+       second attribute, and so on. Operators that cannot guarantee any particular order return an empty list. 
+       The planner uses this to avoid sorting (for ORDER BY, or for a sort-merge join). */
+    Vector<TupleAttribute> getSortOrder() {
+        return new Vector<TupleAttribute>();
+    }
+
+    /* Is the output of this operator sorted (ascending) on the given attribute ? */
+    boolean isSortedOn(TupleAttribute ta) {
+        Vector<TupleAttribute> order = getSortOrder();
+        return order.size() != 0 && sameAttribute(ta, order.get(0));
+    }
+
+    /* Is the output sorted on the list of attributes, i.e., is the list a prefix of getSortOrder() ? 
+       The first attribute is checked with isSortedOn(), since some operators are sorted on several 
+       attributes at once (e.g., both join attributes of a sort-merge join). */
+    boolean isSortedOn(Vector<TupleAttribute> attributes) {
+        Vector<TupleAttribute> order = getSortOrder();
+
+        if(attributes.size() == 0) 
+            return true;
+        if(! isSortedOn(attributes.get(0)) || attributes.size() > order.size()) 
+            return false;
+        for(int i = 1; i < attributes.size(); i++) 
+            if(! sameAttribute(attributes.get(i), order.get(i))) 
+                return false;
+        return true;
+    }
+
+    /* Compute estimated_rows and estimated_cost, assuming the children have already been estimated. */
+    abstract void estimate();
+
+    static boolean sameAttribute(TupleAttribute ta1, TupleAttribute ta2) {
+        return ta1.getRelationSchema() == ta2.getRelationSchema() && ta1.position_of_attribute_in_table == ta2.position_of_attribute_in_table;
+    }
+
+    /* Cost of sorting n tuples of the given width with an ExternalSorter. */
+    static double sortCost(double n, double width) {
+        double cost = n * Math.log(n + 2) / Math.log(2);
+        if(n * width > Globals.memoryBudget) 
+            cost += SPILL_COST * n;
+        return cost;
+    }
+
+    String estimates() {
+        return String.format(" (estimated rows: %.0f, cost: %.0f)", estimated_rows, estimated_cost);
+    }
+
     void print() {
         print(0);
     }
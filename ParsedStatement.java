@@ -3,12 +3,15 @@ import java.util.Vector;
 /*********************************************************************************************
   This Class simply stores the information extracted during the parsing. 
   
-  We currently support four types of statements:
+  We currently support seven types of statements:
   1. CREATE_TABLE
   2. INSERT_VALUES
   3. QUERY 
     Here we only support a very limited subset of SQL select-project-join queries.
   4. DROP_TABLE
+  5. CREATE_INDEX
+  6. ANALYZE
+  7. COPY
 
   For each of them, the information is extracted during the parsing.
  *********************************************************************************************/
@@ -17,6 +20,9 @@ public class ParsedStatement {
     static final int INSERT_VALUES = 2;
     static final int QUERY = 3;
     static final int DROP_TABLE = 4;
+    static final int CREATE_INDEX = 5;
+    static final int ANALYZE = 6;
+    static final int COPY = 7;
 
     int statementType = 0;
 
@@ -53,6 +59,36 @@ public class ParsedStatement {
       dt_tableName = s;
     }
 
+    /* Create Index Statement and its Parameters. */
+    String ci_indexName;
+    String ci_tableName;
+    String ci_attributeName;
+
+    void initCreateIndex(String index, String table, String attribute) {
+      statementType = CREATE_INDEX;
+      ci_indexName = index;
+      ci_tableName = table;
+      ci_attributeName = attribute;
+    }
+
+    /* Analyze Statement and its Parameters. */
+    String an_tableName;
+
+    void initAnalyze(String s) {
+      statementType = ANALYZE;
+      an_tableName = s;
+    }
+
+    /* Copy Statement and its Parameters. */
+    String cp_tableName;
+    String cp_fileName;
+
+    void initCopy(String s, String f) {
+      statementType = COPY;
+      cp_tableName = s;
+      cp_fileName = f;
+    }
+
     /* Insert Statement Values. */
     String iv_tableName;
     Vector<Object> iv_attributeValues = new Vector<Object>();;
@@ -80,6 +116,10 @@ public class ParsedStatement {
     Vector<TupleAttribute> selectAttributes = new Vector<TupleAttribute>();
     boolean distinct = false;
     Vector<TupleAttribute> orderByAttributes = null;
+    Vector<Aggregate> aggregates = new Vector<Aggregate>();
+    Vector<TupleAttribute> groupByAttributes = null;
+    int limit = -1;             // -1 if there is no LIMIT clause
+    int offset = 0;
 
     void initQuery() {
       statementType = QUERY;
@@ -102,12 +142,41 @@ public class ParsedStatement {
         selectAttributes.add(ta);
     }
     
+    /* Remember where the aggregate appears in the select list (the select attributes fill the other positions). */
+    void addAggregate(Aggregate a) {
+        a.select_position = selectAttributes.size() + aggregates.size();
+        aggregates.add(a);
+    }
+
+    void addGroupByAttribute(TupleAttribute ta) {
+        if(groupByAttributes == null)
+            groupByAttributes = new Vector<TupleAttribute>();
+        groupByAttributes.add(ta);
+    }
+
     void addOrderByAttribute(TupleAttribute ta) {
         if(orderByAttributes == null)
             orderByAttributes = new Vector<TupleAttribute>();
         orderByAttributes.add(ta);
     }
 
+    void setLimit(String l, String o) throws ParseException {
+        limit = parseCount("LIMIT", l);
+        if(o != null)
+            offset = parseCount("OFFSET", o);
+    }
+
+    /* The grammar's numbers may have a decimal point, and any number of digits. */
+    static int parseCount(String clause, String s) throws ParseException {
+        try {
+            int n = Integer.parseInt(s);
+            if(n >= 0)
+                return n;
+        } catch (NumberFormatException e) {
+        }
+        throw new ParseException(clause + " must be a non-negative integer that fits in an int: " + s);
+    }
+
     /* Print the parsed statement. */
     void print() {
         switch(statementType) {
@@ -121,14 +190,28 @@ public class ParsedStatement {
                 System.out.print("Query: on tables " + fromTables + " with predicates: " + wherePredicates + " selecting ");
                 if(distinct) System.out.print("distinct ");
                 System.out.print(": " + selectAttributes);
+                if(aggregates.size() != 0) 
+                    System.out.print(" and " + aggregates);
+                if(groupByAttributes != null) 
+                    System.out.print(" grouping by " + groupByAttributes);
                 if(orderByAttributes != null) 
-                    System.out.println(" ordering by " + orderByAttributes);
-                else
-                    System.out.println();
+                    System.out.print(" ordering by " + orderByAttributes);
+                if(limit != -1) 
+                    System.out.print(" limit " + limit + " offset " + offset);
+                System.out.println();
                 break;
             case DROP_TABLE:
                 System.out.println("Dropping table " + dt_tableName);
                 break;
+            case ANALYZE:
+                System.out.println("Analyzing table " + an_tableName);
+                break;
+            case COPY:
+                System.out.println("Copying into table " + cp_tableName + " from file " + cp_fileName);
+                break;
+            case CREATE_INDEX:
+                System.out.println("Creating index " + ci_indexName + " on table " + ci_tableName + " attribute " + ci_attributeName);
+                break;
             default:
                 assert false : "This shouldn't happen";
         }
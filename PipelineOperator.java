@@ -0,0 +1,273 @@
+import java.util.Vector;
+
+/*****************************************************************************************************
+  A fused pipeline: a ProjectOperator over a chain of HashJoinOperators, whose probe (left) sides go
+  all the way down to a ScanOperator:
+
+        Project
+          Hash Join (probe: the join below, build: R3)
+            Hash Join (probe: scan of R1, build: R2)
+              Scan R1
+              ... R2
+            ... R3
+
+  The build sides (and anything below them) are pipeline breakers: they are still run by the hash
+  joins, when init() builds their hash tables. Everything above them (the scan, the probes into the
+  hash tables, and the projection) is run by a single loop in this operator, instead of every tuple
+  going through get_next() (or next_batch()) of every operator in turn:
+    - the scan fills a column-oriented batch (see ScanOperator.next_batch()), which already holds
+      only the rows that satisfy the scan predicates;
+    - the join keys are read straight from those columns (or from the build tuples matched so far),
+      and probe the hash tables of the joins one after the other, as nested loops over the chains
+      of matching entries;
+    - the output tuple is built straight from the columns and the matched build tuples.
+  No BaseTuple is built for the scanned rows, and no IntermediateTuple for the joined ones.
+
+  Query plans a ProjectOperator with create(), which returns a PipelineOperator when the plan below
+  has this shape. If a hash join runs out of memory while building (and so switches to its
+  partitioned mode), the pipeline is not fused, and we simply run as the ProjectOperator. As for the
+  compiled expressions (see QueryCompiler), -Dcompile=false turns fusion off.
+***************************************************************************************************/
+public class PipelineOperator extends ProjectOperator {
+    ScanOperator scan;
+
+    /* The joins, from the bottom up: joins[0] probes with the scanned rows. */
+    HashJoinOperator[] joins;
+
+    /* Where the probe key of every join, and every output attribute, comes from: -1 for the scanned row,
+       or the number of the join whose build tuple has it. */
+    int[] probeSources;
+    int[] outputSources;
+
+    /* Is the pipeline fused (see init()) ? */
+    boolean fused = false;
+
+    /* The state of the loop: the scan it reads, the current scanned row, and the current matching entry of every
+       join (and the hash table it is in). A MorselDrivenOperator runs one of these in every worker. */
+    static class Cursor {
+        ScanOperator scan;
+        TupleBatch scanBatch = new TupleBatch();
+        int scanPosition = 0;
+        int row = -1;
+        int depth = -1;
+        int[] entries;
+        Tuple[] matched;
+        JoinHashTable[] tables;
+
+        Cursor(int numJoins) {
+            entries = new int[numJoins];
+            matched = new Tuple[numJoins];
+            tables = new JoinHashTable[numJoins];
+        }
+
+        /* Start reading an (initialized) scan. */
+        void start(ScanOperator scan) {
+            this.scan = scan;
+            scanBatch.reset();
+            scanPosition = 0;
+            depth = -1;
+        }
+    }
+
+    Cursor cursor = null;
+
+    /* Returns a PipelineOperator if the plan below fits, a ProjectOperator otherwise. */
+    static ProjectOperator create(Operator child, Vector<TupleAttribute> select_attributes, boolean distinct) {
+        Vector<HashJoinOperator> chain = probeChain(child);
+        if(! QueryCompiler.enabled || chain == null)
+            return new ProjectOperator(child, select_attributes, distinct);
+
+        PipelineOperator po = new PipelineOperator(child, select_attributes, distinct, chain);
+        if(! po.resolveSources())
+            return new ProjectOperator(child, select_attributes, distinct);
+        return po;
+    }
+
+    /* The hash joins from the bottom up, if the plan is a chain of hash joins whose probe sides go down to a scan; null otherwise. */
+    static Vector<HashJoinOperator> probeChain(Operator child) {
+        Vector<HashJoinOperator> chain = new Vector<HashJoinOperator>();
+        Operator op = child;
+        while(op instanceof HashJoinOperator) {
+            chain.add(0, (HashJoinOperator) op);
+            op = ((HashJoinOperator) op).leftOp;
+        }
+        return (chain.size() == 0 || ! (op instanceof ScanOperator)) ? null : chain;
+    }
+
+    PipelineOperator(Operator child, Vector<TupleAttribute> select_attributes, boolean distinct, Vector<HashJoinOperator> chain) {
+        super(child, select_attributes, distinct);
+        joins = chain.toArray(new HashJoinOperator[chain.size()]);
+        scan = (ScanOperator) joins[0].leftOp;
+    }
+
+    /* Find where every attribute we need comes from. Returns false if we can't tell. */
+    boolean resolveSources() {
+        probeSources = new int[joins.length];
+        for(int j = 0; j < joins.length; j++) {
+            probeSources[j] = sourceOf((TupleAttribute) joins[j].jp.lhs(), j);
+            if(probeSources[j] == -2)
+                return false;
+        }
+
+        outputSources = new int[select_attributes.size()];
+        for(int i = 0; i < outputSources.length; i++) {
+            outputSources[i] = sourceOf(select_attributes.get(i), joins.length);
+            if(outputSources[i] == -2)
+                return false;
+        }
+        return true;
+    }
+
+    /* -1 if the attribute is in the scanned rows, j if it is in the build tuples of joins[j] (with j < below),
+       and -2 if we can't tell. */
+    int sourceOf(TupleAttribute ta, int below) {
+        if(ta.slot == -1)
+            return -2;
+        if(ta.slot == scan.slot)
+            return -1;
+        for(int j = 0; j < below; j++)
+            if(containsSlot(joins[j].rightOp, ta.slot))
+                return j;
+        return -2;
+    }
+
+    static boolean containsSlot(Operator op, int slot) {
+        if(op instanceof ScanOperator)
+            return ((ScanOperator) op).slot == slot;
+        if(op instanceof JoinOperator)
+            return containsSlot(((JoinOperator) op).leftOp, slot) || containsSlot(((JoinOperator) op).rightOp, slot);
+        return false;
+    }
+
+    /* Pretty print. */
+    void print(int num_tabs) {
+        for(int i = 0; i < num_tabs; i++)
+            System.out.print("	");
+        System.out.println(description());
+        super.print(num_tabs+1);
+    }
+
+    String description() {
+        return "Pipeline operator: fused scan of " + scan.getRelationSchema().getName() + ", " + joins.length + " hash join probe(s) and projection";
+    }
+
+    /* Initializing the child builds the hash tables of all the joins, and opens the scan. */
+    void init() {
+        super.init();
+
+        fused = true;
+        for(HashJoinOperator hj : joins)
+            if(hj.partitioned)
+                fused = false;
+
+        cursor = new Cursor(joins.length);
+        cursor.start(scan);
+    }
+
+    /* Move the cursor to the next combination of a scanned row and matching build tuples. entries[d] is the
+       current entry of joins[d], for d <= depth; once depth reaches the last join, we have an output tuple. */
+    boolean advance(Cursor c) {
+        int[] entries = c.entries;
+        JoinHashTable[] tables = c.tables;
+
+        int d = c.depth;
+        if(d >= 0)
+            entries[d] = tables[d].next(entries[d]);
+
+        while(true) {
+            if(d < 0) {
+                if(! nextRow(c)) {
+                    c.depth = -1;
+                    return false;
+                }
+                d = 0;
+                entries[0] = probe(c, 0);
+            }
+
+            if(entries[d] == -1) {
+                d--;
+                if(d >= 0)
+                    entries[d] = tables[d].next(entries[d]);
+                continue;
+            }
+
+            c.matched[d] = tables[d].tuple(entries[d]);
+            if(d == joins.length - 1) {
+                c.depth = d;
+                return true;
+            }
+            d++;
+            entries[d] = probe(c, d);
+        }
+    }
+
+    boolean nextRow(Cursor c) {
+        while(c.scanPosition == c.scanBatch.count) {
+            c.scanPosition = 0;
+            if(! c.scan.next_batch(c.scanBatch))
+                return false;
+        }
+        c.row = c.scanBatch.selection[c.scanPosition++];
+        return true;
+    }
+
+    /* The first matching entry of joins[d] for the current row and build tuples, or -1. */
+    int probe(Cursor c, int d) {
+        TupleAttribute ta = (TupleAttribute) joins[d].jp.lhs();
+        int source = probeSources[d];
+
+        if(ta.getAttributeType() == Globals.INTEGER) {
+            int key = (source == -1) ? c.scanBatch.intColumns[ta.typed_position][c.row] : ta.evaluateInt(c.matched[source]);
+            c.tables[d] = tableOf(d, key);
+            return ((IntJoinHashTable) c.tables[d]).firstInt(key);
+        }
+
+        String key = (source == -1) ? c.scanBatch.stringColumns[ta.typed_position][c.row] : ta.evaluateString(c.matched[source]);
+        c.tables[d] = tableOf(d, key.hashCode());
+        return c.tables[d].first(key);
+    }
+
+    /* The hash table of joins[d] that holds the keys with this hash code. */
+    JoinHashTable tableOf(int d, int hashCode) {
+        return joins[d].table;
+    }
+
+    /* The output tuple for the current combination. */
+    IntermediateFlattenedTuple output(Cursor c) {
+        IntermediateFlattenedTuple out = new IntermediateFlattenedTuple(outputSources.length);
+        for(int i = 0; i < outputSources.length; i++) {
+            TupleAttribute ta = select_attributes.get(i);
+            int source = outputSources[i];
+
+            if(source == -1)
+                out.setValue(i, c.scanBatch.getValue(ta, c.row));
+            else if(ta.getAttributeType() == Globals.INTEGER)
+                out.setValue(i, Integer.valueOf(ta.evaluateInt(c.matched[source])));
+            else
+                out.setValue(i, ta.evaluateString(c.matched[source]));
+        }
+        return out;
+    }
+
+    /* ProjectOperator.get_next() (with or without DISTINCT) gets its input from here. */
+    IntermediateFlattenedTuple nextProjectedTuple() {
+        if(! fused)
+            return super.nextProjectedTuple();
+        return advance(cursor) ? output(cursor) : null;
+    }
+
+    boolean next_batch(TupleBatch batch) {
+        if(! fused || distinct)
+            return super.next_batch(batch);
+
+        batch.reset();
+        while(! batch.isFull() && advance(cursor))
+            batch.add(output(cursor));
+        return batch.size > 0;
+    }
+
+    void close() {
+        super.close();
+        cursor = null;
+    }
+}
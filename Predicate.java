@@ -11,7 +11,9 @@ import java.util.Vector;
 
   2. Predicate:
         A predicate is of the type:
-                Variable1 = Variable2
+                Variable1 op Variable2
+        where op is one of =, <, <=, >, >=. 
+        Join predicates (where both variables are TupleAttributes) must be equalities.
 
 ************************************************************************************************/
 abstract class Variable {
@@ -25,6 +27,15 @@ abstract class Variable {
             return evaluate((IntermediateTuple) t);
         }
     }
+
+    /* Typed evaluation, for when the type is known: TupleAttributes do not box INTEGER values. */
+    int evaluateInt(Tuple t) {
+        return ((Integer) evaluate(t)).intValue();
+    }
+
+    String evaluateString(Tuple t) {
+        return (String) evaluate(t);
+    }
 }
 
 class Constant extends Variable {
@@ -50,6 +61,13 @@ class TupleAttribute extends Variable {
 
     int position_of_attribute_in_table = -1;
 
+    /* The slot of the relation in an IntermediateTuple (its position in the FROM clause), or -1 if unknown. */
+    int slot = -1;
+
+    /* The type of the attribute, and its position among the attributes of that type (see BaseTuple). */
+    int type = 0;
+    int typed_position = -1;
+
     /* Careful --- t might be null. */
     TupleAttribute(String t, String a) {
         tableName = t;
@@ -62,10 +80,14 @@ class TupleAttribute extends Variable {
     void setRelationSchema(BaseRelationSchema rs) {
         this.rs = rs;
         position_of_attribute_in_table = this.rs.getPosition(attributeName);
+        if(position_of_attribute_in_table != -1) {
+            type = rs.getAttributeType(position_of_attribute_in_table);
+            typed_position = rs.getTypedPosition(position_of_attribute_in_table);
+        }
     }
 
     int getAttributeType() {
-        return rs.getAttributeType(rs.getPosition(attributeName));
+        return type;
     }
 
     BaseRelationSchema getRelationSchema() {
@@ -78,7 +100,17 @@ class TupleAttribute extends Variable {
 
     /* To "evaluate" on an intermediateTuple, we simply find the corresponding BaseTuple. */
     Object evaluate(IntermediateTuple t) {
-        return evaluate(t.getBaseTuple(rs));
+        if(slot == -1) 
+            return evaluate(t.getBaseTuple(rs));
+        return evaluate(t.baseTuples[slot]);
+    }
+
+    int evaluateInt(Tuple t) {
+        return t.getInt(this);
+    }
+
+    String evaluateString(Tuple t) {
+        return t.getString(this);
     }
 
     public String toString() {
@@ -87,14 +119,31 @@ class TupleAttribute extends Variable {
 }
 
 public class Predicate {
+    static final int EQ = 0;
+    static final int LT = 1;
+    static final int LE = 2;
+    static final int GT = 3;
+    static final int GE = 4;
+
+    static final String[] operatorNames = {"=", "<", "<=", ">", ">="};
+
     Variable v1;
     Variable v2;
+    int op = EQ;
 
     Predicate() {
         v1 = null;
         v2 = null;
     }
 
+    void setOperator(int op) {
+        this.op = op;
+    }
+
+    int getOperator() {
+        return op;
+    }
+
     Variable lhs() { return v1; }
 
     Variable rhs() { return v2; }
@@ -112,6 +161,12 @@ public class Predicate {
         Variable temp = v1;
         v1 = v2;
         v2 = temp;
+
+        /* a < b is the same as b > a. */
+        if(op == LT) op = GT;
+        else if(op == GT) op = LT;
+        else if(op == LE) op = GE;
+        else if(op == GE) op = LE;
     }
 
     void addVariable(Variable v) {
@@ -141,15 +196,92 @@ public class Predicate {
     }
 
     public String toString() {
-        return v1 + " = " + v2;
+        return v1 + " " + operatorNames[op] + " " + v2;
     }
 
+    /* The attribute and the constant have the same type (see Query.analyze()), so we compare them unboxed. */
     boolean evaluate(Tuple t) {
         assert v2 instanceof Constant;
-        return v1.evaluate(t).equals(v2.evaluate(t));
+        Object c = ((Constant) v2).o;
+        if(c instanceof Integer) {
+            int v = v1.evaluateInt(t);
+            int k = ((Integer) c).intValue();
+            return satisfies((v < k) ? -1 : ((v == k) ? 0 : 1));
+        }
+        if(op == EQ) 
+            return v1.evaluateString(t).equals(c);
+        return satisfies(v1.evaluateString(t).compareTo((String) c));
+    }
+
+    /* Same as evaluate(Tuple), for a row of a batch. */
+    boolean evaluate(TupleBatch b, int row) {
+        TupleAttribute ta = (TupleAttribute) v1;
+        Object c = ((Constant) v2).o;
+        if(c instanceof Integer) {
+            int v = b.getInt(ta, row);
+            int k = ((Integer) c).intValue();
+            return satisfies((v < k) ? -1 : ((v == k) ? 0 : 1));
+        }
+        if(op == EQ) 
+            return b.getString(ta, row).equals(c);
+        return satisfies(b.getString(ta, row).compareTo((String) c));
+    }
+
+    /* Remove the rows of a batch that do not satisfy the predicate from its selection vector. On an INTEGER 
+       column, this is a loop over the column with the comparison operator fixed. */
+    void filter(TupleBatch b) {
+        TupleAttribute ta = (TupleAttribute) v1;
+        Object c = ((Constant) v2).o;
+        int[] sel = b.selection;
+        int n = 0;
+
+        if(c instanceof Integer && b.hasColumn(ta)) {
+            int[] column = b.intColumns[ta.typed_position];
+            int k = ((Integer) c).intValue();
+            switch(op) {
+                case EQ:
+                    for(int i = 0; i < b.count; i++) 
+                        if(column[sel[i]] == k) sel[n++] = sel[i];
+                    break;
+                case LT:
+                    for(int i = 0; i < b.count; i++) 
+                        if(column[sel[i]] < k) sel[n++] = sel[i];
+                    break;
+                case LE:
+                    for(int i = 0; i < b.count; i++) 
+                        if(column[sel[i]] <= k) sel[n++] = sel[i];
+                    break;
+                case GT:
+                    for(int i = 0; i < b.count; i++) 
+                        if(column[sel[i]] > k) sel[n++] = sel[i];
+                    break;
+                default:
+                    for(int i = 0; i < b.count; i++) 
+                        if(column[sel[i]] >= k) sel[n++] = sel[i];
+                    break;
+            }
+        } else {
+            for(int i = 0; i < b.count; i++) 
+                if(evaluate(b, sel[i])) 
+                    sel[n++] = sel[i];
+        }
+        b.count = n;
+    }
+
+    /* Given the result of comparing the lhs with the rhs, does the predicate hold ? */
+    boolean satisfies(int comparison) {
+        switch(op) {
+            case EQ: return comparison == 0;
+            case LT: return comparison < 0;
+            case LE: return comparison <= 0;
+            case GT: return comparison > 0;
+            default: return comparison >= 0;
+        }
     }
 
     boolean evaluate(Tuple t1, Tuple t2) {
-        return v1.evaluate(t1).equals(v2.evaluate(t2));
+        if(((TupleAttribute) v1).getAttributeType() == Globals.INTEGER) 
+            return v1.evaluateInt(t1) == v2.evaluateInt(t2);
+        return v1.evaluateString(t1).equals(v2.evaluateString(t2));
     }
 }
@@ -10,6 +10,7 @@ import com.sleepycat.je.LockMode;
 import com.sleepycat.je.OperationStatus; 
 
 import java.io.*;
+import java.lang.invoke.MethodHandle;
 import java.util.Vector;
 
 /*****************************************************************************************************
@@ -20,26 +21,43 @@ import java.util.Vector;
   The key parameters include:
     list of attributes to project on
     distinct or not (boolean varible)
-    list of attributes to order by (null if no "order by" clause in the query)
 
   init(): no specific initialization required
   get_next(): return the next tuple
   close(): no specific close required
+
+  DISTINCT is implemented by hashing: we keep a DistinctSet of the output tuples seen so far, and 
+  return a tuple as soon as we see it for the first time (so the output is streamed). If the set 
+  grows beyond Globals.memoryBudget, we stop adding to it; from then on, a tuple that is not in 
+  the set is written to one of NUM_PARTITIONS spill files (by hash, as in the HashJoinOperator). 
+  Once the child is exhausted, the partitions are de-duplicated one by one in the same way 
+  (re-partitioning them if needed, up to MAX_LEVEL levels). 
 ***************************************************************************************************/
 public class ProjectOperator extends Operator {
     Operator child;
     Vector<TupleAttribute> select_attributes;
     boolean distinct;
-    Vector<TupleAttribute> order_by_attributes;
 
     RelationSchema outputRelationSchema = null;
 
-    ProjectOperator(Operator child, Vector<TupleAttribute> select_attributes, boolean distinct, Vector<TupleAttribute> order_by_attributes)
+    /* The projection, compiled for the kind of tuples the child produces (see QueryCompiler). null if it 
+       couldn't be compiled, in which case we evaluate the attributes one by one. */
+    MethodHandle projection = null;
+
+    /* State for DISTINCT. The input being de-duplicated is the child if currentPartition is null, and 
+       a spilled partition otherwise. */
+    DistinctSet seen;
+    SpillFile[] spilledPartitions;
+    SpillFile currentPartition;
+    int currentLevel;
+    Vector<SpillFile> pendingPartitions = new Vector<SpillFile>();
+    Vector<Integer> pendingLevels = new Vector<Integer>();
+
+    ProjectOperator(Operator child, Vector<TupleAttribute> select_attributes, boolean distinct)
     {
         this.child = child;
         this.select_attributes = select_attributes;
         this.distinct = distinct;
-        this.order_by_attributes = order_by_attributes;
 
         /* Create the corresponding output relation schema. */
         outputRelationSchema = new RelationSchema(select_attributes.size());
@@ -48,36 +66,122 @@ public class ProjectOperator extends Operator {
             TupleAttribute ta = select_attributes.get(i);
             outputRelationSchema.setAttribute(i, ta.tableName + "." + ta.attributeName, ta.getAttributeType());
         }
-
-        /* DISTINCT currently not implemented. */
-        if(distinct) {
-            System.out.println("DISTINCT not implemented.");
-            System.exit(1);
-        }
-        if(order_by_attributes != null) {
-            System.out.println("Asked to order by attributes: " + order_by_attributes + ", but ORDER BY not implemented.");
-            System.exit(1);
-        }
     }
 
     /* Pretty print. */
     void print(int num_tabs) {
-        for(; num_tabs > 0; num_tabs--) 
+        for(int i = 0; i < num_tabs; i++) 
             System.out.print("	");
-        System.out.println("Project operator: on " + select_attributes + " with distinct = " + distinct + " and order by on: " + order_by_attributes);
+        System.out.println("Project operator: on " + select_attributes + " with distinct = " + distinct + estimates());
         child.print(num_tabs+1);
     }
 
 
+    /* With DISTINCT, there can't be more output tuples than combinations of the distinct values of the attributes. */
+    void estimate() {
+        estimated_rows = child.estimated_rows;
+        estimated_width = 32 + 24 * select_attributes.size();
+        estimated_cost = child.estimated_cost + estimated_rows;
+
+        if(distinct) {
+            double combinations = 1;
+            for(TupleAttribute ta : select_attributes) 
+                combinations *= JoinOperator.distinctValues(child, ta);
+            estimated_rows = Math.min(estimated_rows, combinations);
+            if(estimated_rows * estimated_width > Globals.memoryBudget) 
+                estimated_cost += SPILL_COST * child.estimated_rows;
+        }
+    }
+
+    /* Projection keeps the order of the child. DISTINCT doesn't: once it spills, the spilled partitions come out in hash order. */
+    Vector<TupleAttribute> getSortOrder() {
+        return distinct ? new Vector<TupleAttribute>() : child.getSortOrder();
+    }
+
+    boolean isSortedOn(TupleAttribute ta) {
+        return ! distinct && child.isSortedOn(ta);
+    }
+
+    boolean isSortedOn(Vector<TupleAttribute> attributes) {
+        return ! distinct && child.isSortedOn(attributes);
+    }
+
     void init() {
         child.init();
+        projection = QueryCompiler.projection(select_attributes, QueryCompiler.shapeOf(child));
+        initDistinct();
+    }
+
+    void initDistinct() {
+        if(distinct) {
+            seen = DistinctSet.create(outputRelationSchema);
+            spilledPartitions = null;
+            currentPartition = null;
+            currentLevel = 0;
+        }
     }
 
     Tuple get_next() {
+        if(! distinct) 
+            return nextProjectedTuple();
+
+        while(true) {
+            IntermediateFlattenedTuple t = (currentPartition == null) ? nextProjectedTuple() : (IntermediateFlattenedTuple) currentPartition.read();
+
+            if(t == null) {
+                if(! nextPartition()) 
+                    return null;
+            } else if(spilledPartitions == null) {
+                if(seen.add(t)) {
+                    if(seen.estimatedSize() > Globals.memoryBudget && currentLevel < HashJoinOperator.MAX_LEVEL) 
+                        spilledPartitions = HashJoinOperator.newPartitions();
+                    return t;
+                }
+            } else if(! seen.contains(t)) {
+                spilledPartitions[HashJoinOperator.partitionOf(t, currentLevel)].write(t);
+            }
+        }
+    }
+
+    /* Without DISTINCT, we project a batch of the child at a time. */
+    TupleBatch inputBatch = null;
+
+    boolean next_batch(TupleBatch batch) {
+        if(distinct) 
+            return nextBatchOfRows(batch);
+
+        if(inputBatch == null) 
+            inputBatch = new TupleBatch();
+
+        batch.reset();
+        if(! child.next_batch(inputBatch)) 
+            return false;
+
+        int n = outputRelationSchema.getNumberOfAttributes();
+        for(int i = 0; i < inputBatch.count; i++) {
+            int row = inputBatch.selection[i];
+
+            /* The compiled projection works on tuples; the columns of a scan batch are read directly. */
+            if(projection != null && inputBatch.rs == null) {
+                batch.add(QueryCompiler.project(projection, inputBatch.tuples[row]));
+                continue;
+            }
+
+            IntermediateFlattenedTuple out = new IntermediateFlattenedTuple(n);
+            for(int j = 0; j < n; j++) 
+                out.setValue(j, inputBatch.getValue(select_attributes.get(j), row));
+            batch.add(out);
+        }
+        return true;
+    }
+
+    IntermediateFlattenedTuple nextProjectedTuple() {
         Tuple in = child.get_next();
 
         if(in == null) {
             return null;
+        } else if(projection != null) {
+            return QueryCompiler.project(projection, in);
         } else {
             IntermediateFlattenedTuple out = new IntermediateFlattenedTuple(outputRelationSchema.getNumberOfAttributes());
 
@@ -89,7 +193,55 @@ public class ProjectOperator extends Operator {
         }
     }
 
+    /* The current input is exhausted: queue up whatever it spilled, and move on to the next partition. 
+       The tuples in a partition were not in the set when they were spilled, so we start with an empty set. */
+    boolean nextPartition() {
+        if(spilledPartitions != null) {
+            for(SpillFile sf : spilledPartitions) {
+                if(sf.size() > 0) {
+                    pendingPartitions.add(sf);
+                    pendingLevels.add(currentLevel + 1);
+                } else {
+                    sf.delete();
+                }
+            }
+            spilledPartitions = null;
+        }
+
+        if(currentPartition != null) {
+            currentPartition.delete();
+            currentPartition = null;
+        }
+
+        if(pendingPartitions.isEmpty()) 
+            return false;
+
+        currentPartition = pendingPartitions.remove(0);
+        currentLevel = pendingLevels.remove(0).intValue();
+        currentPartition.startReading();
+        seen = DistinctSet.create(outputRelationSchema);
+        return true;
+    }
+
     void close() {
         child.close();
+        closeDistinct();
+    }
+
+    void closeDistinct() {
+        if(distinct) {
+            if(spilledPartitions != null) 
+                for(SpillFile sf : spilledPartitions) 
+                    sf.delete();
+            if(currentPartition != null) 
+                currentPartition.delete();
+            for(SpillFile sf : pendingPartitions) 
+                sf.delete();
+            spilledPartitions = null;
+            currentPartition = null;
+            pendingPartitions.clear();
+            pendingLevels.clear();
+            seen = null;
+        }
     }
 }
@@ -13,14 +13,18 @@ import java.util.Vector;
   This class contains the actual query evaluation and planning logic. 
 
   We currently only support queries of the form:
-    select [distinct] <list of attributes>
+    select [distinct] <list of attributes and aggregates>
     from <list of tables>
     where <list of predicates>
-    order by <list of attributes>;
+    group by <list of attributes>
+    order by <list of attributes>
+    limit <n> [offset <m>];
 
   The Select Clause can either contain "*" or a list of fully defined attributes.
   No aliasing is allowed. 
-  Only equality predicates are allowed.
+  The aggregates are COUNT(*), COUNT(R.a), SUM(R.a), MIN(R.a), MAX(R.a) and AVG(R.a). With aggregates or GROUP BY, 
+  every attribute in the select list (and the ORDER BY list) must be in the GROUP BY list.
+  Join predicates must be equalities. Predicates comparing an attribute with a constant may also use <, <=, >, >=.
 
   Queries should not contain cycles or should not require Cartesian products.
 ***************************************************************************************************/
@@ -33,6 +37,10 @@ public class Query {
     Vector<TupleAttribute> select_attributes;
     boolean distinct;
     Vector<TupleAttribute> order_by_attributes;
+    Vector<Aggregate> aggregates;
+    Vector<TupleAttribute> group_by_attributes;     // null if there is no GROUP BY
+    int limit;          // -1 if there is no LIMIT
+    int offset;
 
     /* The root operator. We will execute the query by doing a get_next() on the root. */
     Operator root;
@@ -44,15 +52,16 @@ public class Query {
 
         /* Print out the select attributes. */
         System.out.println("-------------------------------------------------------------------------");
-        for(TupleAttribute attr : select_attributes) 
-            System.out.print(attr + "		");
+        for(Object column : HashAggregateOperator.outputColumns(select_attributes, aggregates)) 
+            System.out.print(column + "		");
         System.out.println();
         System.out.println("-------------------------------------------------------------------------");
 
-        /* Print out the result tuples one by one. */
-        Tuple t = null;
-        while((t = root.get_next()) != null) {
-            System.out.println(t);
+        /* Print out the result tuples, a batch at a time. */
+        TupleBatch batch = new TupleBatch();
+        while(root.next_batch(batch)) {
+            for(int i = 0; i < batch.count; i++) 
+                System.out.println(batch.getTuple(batch.selection[i]));
         }
         System.out.println("-------------------------------------------------------------------------");
 
@@ -66,6 +75,10 @@ public class Query {
         select_attributes = ps.selectAttributes;
         distinct = ps.distinct;
         order_by_attributes = ps.orderByAttributes;
+        aggregates = ps.aggregates;
+        group_by_attributes = ps.groupByAttributes;
+        limit = ps.limit;
+        offset = ps.offset;
     }
 
     /** Is the argument relation contained in the From Clause ? **/
@@ -96,6 +109,7 @@ public class Query {
             if(found_in != null) {
                 ta.tableName = found_in.getName();
                 ta.setRelationSchema(found_in);
+                ta.slot = query_relations.indexOf(found_in);
                 return true;
             } else {
                 System.out.println("=========> Attribute " + ta.attributeName + " not found in any of the tables in the FROM clause");
@@ -111,10 +125,16 @@ public class Query {
                 System.out.println("=========> Attribute " + ta.attributeName + " not present in the relation " + ta.tableName);
                 return false;
             }
+            ta.slot = query_relations.indexOf(ta.rs);
             return true;
         }
     }
 
+    /* Is this a query with aggregates or GROUP BY ? */
+    boolean isAggregation() {
+        return aggregates.size() != 0 || group_by_attributes != null;
+    }
+
     /* Construct the query object. Analyze, check for errors etc. */
     boolean analyze() {
         /* Get the relation schemas, and make sure the relations exist. */
@@ -136,10 +156,52 @@ public class Query {
                 return false;
             if( (p.rhs() instanceof TupleAttribute) && (!analyzeTupleAttribute((TupleAttribute) p.rhs())) ) 
                 return false;
+
+            if(p.isJoinPredicate() && p.getOperator() != Predicate.EQ) {
+                System.out.println("=========> Only equality join predicates are supported: " + p);
+                return false;
+            }
+
+            if(! p.isJoinPredicate()) {
+                Object o = ((Constant) p.rhs()).o;
+                int type = ((TupleAttribute) p.lhs()).getAttributeType();
+                if( (type == Globals.INTEGER && !(o instanceof Integer)) || (type == Globals.STRING && !(o instanceof String)) ) {
+                    System.out.println("=========> Type mismatch in the predicate " + p);
+                    return false;
+                }
+            } else if(((TupleAttribute) p.lhs()).getAttributeType() != ((TupleAttribute) p.rhs()).getAttributeType()) {
+                System.out.println("=========> Type mismatch in the predicate " + p);
+                return false;
+            }
+        }
+
+        /* Check the order by list. */
+        if(order_by_attributes != null) {
+            for(TupleAttribute ta : order_by_attributes) {
+                if(!analyzeTupleAttribute(ta))
+                    return false;
+            }
+        }
+
+        /* Check the group by list and the aggregates. */
+        if(group_by_attributes != null) {
+            for(TupleAttribute ta : group_by_attributes) {
+                if(!analyzeTupleAttribute(ta))
+                    return false;
+            }
+        }
+
+        for(Aggregate a : aggregates) {
+            if(a.attribute != null && !analyzeTupleAttribute(a.attribute))
+                return false;
+            if((a.function == Aggregate.SUM || a.function == Aggregate.AVG) && a.attribute.getAttributeType() != Globals.INTEGER) {
+                System.out.println("=========> " + a + " needs an integer attribute");
+                return false;
+            }
         }
 
         /* Finally check the select list. */
-        if(select_attributes.size() != 0) {
+        if(select_attributes.size() != 0 || aggregates.size() != 0) {
             for(TupleAttribute ta : select_attributes) {
                 /* Check the validity of the attribute. */
                 if(!analyzeTupleAttribute(ta))
@@ -150,75 +212,148 @@ public class Query {
                 for(String attrName : rs.attributeNames) {
                     TupleAttribute ta = new TupleAttribute(rs.getName(), attrName);
                     ta.setRelationSchema(rs);
+                    ta.slot = query_relations.indexOf(rs);
                     select_attributes.add(ta);
                 }
             }
         }
 
-        return true;
-    }
-
+        /* With DISTINCT, ordering on an attribute that is not in the output does not make sense. */
+        if(distinct && order_by_attributes != null && ! SortOperator.canSortProjection(order_by_attributes, select_attributes)) {
+            System.out.println("=========> With DISTINCT, the ORDER BY attributes must appear in the select list");
+            return false;
+        }
 
-    /****************************************************************************************************************
-      Query Planning: We use a simple algorithm to create a query plan.
+        if(isAggregation()) {
+            Vector<TupleAttribute> grouped = (group_by_attributes == null) ? new Vector<TupleAttribute>() : group_by_attributes;
 
-      1. We create a Scan Operator for each relation in the query.
+            if(distinct) {
+                System.out.println("=========> DISTINCT cannot be used with aggregates or GROUP BY");
+                return false;
+            }
+            for(TupleAttribute ta : select_attributes) {
+                if(SortOperator.positionIn(ta, grouped) == -1) {
+                    System.out.println("=========> Attribute " + ta + " must appear in the GROUP BY list");
+                    return false;
+                }
+            }
+            if(order_by_attributes != null && ! SortOperator.canSortProjection(order_by_attributes, select_attributes)) {
+                System.out.println("=========> With aggregates or GROUP BY, the ORDER BY attributes must appear in the select list");
+                return false;
+            }
+        }
 
-      2. We start with the first join predicate, and make it the lowest join operator in the query plan. Its children 
-        are two scan operators.
+        return true;
+    }
 
-      3. We find a join predicate such that one of the relations is already incorporated in the query plan, and we
-         ada a join operator corresponding to that join predicate. 
 
-      4. We repeat Step 3 until join operators corresponding to all join predicates have been constructed. 
+    /****************************************************************************************************************
+      Query Planning: We use a cost-based optimizer to choose the join order and the join operators.
+
+      1. We create a Scan Operator for each relation in the query (see construct_scan_operators()).
+
+      2. We use dynamic programming over the subsets of the relations (in order of increasing size, i.e., "DPsize").
+         For each subset, we find the cheapest plan that joins exactly those relations: we try every way of 
+         splitting the subset into two subsets that already have plans and are connected by a join predicate, and 
+         every join operator that can join the two plans (see JoinOperator.candidateJoinOperators()). Subsets that 
+         are not connected by the join predicates never get a plan, so we never consider Cartesian products.
+
+      3. The costs are estimated by the operators themselves (Operator.estimate()), using the statistics on the 
+         tables (number of tuples, and number of distinct values of each attribute; see TableStatistics).
+
+      4. On top of the join tree we put the ProjectOperator and, for ORDER BY, a SortOperator (above the projection 
+         if all the ORDER BY attributes are projected, below it otherwise; a TopNOperator if there is a LIMIT), 
+         and finally a LimitOperator for LIMIT. There is no sort if the join tree already produces the tuples in 
+         the ORDER BY order (see Operator.getSortOrder()); to take advantage of that, the dynamic programming also 
+         keeps the cheapest plan for every subset that produces that order (ordered_plans).
+         With aggregates or GROUP BY, a HashAggregateOperator replaces the ProjectOperator, and the sort (if any) 
+         goes above it. If the input of the aggregation is a large scan, it may be aggregated in parallel over 
+         ranges of the primary key (see HashAggregateOperator.parallelize()).
+         On a machine with several cores, large join trees of scans and hash joins are then split into copies that 
+         run in parallel, and their outputs gathered (see ExchangeOperator.parallelize()). With -Dmorsels=true, fused
+         pipelines of hash joins run on workers that take small ranges of the scans in turn (see MorselDrivenOperator).
 
       The code below can only handle well-specified query: for n relation query, there should be exactly n-1 join 
       predicates, and it should be possible to evaluate the query without using Cartesian products. 
       **************************************************************************************************************/
 
-    /* List of operators created. We will split them into Scan operators, and Join operators. */
+    /* List of scan operators created. */
     Vector<ScanOperator> scan_operators;
-    Vector<JoinOperator> join_operators;
 
-    /* We will simply create a scan operator for every relation in the query. */
+    /* The join predicates. */
+    Vector<Predicate> join_predicates;
+
+    /* best_plans[s] is the cheapest plan found for the set of relations s (a bitmask over the positions in query_relations). */
+    Operator[] best_plans;
+
+    /* With ORDER BY, ordered_plans[s] is the cheapest plan for s whose output is already in the ORDER BY order 
+       (e.g., a scan on the primary key, or joins that keep the order of such a scan), or null if we have none. 
+       Such a plan may be worth more than a cheaper plan that has to be sorted at the end. */
+    Operator[] ordered_plans;
+
+    /* We will simply create a scan operator for every relation in the query. 
+       If some of the predicates on a relation involve its primary key, the scan uses them to 
+       restrict the part of the table it reads (a point lookup or a key range), instead of 
+       reading the whole table. */
     void construct_scan_operators() {
         scan_operators = new Vector<ScanOperator>();
 
         for(BaseRelationSchema rs : query_relations) {
             /* There may be predicates involving just that relation. */
             Vector<Predicate> v = new Vector<Predicate>();
+            Vector<Predicate> key_predicates = new Vector<Predicate>();
 
-            for(Predicate p : query_predicates) 
-                if(p.isScanPredicate(rs))
+            for(Predicate p : query_predicates) {
+                if(p.isScanPredicate(rs)) {
                     v.add(p);
+                    if(((TupleAttribute) p.lhs()).position_of_attribute_in_table == rs.getPrimaryKeyPosition()) 
+                        key_predicates.add(p);
+                }
+            }
 
-            scan_operators.add(new ScanOperator(rs, v));
+            /* Without a predicate on the primary key, an equality predicate on an indexed attribute 
+               lets us read just the matching tuples through the index. */
+            IndexSchema index = null;
+            Predicate index_predicate = null;
+            if(key_predicates.size() == 0) {
+                for(Predicate p : v) {
+                    IndexSchema is = rs.getIndexOn(((TupleAttribute) p.lhs()).position_of_attribute_in_table);
+                    if(p.getOperator() == Predicate.EQ && is != null) {
+                        index = is;
+                        index_predicate = p;
+                        break;
+                    }
+                }
+            }
+
+            ScanOperator so;
+            if(index != null) 
+                so = new IndexScanOperator(rs, v, index, ((Constant) index_predicate.rhs()).o);
+            else
+                so = new ScanOperator(rs, v, key_predicates);
+
+            so.slot = query_relations.indexOf(rs);
+            so.num_slots = query_relations.size();
+            so.estimate();
+            scan_operators.add(so);
         }
     }
 
-    /* Find the scan operator corresponding to a schema. */
-    ScanOperator findScanOperator(BaseRelationSchema rs) {
-        for(ScanOperator so : scan_operators) {
-            if(so.getRelationSchema() == rs) 
-                return so;
+    /* Find the join predicate between two (disjoint) sets of relations, oriented so that its left side refers 
+       to the left set. Returns null if there is none. */
+    Predicate findJoinPredicate(int left_set, int right_set) {
+        for(Predicate p : join_predicates) {
+            int l = 1 << query_relations.indexOf(p.leftRelationSchema());
+            int r = 1 << query_relations.indexOf(p.rightRelationSchema());
+
+            if( ((left_set & l) != 0) && ((right_set & r) != 0) ) 
+                return p;
+            if( ((left_set & r) != 0) && ((right_set & l) != 0) ) 
+                return new Predicate(p.rhs(), p.lhs());
         }
-
-        assert false : "Bug: This shouldn't happen";
         return null;
     }
 
-    /* Check if the Scan corresponding to the RelationSchema is already present in the join_operators. */
-    boolean relationAlreadyContainedInAJoinOperator(BaseRelationSchema rs) {
-        ScanOperator so = findScanOperator(rs);
-
-        for(JoinOperator jo : join_operators) 
-            if( (so == jo.getLeftOperator())  || (so == jo.getRightOperator()) )
-                return true;
-        
-        return false;
-    }
-
-
     /* Create a query plan, the operators etc. */
     boolean plan() {
         construct_scan_operators();
@@ -226,87 +361,161 @@ public class Query {
         if(query_relations.size() == 1) {
             /* It is a single table query. We are essentially done. */
             assert scan_operators.size() == 1;
-            root = scan_operators.get(0);
+            root = completePlan(scan_operators.get(0));
         } else {
-            /* Before creating the join operators, we will first choose an order in which to do the joins.
-               For now, we will use a simple ordering that results in a left-deep plan. 
-               We will start with any join predicate, and create a join operator for that using the Scans.
-               We will then choose some join predicate that does not require a Cartesian product. */
-
             /* Let's first create a Vector containing the join predicates. */
-            Vector<Predicate> join_predicates_remaining = new Vector<Predicate>();
+            join_predicates = new Vector<Predicate>();
             for(Predicate p : query_predicates) 
                 if(p.isJoinPredicate()) 
-                    join_predicates_remaining.add(p);
+                    join_predicates.add(p);
 
-            if(join_predicates_remaining.size() != (scan_operators.size() - 1)) {
+            if(join_predicates.size() != (scan_operators.size() - 1)) {
                 System.out.println("=========> The query is not well formed");
                 return false;
             }
 
-            join_operators = new Vector<JoinOperator>();
-
-            /* We will choose the first join operator arbitrarily. */
-            int num_join_predicates = join_predicates_remaining.size();
+            int n = query_relations.size();
+            int all = (1 << n) - 1;
+            best_plans = new Operator[1 << n];
+            ordered_plans = new Operator[1 << n];
 
-            for(int i = 0; i < num_join_predicates; i++) {
-                if(i == 0) {
-                    /* The first join predicate is used to create the bottommost join operator, with two scans as children. */
-                    Predicate jp = join_predicates_remaining.get(0);
-                    join_predicates_remaining.remove(0);
+            for(int i = 0; i < n; i++) 
+                considerPlan(1 << i, scan_operators.get(i));
 
-                    ScanOperator left = findScanOperator(jp.leftRelationSchema());
-                    ScanOperator right = findScanOperator(jp.rightRelationSchema());
+            for(int size = 2; size <= n; size++) {
+                for(int set = 1; set <= all; set++) {
+                    if(Integer.bitCount(set) != size) 
+                        continue;
 
-                    join_operators.add(JoinOperator.createNewJoinOperator(left, right, jp));
-                } else {
-                    /* Find the first join predicate whose left or right RelationSchema is already present. */
-                    Predicate next_jp = null;
+                    /* Try every split of the set into a (non-empty) left and right part. */
+                    for(int left = (set - 1) & set; left != 0; left = (left - 1) & set) {
+                        int right = set & ~left;
 
-                    for(Predicate jp : join_predicates_remaining) {
+                        if(best_plans[left] == null || best_plans[right] == null) 
+                            continue;
 
-                        boolean leftContained = relationAlreadyContainedInAJoinOperator(jp.leftRelationSchema());
-                        boolean rightContained = relationAlreadyContainedInAJoinOperator(jp.rightRelationSchema());
+                        Predicate jp = findJoinPredicate(left, right);
+                        if(jp == null) 
+                            continue;
 
-                        if(leftContained || rightContained) {
-                            if(leftContained && rightContained) {
-                                System.out.println("=========> Query not well-formed: There is a cycle in the query");
-                                return false;
-                            }
+                        for(JoinOperator jo : JoinOperator.candidateJoinOperators(best_plans[left], best_plans[right], jp)) 
+                            considerPlan(set, jo);
 
-                            /* We have found a valid join predicate. Break. */
-                            next_jp = jp;
-                            break;
-                        }
+                        /* The nested loops joins keep the order of their left input. */
+                        if(ordered_plans[left] != null && ordered_plans[left] != best_plans[left]) 
+                            for(JoinOperator jo : JoinOperator.candidateJoinOperators(ordered_plans[left], best_plans[right], jp)) 
+                                considerPlan(set, jo);
                     }
+                }
+            }
 
-                    if(next_jp == null) {
-                        System.out.println("=========> Query not well-formed: I think the query requires a Cartesian Product.");
-                        return false;
-                    }
+            if(best_plans[all] == null) {
+                System.out.println("=========> Query not well-formed: there is a cycle in the query, or it requires a Cartesian Product.");
+                return false;
+            }
 
-                    join_predicates_remaining.removeElement(next_jp);
+            root = completePlan(best_plans[all]);
 
-                    /* One quirk here is that we may need to swap the two arguments of the join predicate to match the left and right. */
-                    if(relationAlreadyContainedInAJoinOperator(next_jp.rightRelationSchema())) 
-                        next_jp.swap();
+            if(ordered_plans[all] != null && ordered_plans[all] != best_plans[all]) {
+                Operator ordered = completePlan(ordered_plans[all]);
+                if(ordered.estimated_cost < root.estimated_cost) 
+                    root = ordered;
+            }
+        }
 
-                    join_operators.add(JoinOperator.createNewJoinOperator(join_operators.lastElement(), findScanOperator(next_jp.rightRelationSchema()), next_jp));
-                }
+        return true;
+    }
+
+    void considerPlan(int set, Operator op) {
+        op.estimate();
+        if(best_plans[set] == null || op.estimated_cost < best_plans[set].estimated_cost) 
+            best_plans[set] = op;
+        if(order_by_attributes != null && op.isSortedOn(order_by_attributes)) 
+            if(ordered_plans[set] == null || op.estimated_cost < ordered_plans[set].estimated_cost) 
+                ordered_plans[set] = op;
+    }
+
+    /* Add the operators that go on top of the join tree. */
+    Operator completePlan(Operator op) {
+        /* With several cores, the scans and hash joins run in parallel (see ExchangeOperator.parallelize()). Their output 
+           comes in no particular order, so not if we are counting on the order for the ORDER BY. A plain scan below an 
+           aggregation is aggregated in parallel instead (see HashAggregateOperator.parallelize()). */
+        /* With -Dmorsels=true, the plans that a MorselDrivenOperator can run use it instead. It also loses the order, so 
+           only if there is no ORDER BY, or if the projection is going to be sorted anyway. */
+        /* DISTINCT doesn't keep the order once it spills (see ProjectOperator), so with DISTINCT we always sort 
+           after the projection (analyze() made sure we can). */
+        boolean sortedInput = order_by_attributes != null && ! distinct && op.isSortedOn(order_by_attributes);
+
+        morsel_driven = Globals.morselDriven && ! isAggregation() && MorselDrivenOperator.canRun(op) 
+            && (order_by_attributes == null 
+                || (! sortedInput && SortOperator.canSortProjection(order_by_attributes, select_attributes)));
+
+        if(! morsel_driven && ! sortedInput) 
+            if(! isAggregation() || ! (op instanceof ScanOperator)) 
+                op = ExchangeOperator.parallelize(op);
+
+        if(isAggregation()) {
+            HashAggregateOperator agg = new HashAggregateOperator(op, (group_by_attributes == null) ? new Vector<TupleAttribute>() : group_by_attributes, select_attributes, aggregates);
+            agg.estimate();
+            agg.parallelize();
+            op = agg;
+            if(order_by_attributes != null) {
+                op = newSortOperator(op);
+                op.estimate();
             }
+            if(limit != -1) {
+                op = new LimitOperator(op, limit, offset);
+                op.estimate();
+            }
+            return op;
+        }
 
-            /* Finally: we need to set the root to be the very last join operator. */
-            root = join_operators.lastElement();
+        /* ORDER BY: sort after the projection if we can, since the projected tuples are smaller. 
+           No need to sort if the tuples already come in the right order. */
+        if(order_by_attributes == null || sortedInput) {
+            op = newProjectOperator(op);
+        } else if(SortOperator.canSortProjection(order_by_attributes, select_attributes)) {
+            op = newProjectOperator(op);
+            op.estimate();
+            op = newSortOperator(op);
+        } else {
+            op = newSortOperator(op);
+            op.estimate();
+            op = newProjectOperator(op);
         }
+        op.estimate();
 
-        root = new ProjectOperator(root, select_attributes, distinct, order_by_attributes);
+        if(limit != -1) {
+            op = new LimitOperator(op, limit, offset);
+            op.estimate();
+        }
 
-        return true;
+        return op;
+    }
+
+    /* If the plan below is a chain of hash join probes over a scan, the ProjectOperator runs it as a single 
+       fused loop (see PipelineOperator), possibly on several workers at once (see MorselDrivenOperator). */
+    boolean morsel_driven = false;
+
+    ProjectOperator newProjectOperator(Operator child) {
+        if(morsel_driven) 
+            return MorselDrivenOperator.create(child, select_attributes, distinct);
+        return PipelineOperator.create(child, select_attributes, distinct);
+    }
+
+    /* With a LIMIT, we only need the first limit + offset tuples in order. If they fit in memory, a TopNOperator 
+       finds them without sorting everything. (limit + offset may not fit in an int.) */
+    SortOperator newSortOperator(Operator child) {
+        long n = (long) limit + offset;
+        if(limit != -1 && n <= Integer.MAX_VALUE && n * child.estimated_width <= Globals.memoryBudget) 
+            return new TopNOperator(child, order_by_attributes, (int) n);
+        return new SortOperator(child, order_by_attributes);
     }
 
     void print() {
         System.out.println("========================================= Query Plan ========================================");
         root.print();
+        System.out.println(String.format("Estimated cost: %.0f", root.estimated_cost));
         System.out.println("=============================================================================================");
     }
 }
@@ -0,0 +1,237 @@
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.Vector;
+
+/*****************************************************************************************************
+  Compiles the expressions that the operators evaluate on every tuple (join predicates, join keys and
+  projections) into trees of MethodHandles, once the plan is known. (The scan predicates are compiled
+  against the serialized records instead: see RecordFilter.)
+
+  The interpreter (Variable.evaluate() and Predicate.evaluate()) has to find out, for every tuple,
+  what kind of tuple it is looking at, what kind of variable it is evaluating, and which comparison
+  to make. Once the plan is built, all of that is known: a join knows whether each of its inputs
+  produces BaseTuples (a scan) or IntermediateTuples (another join), and every TupleAttribute knows
+  its slot, its type and its typed position. A compiled attribute of an IntermediateTuple is then just
+  "t.baseTuples[slot].ints[typed_position]", and a compiled join predicate compares two of those.
+
+  The shape of the input of an expression is one of:
+    BASE:         BaseTuples.
+    INTERMEDIATE: IntermediateTuples (the slots of the attributes must be known).
+    NONE:         anything else (e.g. the output of a HashAggregateOperator): we don't compile.
+
+  Anything we can't compile is left to the interpreter: compile() and compileJoin() return the original
+  Variable or Predicate, and projection() returns null. Compilation can also be turned off altogether
+  with -Dcompile=false.
+***************************************************************************************************/
+class QueryCompiler {
+    static final int NONE = -1;
+    static final int BASE = 1;
+    static final int INTERMEDIATE = 2;
+
+    static boolean enabled = ! "false".equals(System.getProperty("compile"));
+
+    /* A MethodHandle takes at most 255 arguments. */
+    static final int MAX_ARITY = 250;
+
+    static final MethodHandles.Lookup lookup = MethodHandles.lookup();
+
+    static MethodHandle INTS, STRINGS, BASE_TUPLES, INT_EQUALS, STRING_EQUALS, FLATTEN;
+
+    static {
+        try {
+            INTS = lookup.findGetter(BaseTuple.class, "ints", int[].class);
+            STRINGS = lookup.findGetter(BaseTuple.class, "strings", String[].class);
+            BASE_TUPLES = lookup.findGetter(IntermediateTuple.class, "baseTuples", BaseTuple[].class);
+            STRING_EQUALS = lookup.findVirtual(String.class, "equals", MethodType.methodType(boolean.class, Object.class))
+                                  .asType(MethodType.methodType(boolean.class, String.class, String.class));
+            INT_EQUALS = lookup.findStatic(QueryCompiler.class, "equals", MethodType.methodType(boolean.class, int.class, int.class));
+            FLATTEN = lookup.findStatic(QueryCompiler.class, "flatten", MethodType.methodType(IntermediateFlattenedTuple.class, Object[].class));
+        } catch (Exception e) {
+            e.printStackTrace();
+            System.out.println("=========> Error while setting up the query compiler");
+            System.exit(1);
+        }
+    }
+
+    /* The shape of the tuples produced by an operator. */
+    static int shapeOf(Operator op) {
+        if(op instanceof ScanOperator)
+            return BASE;
+        if(op instanceof JoinOperator)
+            return INTERMEDIATE;
+        if(op instanceof ExchangeOperator)
+            return shapeOfSlot(((ExchangeOperator) op).slot);
+        if(op instanceof SortOperator)
+            return shapeOf(((SortOperator) op).child);
+        if(op instanceof LimitOperator)
+            return shapeOf(((LimitOperator) op).child);
+        return NONE;
+    }
+
+    /* The shape of the input of a join: the join knows the slot of an input that produces BaseTuples (see JoinOperator). */
+    static int shapeOfSlot(int slot) {
+        return (slot == -1) ? INTERMEDIATE : BASE;
+    }
+
+    /* (Tuple)BaseTuple: the base tuple of the relation of the attribute. null if we can't compile it. */
+    static MethodHandle baseTuple(TupleAttribute ta, int shape) {
+        MethodHandle base = MethodHandles.identity(BaseTuple.class).asType(MethodType.methodType(BaseTuple.class, Tuple.class));
+        if(shape == BASE)
+            return base;
+        if(ta.slot == -1)
+            return null;
+
+        MethodHandle slot = MethodHandles.insertArguments(MethodHandles.arrayElementGetter(BaseTuple[].class), 1, ta.slot);
+        return MethodHandles.filterArguments(slot, 0, BASE_TUPLES).asType(MethodType.methodType(BaseTuple.class, Tuple.class));
+    }
+
+    /* (Tuple)int for an INTEGER attribute, (Tuple)String for a STRING attribute. null if we can't compile it. */
+    static MethodHandle getter(TupleAttribute ta, int shape) {
+        if(! enabled || shape == NONE || ta.typed_position == -1)
+            return null;
+
+        MethodHandle base = baseTuple(ta, shape);
+        if(base == null)
+            return null;
+
+        MethodHandle value;
+        if(ta.getAttributeType() == Globals.INTEGER)
+            value = MethodHandles.filterArguments(MethodHandles.insertArguments(MethodHandles.arrayElementGetter(int[].class), 1, ta.typed_position), 0, INTS);
+        else
+            value = MethodHandles.filterArguments(MethodHandles.insertArguments(MethodHandles.arrayElementGetter(String[].class), 1, ta.typed_position), 0, STRINGS);
+        return MethodHandles.filterArguments(value, 0, base);
+    }
+
+    /* A variable that evaluates the same as v on tuples of the given shape. */
+    static Variable compile(Variable v, int shape) {
+        if(! (v instanceof TupleAttribute))
+            return v;
+        MethodHandle getter = getter((TupleAttribute) v, shape);
+        return (getter == null) ? v : new CompiledVariable(v, getter);
+    }
+
+    /* An equality join predicate that evaluates the same as p on a pair of tuples of the given shapes. */
+    static Predicate compileJoin(Predicate p, int leftShape, int rightShape) {
+        MethodHandle left = getter((TupleAttribute) p.lhs(), leftShape);
+        MethodHandle right = getter((TupleAttribute) p.rhs(), rightShape);
+        if(left == null || right == null || left.type().returnType() != right.type().returnType())
+            return p;
+
+        MethodHandle equals = (left.type().returnType() == int.class) ? INT_EQUALS : STRING_EQUALS;
+        return new CompiledPredicate(p, MethodHandles.filterArguments(equals, 0, left, right));
+    }
+
+    /* (Tuple)IntermediateFlattenedTuple: the values of the attributes, boxed, in a new flattened tuple.
+       null if we can't compile it. */
+    static MethodHandle projection(Vector<TupleAttribute> attributes, int shape) {
+        int n = attributes.size();
+        if(n > MAX_ARITY)
+            return null;
+
+        MethodHandle[] getters = new MethodHandle[n];
+        for(int i = 0; i < n; i++) {
+            MethodHandle getter = getter(attributes.get(i), shape);
+            if(getter == null)
+                return null;
+            getters[i] = getter.asType(MethodType.methodType(Object.class, Tuple.class));
+        }
+
+        /* (Object, ..., Object)Object[] applied to (Tuple, ..., Tuple), then all the arguments merged into one. */
+        MethodHandle values = MethodHandles.identity(Object[].class).asCollector(Object[].class, n);
+        values = MethodHandles.filterArguments(values, 0, getters);
+        values = MethodHandles.permuteArguments(values, MethodType.methodType(Object[].class, Tuple.class), new int[n]);
+        return MethodHandles.filterReturnValue(values, FLATTEN);
+    }
+
+    static IntermediateFlattenedTuple project(MethodHandle projection, Tuple t) {
+        try {
+            return (IntermediateFlattenedTuple) projection.invokeExact(t);
+        } catch (Throwable e) {
+            throw failed(e);
+        }
+    }
+
+    static RuntimeException failed(Throwable e) {
+        e.printStackTrace();
+        System.out.println("=========> Error while evaluating a compiled expression");
+        System.exit(1);
+        return null;
+    }
+
+    /* The leaves of the trees. */
+    static IntermediateFlattenedTuple flatten(Object[] values) {
+        return new IntermediateFlattenedTuple(values);
+    }
+
+    static boolean equals(int v1, int v2) {
+        return v1 == v2;
+    }
+}
+
+/* A TupleAttribute, compiled for tuples of a given shape. getter is (Tuple)int or (Tuple)String. */
+class CompiledVariable extends Variable {
+    Variable source;
+    MethodHandle getter;
+    MethodHandle intGetter;
+    MethodHandle stringGetter;
+
+    CompiledVariable(Variable source, MethodHandle getter) {
+        this.source = source;
+        this.getter = getter.asType(MethodType.methodType(Object.class, Tuple.class));
+        if(getter.type().returnType() == int.class)
+            intGetter = getter;
+        else
+            stringGetter = getter;
+    }
+
+    Object evaluate(BaseTuple t) { return evaluate((Tuple) t); }
+    Object evaluate(IntermediateTuple t) { return evaluate((Tuple) t); }
+
+    Object evaluate(Tuple t) {
+        try {
+            return (Object) getter.invokeExact(t);
+        } catch (Throwable e) {
+            throw QueryCompiler.failed(e);
+        }
+    }
+
+    int evaluateInt(Tuple t) {
+        try {
+            return (int) intGetter.invokeExact(t);
+        } catch (Throwable e) {
+            throw QueryCompiler.failed(e);
+        }
+    }
+
+    String evaluateString(Tuple t) {
+        try {
+            return (String) stringGetter.invokeExact(t);
+        } catch (Throwable e) {
+            throw QueryCompiler.failed(e);
+        }
+    }
+
+    public String toString() {
+        return source.toString();
+    }
+}
+
+/* A join predicate compiled for pairs of tuples of given shapes. joinTest is (Tuple, Tuple)boolean. */
+class CompiledPredicate extends Predicate {
+    MethodHandle joinTest;
+
+    CompiledPredicate(Predicate source, MethodHandle joinTest) {
+        super(source.lhs(), source.rhs());
+        setOperator(source.getOperator());
+        this.joinTest = joinTest;
+    }
+
+    boolean evaluate(Tuple t1, Tuple t2) {
+        try {
+            return (boolean) joinTest.invokeExact(t1, t2);
+        } catch (Throwable e) {
+            throw QueryCompiler.failed(e);
+        }
+    }
+}
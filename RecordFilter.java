@@ -0,0 +1,158 @@
+import com.sleepycat.bind.tuple.TupleInput;
+import com.sleepycat.bind.tuple.TupleOutput;
+import com.sleepycat.je.DatabaseEntry;
+
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Vector;
+
+/*****************************************************************************************************
+  The scan predicates of a table, compiled against the serialized form of its records, so that a scan
+  can reject a record without building a BaseTuple (and a String for every STRING attribute) first.
+
+  A record is written by RelationSpecificTupleBinding.objectToEntry() as the attributes in order:
+    INTEGER: 4 bytes, big-endian, with the sign bit flipped (TupleOutput.writeInt()).
+    STRING:  the characters in modified UTF-8, followed by a 0 byte (TupleOutput.writeString()).
+             A null is written as 0xFF 0x00; 0xFF never occurs in modified UTF-8.
+
+  We check the predicates in the order of their attributes, walking over the record once: INTEGER
+  attributes are skipped by their size, and STRING attributes by looking for their terminating 0 byte.
+  The constants of the predicates on STRING attributes are encoded the same way beforehand, and are
+  compared with the bytes of the record:
+    - For equality, the encoding is unique, so the strings are equal iff the bytes are.
+    - For <, <=, >, >=, the unsigned byte order of modified UTF-8 is the order of String.compareTo(),
+      except for the character 0 (written as 0xC0 0x80). If the first difference involves a 0xC0 byte,
+      we decode the string and compare it the normal way.
+  A null STRING satisfies no predicate.
+
+  Predicates that don't fit (none in practice: see Query.analyze()) are kept as residual predicates,
+  to be checked on the decoded tuple.
+***************************************************************************************************/
+class RecordFilter {
+    BaseRelationSchema rs;
+
+    /* The compiled predicates, in the order of the positions of their attributes. */
+    Predicate[] predicates;
+    int[] positions;
+    int[] intConstants;
+    byte[][] stringConstants;
+
+    Vector<Predicate> residual = new Vector<Predicate>();
+
+    RecordFilter(BaseRelationSchema rs, Vector<Predicate> predicates_vector) {
+        this.rs = rs;
+
+        Vector<Predicate> compiled = new Vector<Predicate>();
+        for(Predicate p : predicates_vector) {
+            if(compiles(p))
+                compiled.add(p);
+            else
+                residual.add(p);
+        }
+
+        Collections.sort(compiled, new Comparator<Predicate>() {
+            public int compare(Predicate p1, Predicate p2) {
+                return ((TupleAttribute) p1.lhs()).position_of_attribute_in_table - ((TupleAttribute) p2.lhs()).position_of_attribute_in_table;
+            }
+        });
+
+        int n = compiled.size();
+        predicates = new Predicate[n];
+        positions = new int[n];
+        intConstants = new int[n];
+        stringConstants = new byte[n][];
+
+        for(int i = 0; i < n; i++) {
+            Predicate p = compiled.get(i);
+            Object c = ((Constant) p.rhs()).o;
+
+            predicates[i] = p;
+            positions[i] = ((TupleAttribute) p.lhs()).position_of_attribute_in_table;
+            if(c instanceof Integer) {
+                intConstants[i] = ((Integer) c).intValue();
+            } else {
+                TupleOutput to = new TupleOutput();
+                to.writeString((String) c);
+                stringConstants[i] = to.toByteArray();
+            }
+        }
+    }
+
+    /* A predicate "R.a op constant" on our table, with a constant of the type of the attribute. */
+    boolean compiles(Predicate p) {
+        if(! (p.lhs() instanceof TupleAttribute) || ! (p.rhs() instanceof Constant))
+            return false;
+
+        TupleAttribute ta = (TupleAttribute) p.lhs();
+        Object c = ((Constant) p.rhs()).o;
+        if(ta.getRelationSchema() != rs || ta.position_of_attribute_in_table == -1)
+            return false;
+        if(ta.getAttributeType() == Globals.INTEGER)
+            return c instanceof Integer;
+        return c instanceof String;
+    }
+
+    boolean hasResidual() {
+        return residual.size() != 0;
+    }
+
+    /* Does the record satisfy the compiled predicates ? */
+    boolean matches(DatabaseEntry entry) {
+        byte[] b = entry.getData();
+        int end = entry.getOffset() + entry.getSize();
+        int pos = entry.getOffset();
+        int attribute = 0;
+
+        for(int i = 0; i < predicates.length; i++) {
+            /* Skip to the attribute of the predicate. */
+            for(; attribute < positions[i]; attribute++) {
+                if(rs.getAttributeType(attribute) == Globals.INTEGER) {
+                    pos += 4;
+                } else {
+                    while(b[pos] != 0)
+                        pos++;
+                    pos++;
+                }
+            }
+
+            int comparison;
+            if(stringConstants[i] == null) {
+                int v = (((b[pos] & 0xff) << 24) | ((b[pos + 1] & 0xff) << 16) | ((b[pos + 2] & 0xff) << 8) | (b[pos + 3] & 0xff)) ^ 0x80000000;
+                comparison = (v < intConstants[i]) ? -1 : ((v == intConstants[i]) ? 0 : 1);
+            } else {
+                if((b[pos] & 0xff) == 0xff)
+                    return false;
+                comparison = compareString(b, pos, end, i);
+            }
+
+            if(! predicates[i].satisfies(comparison))
+                return false;
+        }
+        return true;
+    }
+
+    /* Does the decoded tuple satisfy the residual predicates ? */
+    boolean matches(Tuple t) {
+        for(Predicate p : residual) {
+            if(! p.evaluate(t))
+                return false;
+        }
+        return true;
+    }
+
+    /* Compare the string at b[pos] with the constant of the i-th predicate. Both end with a 0 byte. */
+    int compareString(byte[] b, int pos, int end, int i) {
+        byte[] c = stringConstants[i];
+        for(int j = 0; ; j++) {
+            int x = b[pos + j] & 0xff;
+            int y = c[j] & 0xff;
+            if(x != y) {
+                if(x == 0xc0 || y == 0xc0)
+                    return new TupleInput(b, pos, end - pos).readString().compareTo((String) ((Constant) predicates[i].rhs()).o);
+                return x - y;
+            }
+            if(x == 0)
+                return 0;
+        }
+    }
+}
@@ -29,17 +29,37 @@ public class RelationSchema {
     String[] attributeNames;
     int[] attributeTypes;
 
+    /* The attributes of each type are numbered separately (see BaseTuple): typedPositions[i] is the position of 
+       the i-th attribute among the attributes of its type. */
+    int[] typedPositions;
+    int numIntegers = 0;
+    int numStrings = 0;
+
     RelationSchema() {
     }
 
     RelationSchema(int numAttributes) {
         attributeNames = new String[numAttributes];
         attributeTypes = new int[numAttributes];
+        typedPositions = new int[numAttributes];
     }
 
     void setAttribute(int index, String name, int type) {
         attributeNames[index] = name;
         attributeTypes[index] = type;
+
+        numIntegers = 0;
+        numStrings = 0;
+        for(int i = 0; i < attributeTypes.length; i++) {
+            if(attributeTypes[i] == Globals.INTEGER) 
+                typedPositions[i] = numIntegers++;
+            else if(attributeTypes[i] == Globals.STRING) 
+                typedPositions[i] = numStrings++;
+        }
+    }
+
+    int getTypedPosition(int i) {
+        return typedPositions[i];
     }
 
     int getAttributeType(int i) {
@@ -68,6 +88,16 @@ class BaseRelationSchema extends RelationSchema {
     String relationName;
     int primaryKeyPosition = -1;
 
+    /* The secondary indexes on the relation (see IndexSchema.java). */
+    Vector<IndexSchema> indexes = new Vector<IndexSchema>();
+
+    IndexSchema getIndexOn(int position) {
+        for(IndexSchema is : indexes) 
+            if(is.getAttributePosition() == position) 
+                return is;
+        return null;
+    }
+
     /* This is needed for tuple input/output purposes. See Tuple.java for the definition. */
     RelationSpecificTupleBinding binding = null;
 
@@ -17,8 +17,17 @@ public class SQLParser implements SQLParserConstants {
         ps = Parse("SELECT DISTINCT a, b FROM S ORDER BY S.a;");
         ps.print();
 
+        ps = Parse("SELECT a FROM S ORDER BY S.a LIMIT 10 OFFSET 5;");
+        ps.print();
+
+        ps = Parse("SELECT S.a, COUNT(*), SUM(S.b), AVG(b) FROM S WHERE S.b > 3 GROUP BY S.a ORDER BY S.a;");
+        ps.print();
+
         ps = Parse("INSERT INTO S VALUES(1, 2);");
         ps.print();
+
+        ps = Parse("CREATE INDEX S_j ON S(j);");
+        ps.print();
     }
 
     public static ParsedStatement Parse(String s) {
@@ -31,6 +40,14 @@ public class SQLParser implements SQLParserConstants {
             System.out.println(e);
             e.printStackTrace();
             return null;
+        } catch (ParseException e) {
+            /* Errors found by the actions (e.g., ParsedStatement.setLimit()) only have a message. */
+            System.out.println("ParseException... try again");
+            if(e.currentToken == null)
+                System.out.println("=========> " + e.getMessage());
+            else
+                e.printStackTrace();
+            return null;
         } catch (Exception e) {
             System.out.println("ParseException... try again");
             e.printStackTrace();
@@ -38,6 +55,87 @@ public class SQLParser implements SQLParserConstants {
         }
     }
 
+    /* A hand-written scanner for the common case of "INSERT INTO t VALUES (v1, ..., vn);", used when bulk 
+       loading (setting up the generated parser for every line costs far more than the insert itself). 
+       Accepts the statements that the InsertValuesStatement production accepts, with plain integers as 
+       numbers; returns null for anything else, so that the caller can fall back to Parse(). */
+    public static ParsedStatement ParseInsert(String s) {
+        int n = s.length();
+        int i = skipKeyword(s, skipSpaces(s, 0), "INSERT");
+        if(i < 0)
+            return null;
+        i = skipKeyword(s, skipSpaces(s, i), "INTO");
+        if(i < 0)
+            return null;
+        i = skipSpaces(s, i);
+
+        int start = i;
+        while(i < n && isIdChar(s.charAt(i)))
+            i++;
+        if(i == start || Character.isDigit(s.charAt(start)))
+            return null;
+        String tableName = s.substring(start, i);
+
+        i = skipKeyword(s, skipSpaces(s, i), "VALUES");
+        if(i < 0)
+            return null;
+        i = skipSpaces(s, i);
+        if(i == n || s.charAt(i) != '(')
+            return null;
+
+        ParsedStatement ps = new ParsedStatement();
+        do {
+            i = skipSpaces(s, i + 1);
+            if(i == n)
+                return null;
+            start = i;
+            if(s.charAt(i) == '\u005c'') {
+                // Same as the TEXT token: anything up to the closing quote.
+                i = s.indexOf('\u005c'', i + 1);
+                if(i < 0)
+                    return null;
+                i++;
+                ps.addStringAttributeValue(s.substring(start, i));
+            } else {
+                while(i < n && s.charAt(i) >= '0' && s.charAt(i) <= '9')
+                    i++;
+                if(i == start || i - start > 9)
+                    return null;
+                ps.addNumberAttributeValue(s.substring(start, i));
+            }
+            i = skipSpaces(s, i);
+        } while(i < n && s.charAt(i) == ',');
+
+        if(i == n || s.charAt(i) != ')')
+            return null;
+        i = skipSpaces(s, i + 1);
+        if(i == n || s.charAt(i) != ';')
+            return null;
+        if(skipSpaces(s, i + 1) != n)
+            return null;
+
+        ps.initInsertValues(tableName);
+        return ps;
+    }
+
+    /* Returns the position after the keyword, or -1 if it is not there (on its own). */
+    static int skipKeyword(String s, int i, String keyword) {
+        int end = i + keyword.length();
+        if(!s.regionMatches(true, i, keyword, 0, keyword.length()) || (end < s.length() && isIdChar(s.charAt(end))))
+            return -1;
+        return end;
+    }
+
+    static int skipSpaces(String s, int i) {
+        while(i < s.length() && (s.charAt(i) == ' ' || s.charAt(i) == '\u005ct' || s.charAt(i) == '\u005cn' || s.charAt(i) == '\u005cr'))
+            i++;
+        return i;
+    }
+
+    static boolean isIdChar(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '_';
+    }
+
   final public void Input(ParsedStatement ps) throws ParseException {
     if (jj_2_1(3)) {
       CreateTableStatement(ps);
@@ -51,18 +149,45 @@ public class SQLParser implements SQLParserConstants {
     } else if (jj_2_4(3)) {
       DropTableStatement(ps);
       jj_consume_token(0);
+    } else if (jj_2_5(3)) {
+      CreateIndexStatement(ps);
+      jj_consume_token(0);
+    } else if (jj_2_6(3)) {
+      AnalyzeStatement(ps);
+      jj_consume_token(0);
+    } else if (jj_2_7(3)) {
+      CopyStatement(ps);
+      jj_consume_token(0);
     } else {
       jj_consume_token(-1);
       throw new ParseException();
     }
   }
 
+  final public void CopyStatement(ParsedStatement ps) throws ParseException {
+    Token t1, t2;
+    jj_consume_token(COPY);
+    t1 = jj_consume_token(ID);
+    jj_consume_token(FROM);
+    t2 = jj_consume_token(TEXT);
+    jj_consume_token(36);
+      ps.initCopy(t1.image, t2.image.substring(1, t2.image.length() - 1));
+  }
+
+  final public void AnalyzeStatement(ParsedStatement ps) throws ParseException {
+    Token t;
+    jj_consume_token(ANALYZE);
+    t = jj_consume_token(ID);
+    jj_consume_token(36);
+      ps.initAnalyze(t.image);
+  }
+
   final public void DropTableStatement(ParsedStatement ps) throws ParseException {
     Token t;
     jj_consume_token(DROP);
     jj_consume_token(TABLE);
     t = jj_consume_token(ID);
-    jj_consume_token(24);
+    jj_consume_token(36);
       ps.initDropTable(t.image);
   }
 
@@ -71,25 +196,39 @@ public class SQLParser implements SQLParserConstants {
     jj_consume_token(CREATE);
     jj_consume_token(TABLE);
     t = jj_consume_token(ID);
-    jj_consume_token(25);
+    jj_consume_token(37);
     TableAttribute(ps, true);
     jj_consume_token(PRIMARY);
     jj_consume_token(KEY);
     label_1:
     while (true) {
-      if (jj_2_5(3)) {
+      if (jj_2_8(3)) {
         ;
       } else {
         break label_1;
       }
-      jj_consume_token(26);
+      jj_consume_token(38);
       TableAttribute(ps, false);
     }
-    jj_consume_token(27);
-    jj_consume_token(24);
+    jj_consume_token(39);
+    jj_consume_token(36);
       ps.initCreateTable(t.image);
   }
 
+  final public void CreateIndexStatement(ParsedStatement ps) throws ParseException {
+    Token t1, t2, t3;
+    jj_consume_token(CREATE);
+    jj_consume_token(INDEX);
+    t1 = jj_consume_token(ID);
+    jj_consume_token(ON);
+    t2 = jj_consume_token(ID);
+    jj_consume_token(37);
+    t3 = jj_consume_token(ID);
+    jj_consume_token(39);
+    jj_consume_token(36);
+      ps.initCreateIndex(t1.image, t2.image, t3.image);
+  }
+
   final public void TableAttribute(ParsedStatement ps, boolean isprimarykey) throws ParseException {
     Token t1, t2;
     t1 = jj_consume_token(ID);
@@ -103,29 +242,29 @@ public class SQLParser implements SQLParserConstants {
     jj_consume_token(INTO);
     t = jj_consume_token(ID);
     jj_consume_token(VALUES);
-    jj_consume_token(25);
+    jj_consume_token(37);
     AttributeValue(ps);
     label_2:
     while (true) {
-      if (jj_2_6(3)) {
+      if (jj_2_9(3)) {
         ;
       } else {
         break label_2;
       }
-      jj_consume_token(26);
+      jj_consume_token(38);
       AttributeValue(ps);
     }
-    jj_consume_token(27);
-    jj_consume_token(24);
+    jj_consume_token(39);
+    jj_consume_token(36);
       ps.initInsertValues(t.image);
   }
 
   final public void AttributeValue(ParsedStatement ps) throws ParseException {
     Token t;
-    if (jj_2_7(3)) {
+    if (jj_2_10(3)) {
       t = jj_consume_token(TEXT);
         ps.addStringAttributeValue(t.image);
-    } else if (jj_2_8(3)) {
+    } else if (jj_2_11(3)) {
       t = jj_consume_token(NUM);
         ps.addNumberAttributeValue(t.image);
     } else {
@@ -135,13 +274,13 @@ public class SQLParser implements SQLParserConstants {
   }
 
   final public void QueryStatement(ParsedStatement ps) throws ParseException {
-    if (jj_2_9(3)) {
+    if (jj_2_12(3)) {
       jj_consume_token(SELECT);
       SelectClause(ps);
       FromList(ps);
       WhereOrderByClause(ps);
       ps.initQuery();
-    } else if (jj_2_10(3)) {
+    } else if (jj_2_13(3)) {
       jj_consume_token(SELECT);
       jj_consume_token(DISTINCT);
       SelectClause(ps);
@@ -155,14 +294,12 @@ public class SQLParser implements SQLParserConstants {
   }
 
   final public void WhereOrderByClause(ParsedStatement ps) throws ParseException {
-    if (jj_2_12(3)) {
-      jj_consume_token(24);
-    } else if (jj_2_13(3)) {
+    if (jj_2_15(3)) {
       jj_consume_token(WHERE);
       Predicate(ps);
       label_3:
       while (true) {
-        if (jj_2_11(3)) {
+        if (jj_2_14(3)) {
           ;
         } else {
           break label_3;
@@ -170,8 +307,32 @@ public class SQLParser implements SQLParserConstants {
         jj_consume_token(AND);
         Predicate(ps);
       }
+      GroupByClause(ps);
+    } else if (jj_2_16(3)) {
+      GroupByClause(ps);
+    } else {
+      jj_consume_token(-1);
+      throw new ParseException();
+    }
+  }
+
+  final public void GroupByClause(ParsedStatement ps) throws ParseException {
+    if (jj_2_18(3)) {
       OrderByClause(ps);
-    } else if (jj_2_14(3)) {
+    } else if (jj_2_19(3)) {
+      jj_consume_token(GROUP);
+      jj_consume_token(BY);
+      GroupByTupleAttribute(ps);
+      label_4:
+      while (true) {
+        if (jj_2_17(3)) {
+          ;
+        } else {
+          break label_4;
+        }
+        jj_consume_token(38);
+        GroupByTupleAttribute(ps);
+      }
       OrderByClause(ps);
     } else {
       jj_consume_token(-1);
@@ -180,20 +341,80 @@ public class SQLParser implements SQLParserConstants {
   }
 
   final public void SelectClause(ParsedStatement ps) throws ParseException {
-    if (jj_2_16(3)) {
-      SelectTupleAttribute(ps);
-      label_4:
+    if (jj_2_21(3)) {
+      SelectItem(ps);
+      label_5:
       while (true) {
-        if (jj_2_15(3)) {
+        if (jj_2_20(3)) {
           ;
         } else {
-          break label_4;
+          break label_5;
         }
-        jj_consume_token(26);
-        SelectTupleAttribute(ps);
+        jj_consume_token(38);
+        SelectItem(ps);
+      }
+    } else if (jj_2_22(3)) {
+      jj_consume_token(40);
+    } else {
+      jj_consume_token(-1);
+      throw new ParseException();
+    }
+  }
+
+  final public void SelectItem(ParsedStatement ps) throws ParseException {
+    if (jj_2_23(3)) {
+      SelectTupleAttribute(ps);
+    } else if (jj_2_24(3)) {
+      SelectAggregate(ps);
+    } else {
+      jj_consume_token(-1);
+      throw new ParseException();
+    }
+  }
+
+  final public void SelectAggregate(ParsedStatement ps) throws ParseException {
+    Token t1, t2;
+    int function;
+    if (jj_2_32(3)) {
+      jj_consume_token(COUNT);
+      jj_consume_token(37);
+      jj_consume_token(40);
+      jj_consume_token(39);
+        ps.addAggregate(new Aggregate(Aggregate.COUNT, null));
+    } else if (jj_2_33(3)) {
+      if (jj_2_25(3)) {
+        jj_consume_token(COUNT);
+                function = Aggregate.COUNT;
+      } else if (jj_2_26(3)) {
+        jj_consume_token(SUM);
+                                                        function = Aggregate.SUM;
+      } else if (jj_2_27(3)) {
+        jj_consume_token(MIN);
+                                                                                              function = Aggregate.MIN;
+      } else if (jj_2_28(3)) {
+        jj_consume_token(MAX);
+                  function = Aggregate.MAX;
+      } else if (jj_2_29(3)) {
+        jj_consume_token(AVG);
+                                                        function = Aggregate.AVG;
+      } else {
+        jj_consume_token(-1);
+        throw new ParseException();
+      }
+      jj_consume_token(37);
+      if (jj_2_30(2)) {
+        t1 = jj_consume_token(ID);
+        jj_consume_token(DOT);
+        t2 = jj_consume_token(ID);
+          ps.addAggregate(new Aggregate(function, new TupleAttribute(t1.image, t2.image)));
+      } else if (jj_2_31(3)) {
+        t2 = jj_consume_token(ID);
+          ps.addAggregate(new Aggregate(function, new TupleAttribute(null, t2.image)));
+      } else {
+        jj_consume_token(-1);
+        throw new ParseException();
       }
-    } else if (jj_2_17(3)) {
-      jj_consume_token(28);
+      jj_consume_token(39);
     } else {
       jj_consume_token(-1);
       throw new ParseException();
@@ -203,36 +424,58 @@ public class SQLParser implements SQLParserConstants {
   final public void FromList(ParsedStatement ps) throws ParseException {
     jj_consume_token(FROM);
     TableName(ps);
-    label_5:
+    label_6:
     while (true) {
-      if (jj_2_18(3)) {
+      if (jj_2_34(3)) {
         ;
       } else {
-        break label_5;
+        break label_6;
       }
-      jj_consume_token(26);
+      jj_consume_token(38);
       TableName(ps);
     }
   }
 
   final public void OrderByClause(ParsedStatement ps) throws ParseException {
-    if (jj_2_20(3)) {
-      jj_consume_token(24);
-    } else if (jj_2_21(3)) {
+    if (jj_2_36(3)) {
+      LimitClause(ps);
+    } else if (jj_2_37(3)) {
       jj_consume_token(ORDER);
       jj_consume_token(BY);
       OrderByTupleAttribute(ps);
-      label_6:
+      label_7:
       while (true) {
-        if (jj_2_19(3)) {
+        if (jj_2_35(3)) {
           ;
         } else {
-          break label_6;
+          break label_7;
         }
-        jj_consume_token(26);
+        jj_consume_token(38);
         OrderByTupleAttribute(ps);
       }
-      jj_consume_token(24);
+      LimitClause(ps);
+    } else {
+      jj_consume_token(-1);
+      throw new ParseException();
+    }
+  }
+
+  final public void LimitClause(ParsedStatement ps) throws ParseException {
+    Token t1, t2;
+    if (jj_2_38(3)) {
+      jj_consume_token(36);
+    } else if (jj_2_39(3)) {
+      jj_consume_token(LIMIT);
+      t1 = jj_consume_token(NUM);
+      jj_consume_token(36);
+        ps.setLimit(t1.image, null);
+    } else if (jj_2_40(3)) {
+      jj_consume_token(LIMIT);
+      t1 = jj_consume_token(NUM);
+      jj_consume_token(OFFSET);
+      t2 = jj_consume_token(NUM);
+      jj_consume_token(36);
+        ps.setLimit(t1.image, t2.image);
     } else {
       jj_consume_token(-1);
       throw new ParseException();
@@ -249,19 +492,41 @@ public class SQLParser implements SQLParserConstants {
     Token t1, t2, t3, t4;
     Predicate pr = new Predicate();
     TupleAttribute(ps, pr);
-    jj_consume_token(29);
+    ComparisonOperator(pr);
     RHS(ps, pr);
         ps.addPredicate(pr);
   }
 
+  final public void ComparisonOperator(Predicate pr) throws ParseException {
+    if (jj_2_41(3)) {
+      jj_consume_token(41);
+        pr.setOperator(Predicate.EQ);
+    } else if (jj_2_42(3)) {
+      jj_consume_token(42);
+        pr.setOperator(Predicate.LE);
+    } else if (jj_2_43(3)) {
+      jj_consume_token(43);
+        pr.setOperator(Predicate.GE);
+    } else if (jj_2_44(3)) {
+      jj_consume_token(44);
+        pr.setOperator(Predicate.LT);
+    } else if (jj_2_45(3)) {
+      jj_consume_token(45);
+        pr.setOperator(Predicate.GT);
+    } else {
+      jj_consume_token(-1);
+      throw new ParseException();
+    }
+  }
+
   final public void RHS(ParsedStatement ps, Predicate pr) throws ParseException {
     Token t1, t2;
-    if (jj_2_22(3)) {
+    if (jj_2_46(3)) {
       TupleAttribute(ps, pr);
-    } else if (jj_2_23(3)) {
+    } else if (jj_2_47(3)) {
       t1 = jj_consume_token(TEXT);
         pr.addVariable(new Constant(t1.image));
-    } else if (jj_2_24(3)) {
+    } else if (jj_2_48(3)) {
       t1 = jj_consume_token(NUM);
         pr.addVariable(new Constant(new Integer(t1.image)));
     } else {
@@ -272,12 +537,12 @@ public class SQLParser implements SQLParserConstants {
 
   final public void TupleAttribute(ParsedStatement ps, Predicate pr) throws ParseException {
     Token t1, t2;
-    if (jj_2_25(3)) {
+    if (jj_2_49(3)) {
       t1 = jj_consume_token(ID);
       jj_consume_token(DOT);
       t2 = jj_consume_token(ID);
         pr.addVariable(new TupleAttribute(t1.image, t2.image));
-    } else if (jj_2_26(3)) {
+    } else if (jj_2_50(3)) {
       t2 = jj_consume_token(ID);
         pr.addVariable(new TupleAttribute(null, t2.image));
     } else {
@@ -288,12 +553,12 @@ public class SQLParser implements SQLParserConstants {
 
   final public void SelectTupleAttribute(ParsedStatement ps) throws ParseException {
     Token t1, t2;
-    if (jj_2_27(4)) {
+    if (jj_2_51(4)) {
       t1 = jj_consume_token(ID);
       jj_consume_token(DOT);
       t2 = jj_consume_token(ID);
         ps.addSelectVariable(new TupleAttribute(t1.image, t2.image));
-    } else if (jj_2_28(3)) {
+    } else if (jj_2_52(3)) {
       t2 = jj_consume_token(ID);
         ps.addSelectVariable(new TupleAttribute(null, t2.image));
     } else {
@@ -302,14 +567,30 @@ public class SQLParser implements SQLParserConstants {
     }
   }
 
+  final public void GroupByTupleAttribute(ParsedStatement ps) throws ParseException {
+    Token t1, t2;
+    if (jj_2_53(4)) {
+      t1 = jj_consume_token(ID);
+      jj_consume_token(DOT);
+      t2 = jj_consume_token(ID);
+        ps.addGroupByAttribute(new TupleAttribute(t1.image, t2.image));
+    } else if (jj_2_54(3)) {
+      t2 = jj_consume_token(ID);
+        ps.addGroupByAttribute(new TupleAttribute(null, t2.image));
+    } else {
+      jj_consume_token(-1);
+      throw new ParseException();
+    }
+  }
+
   final public void OrderByTupleAttribute(ParsedStatement ps) throws ParseException {
     Token t1, t2;
-    if (jj_2_29(4)) {
+    if (jj_2_55(4)) {
       t1 = jj_consume_token(ID);
       jj_consume_token(DOT);
       t2 = jj_consume_token(ID);
         ps.addOrderByAttribute(new TupleAttribute(t1.image, t2.image));
-    } else if (jj_2_30(3)) {
+    } else if (jj_2_56(3)) {
       t2 = jj_consume_token(ID);
         ps.addOrderByAttribute(new TupleAttribute(null, t2.image));
     } else {
@@ -528,293 +809,730 @@ public class SQLParser implements SQLParserConstants {
     finally { jj_save(29, xla); }
   }
 
-  private boolean jj_3_26() {
-    if (jj_scan_token(ID)) return true;
-    return false;
+  private boolean jj_2_31(int xla) {
+    jj_la = xla; jj_lastpos = jj_scanpos = token;
+    try { return !jj_3_31(); }
+    catch(LookaheadSuccess ls) { return true; }
+    finally { jj_save(30, xla); }
   }
 
-  private boolean jj_3_10() {
-    if (jj_scan_token(SELECT)) return true;
-    if (jj_scan_token(DISTINCT)) return true;
-    if (jj_3R_13()) return true;
-    return false;
+  private boolean jj_2_32(int xla) {
+    jj_la = xla; jj_lastpos = jj_scanpos = token;
+    try { return !jj_3_32(); }
+    catch(LookaheadSuccess ls) { return true; }
+    finally { jj_save(31, xla); }
   }
 
-  private boolean jj_3R_20() {
-    Token xsp;
-    xsp = jj_scanpos;
-    if (jj_3_25()) {
-    jj_scanpos = xsp;
-    if (jj_3_26()) return true;
-    }
-    return false;
+  private boolean jj_2_33(int xla) {
+    jj_la = xla; jj_lastpos = jj_scanpos = token;
+    try { return !jj_3_33(); }
+    catch(LookaheadSuccess ls) { return true; }
+    finally { jj_save(32, xla); }
   }
 
-  private boolean jj_3_25() {
-    if (jj_scan_token(ID)) return true;
-    if (jj_scan_token(DOT)) return true;
-    if (jj_scan_token(ID)) return true;
-    return false;
+  private boolean jj_2_34(int xla) {
+    jj_la = xla; jj_lastpos = jj_scanpos = token;
+    try { return !jj_3_34(); }
+    catch(LookaheadSuccess ls) { return true; }
+    finally { jj_save(33, xla); }
   }
 
-  private boolean jj_3_9() {
-    if (jj_scan_token(SELECT)) return true;
-    if (jj_3R_13()) return true;
-    if (jj_3R_14()) return true;
-    return false;
+  private boolean jj_2_35(int xla) {
+    jj_la = xla; jj_lastpos = jj_scanpos = token;
+    try { return !jj_3_35(); }
+    catch(LookaheadSuccess ls) { return true; }
+    finally { jj_save(34, xla); }
   }
 
-  private boolean jj_3R_9() {
-    Token xsp;
-    xsp = jj_scanpos;
-    if (jj_3_9()) {
-    jj_scanpos = xsp;
-    if (jj_3_10()) return true;
-    }
-    return false;
+  private boolean jj_2_36(int xla) {
+    jj_la = xla; jj_lastpos = jj_scanpos = token;
+    try { return !jj_3_36(); }
+    catch(LookaheadSuccess ls) { return true; }
+    finally { jj_save(35, xla); }
   }
 
-  private boolean jj_3_8() {
-    if (jj_scan_token(NUM)) return true;
-    return false;
+  private boolean jj_2_37(int xla) {
+    jj_la = xla; jj_lastpos = jj_scanpos = token;
+    try { return !jj_3_37(); }
+    catch(LookaheadSuccess ls) { return true; }
+    finally { jj_save(36, xla); }
   }
 
-  private boolean jj_3_19() {
-    if (jj_scan_token(26)) return true;
-    if (jj_3R_19()) return true;
-    return false;
+  private boolean jj_2_38(int xla) {
+    jj_la = xla; jj_lastpos = jj_scanpos = token;
+    try { return !jj_3_38(); }
+    catch(LookaheadSuccess ls) { return true; }
+    finally { jj_save(37, xla); }
   }
 
-  private boolean jj_3_24() {
-    if (jj_scan_token(NUM)) return true;
-    return false;
+  private boolean jj_2_39(int xla) {
+    jj_la = xla; jj_lastpos = jj_scanpos = token;
+    try { return !jj_3_39(); }
+    catch(LookaheadSuccess ls) { return true; }
+    finally { jj_save(38, xla); }
   }
 
-  private boolean jj_3R_12() {
-    Token xsp;
-    xsp = jj_scanpos;
-    if (jj_3_7()) {
-    jj_scanpos = xsp;
-    if (jj_3_8()) return true;
-    }
-    return false;
+  private boolean jj_2_40(int xla) {
+    jj_la = xla; jj_lastpos = jj_scanpos = token;
+    try { return !jj_3_40(); }
+    catch(LookaheadSuccess ls) { return true; }
+    finally { jj_save(39, xla); }
   }
 
-  private boolean jj_3_7() {
-    if (jj_scan_token(TEXT)) return true;
-    return false;
+  private boolean jj_2_41(int xla) {
+    jj_la = xla; jj_lastpos = jj_scanpos = token;
+    try { return !jj_3_41(); }
+    catch(LookaheadSuccess ls) { return true; }
+    finally { jj_save(40, xla); }
   }
 
-  private boolean jj_3_23() {
-    if (jj_scan_token(TEXT)) return true;
-    return false;
+  private boolean jj_2_42(int xla) {
+    jj_la = xla; jj_lastpos = jj_scanpos = token;
+    try { return !jj_3_42(); }
+    catch(LookaheadSuccess ls) { return true; }
+    finally { jj_save(41, xla); }
   }
 
-  private boolean jj_3_22() {
-    if (jj_3R_20()) return true;
-    return false;
+  private boolean jj_2_43(int xla) {
+    jj_la = xla; jj_lastpos = jj_scanpos = token;
+    try { return !jj_3_43(); }
+    catch(LookaheadSuccess ls) { return true; }
+    finally { jj_save(42, xla); }
   }
 
-  private boolean jj_3R_8() {
-    if (jj_scan_token(INSERT)) return true;
-    if (jj_scan_token(INTO)) return true;
-    if (jj_scan_token(ID)) return true;
-    return false;
+  private boolean jj_2_44(int xla) {
+    jj_la = xla; jj_lastpos = jj_scanpos = token;
+    try { return !jj_3_44(); }
+    catch(LookaheadSuccess ls) { return true; }
+    finally { jj_save(43, xla); }
   }
 
-  private boolean jj_3R_15() {
-    if (jj_3R_20()) return true;
-    if (jj_scan_token(29)) return true;
-    return false;
+  private boolean jj_2_45(int xla) {
+    jj_la = xla; jj_lastpos = jj_scanpos = token;
+    try { return !jj_3_45(); }
+    catch(LookaheadSuccess ls) { return true; }
+    finally { jj_save(44, xla); }
   }
 
-  private boolean jj_3R_11() {
-    if (jj_scan_token(ID)) return true;
-    if (jj_scan_token(ID)) return true;
-    return false;
+  private boolean jj_2_46(int xla) {
+    jj_la = xla; jj_lastpos = jj_scanpos = token;
+    try { return !jj_3_46(); }
+    catch(LookaheadSuccess ls) { return true; }
+    finally { jj_save(45, xla); }
   }
 
-  private boolean jj_3_18() {
-    if (jj_scan_token(26)) return true;
-    if (jj_3R_18()) return true;
-    return false;
+  private boolean jj_2_47(int xla) {
+    jj_la = xla; jj_lastpos = jj_scanpos = token;
+    try { return !jj_3_47(); }
+    catch(LookaheadSuccess ls) { return true; }
+    finally { jj_save(46, xla); }
   }
 
-  private boolean jj_3R_18() {
-    if (jj_scan_token(ID)) return true;
-    return false;
+  private boolean jj_2_48(int xla) {
+    jj_la = xla; jj_lastpos = jj_scanpos = token;
+    try { return !jj_3_48(); }
+    catch(LookaheadSuccess ls) { return true; }
+    finally { jj_save(47, xla); }
   }
 
-  private boolean jj_3_15() {
-    if (jj_scan_token(26)) return true;
-    if (jj_3R_17()) return true;
-    return false;
+  private boolean jj_2_49(int xla) {
+    jj_la = xla; jj_lastpos = jj_scanpos = token;
+    try { return !jj_3_49(); }
+    catch(LookaheadSuccess ls) { return true; }
+    finally { jj_save(48, xla); }
   }
 
-  private boolean jj_3R_7() {
-    if (jj_scan_token(CREATE)) return true;
-    if (jj_scan_token(TABLE)) return true;
-    if (jj_scan_token(ID)) return true;
-    return false;
+  private boolean jj_2_50(int xla) {
+    jj_la = xla; jj_lastpos = jj_scanpos = token;
+    try { return !jj_3_50(); }
+    catch(LookaheadSuccess ls) { return true; }
+    finally { jj_save(49, xla); }
   }
 
-  private boolean jj_3_21() {
-    if (jj_scan_token(ORDER)) return true;
-    if (jj_scan_token(BY)) return true;
-    if (jj_3R_19()) return true;
-    return false;
+  private boolean jj_2_51(int xla) {
+    jj_la = xla; jj_lastpos = jj_scanpos = token;
+    try { return !jj_3_51(); }
+    catch(LookaheadSuccess ls) { return true; }
+    finally { jj_save(50, xla); }
   }
 
-  private boolean jj_3R_16() {
-    Token xsp;
-    xsp = jj_scanpos;
-    if (jj_3_20()) {
-    jj_scanpos = xsp;
-    if (jj_3_21()) return true;
-    }
-    return false;
+  private boolean jj_2_52(int xla) {
+    jj_la = xla; jj_lastpos = jj_scanpos = token;
+    try { return !jj_3_52(); }
+    catch(LookaheadSuccess ls) { return true; }
+    finally { jj_save(51, xla); }
   }
 
-  private boolean jj_3_20() {
-    if (jj_scan_token(24)) return true;
-    return false;
+  private boolean jj_2_53(int xla) {
+    jj_la = xla; jj_lastpos = jj_scanpos = token;
+    try { return !jj_3_53(); }
+    catch(LookaheadSuccess ls) { return true; }
+    finally { jj_save(52, xla); }
   }
 
-  private boolean jj_3_11() {
-    if (jj_scan_token(AND)) return true;
-    if (jj_3R_15()) return true;
+  private boolean jj_2_54(int xla) {
+    jj_la = xla; jj_lastpos = jj_scanpos = token;
+    try { return !jj_3_54(); }
+    catch(LookaheadSuccess ls) { return true; }
+    finally { jj_save(53, xla); }
+  }
+
+  private boolean jj_2_55(int xla) {
+    jj_la = xla; jj_lastpos = jj_scanpos = token;
+    try { return !jj_3_55(); }
+    catch(LookaheadSuccess ls) { return true; }
+    finally { jj_save(54, xla); }
+  }
+
+  private boolean jj_2_56(int xla) {
+    jj_la = xla; jj_lastpos = jj_scanpos = token;
+    try { return !jj_3_56(); }
+    catch(LookaheadSuccess ls) { return true; }
+    finally { jj_save(55, xla); }
+  }
+
+  private boolean jj_3_54() {
+    if (jj_scan_token(ID)) return true;
     return false;
   }
 
-  private boolean jj_3_30() {
+  private boolean jj_3_21() {
+    if (jj_3R_23()) return true;
+    Token xsp;
+    while (true) {
+      xsp = jj_scanpos;
+      if (jj_3_20()) { jj_scanpos = xsp; break; }
+    }
+    return false;
+  }
+
+  private boolean jj_3R_17() {
+    Token xsp;
+    xsp = jj_scanpos;
+    if (jj_3_21()) {
+    jj_scanpos = xsp;
+    if (jj_3_22()) return true;
+    }
+    return false;
+  }
+
+  private boolean jj_3_9() {
+    if (jj_scan_token(38)) return true;
+    if (jj_3R_16()) return true;
+    return false;
+  }
+
+  private boolean jj_3_53() {
+    if (jj_scan_token(ID)) return true;
+    if (jj_scan_token(DOT)) return true;
     if (jj_scan_token(ID)) return true;
     return false;
   }
 
-  private boolean jj_3R_14() {
-    if (jj_scan_token(FROM)) return true;
+  private boolean jj_3R_21() {
+    Token xsp;
+    xsp = jj_scanpos;
+    if (jj_3_53()) {
+    jj_scanpos = xsp;
+    if (jj_3_54()) return true;
+    }
     return false;
   }
 
-  private boolean jj_3R_10() {
-    if (jj_scan_token(DROP)) return true;
-    if (jj_scan_token(TABLE)) return true;
+  private boolean jj_3_19() {
+    if (jj_scan_token(GROUP)) return true;
+    if (jj_scan_token(BY)) return true;
+    if (jj_3R_21()) return true;
+    return false;
+  }
+
+  private boolean jj_3_18() {
+    if (jj_3R_22()) return true;
+    return false;
+  }
+
+  private boolean jj_3R_20() {
+    Token xsp;
+    xsp = jj_scanpos;
+    if (jj_3_18()) {
+    jj_scanpos = xsp;
+    if (jj_3_19()) return true;
+    }
+    return false;
+  }
+
+  private boolean jj_3_52() {
     if (jj_scan_token(ID)) return true;
     return false;
   }
 
-  private boolean jj_3R_19() {
+  private boolean jj_3_16() {
+    if (jj_3R_20()) return true;
+    return false;
+  }
+
+  private boolean jj_3_15() {
+    if (jj_scan_token(WHERE)) return true;
+    if (jj_3R_19()) return true;
+    return false;
+  }
+
+  private boolean jj_3R_24() {
     Token xsp;
     xsp = jj_scanpos;
-    if (jj_3_29()) {
+    if (jj_3_51()) {
     jj_scanpos = xsp;
-    if (jj_3_30()) return true;
+    if (jj_3_52()) return true;
     }
     return false;
   }
 
-  private boolean jj_3_29() {
+  private boolean jj_3_51() {
     if (jj_scan_token(ID)) return true;
     if (jj_scan_token(DOT)) return true;
     if (jj_scan_token(ID)) return true;
     return false;
   }
 
-  private boolean jj_3_17() {
-    if (jj_scan_token(28)) return true;
+  private boolean jj_3_8() {
+    if (jj_scan_token(38)) return true;
+    if (jj_3R_15()) return true;
     return false;
   }
 
-  private boolean jj_3_6() {
-    if (jj_scan_token(26)) return true;
-    if (jj_3R_12()) return true;
+  private boolean jj_3_13() {
+    if (jj_scan_token(SELECT)) return true;
+    if (jj_scan_token(DISTINCT)) return true;
+    if (jj_3R_17()) return true;
+    return false;
+  }
+
+  private boolean jj_3_50() {
+    if (jj_scan_token(ID)) return true;
+    return false;
+  }
+
+  private boolean jj_3_12() {
+    if (jj_scan_token(SELECT)) return true;
+    if (jj_3R_17()) return true;
+    if (jj_3R_18()) return true;
+    return false;
+  }
+
+  private boolean jj_3R_10() {
+    Token xsp;
+    xsp = jj_scanpos;
+    if (jj_3_12()) {
+    jj_scanpos = xsp;
+    if (jj_3_13()) return true;
+    }
+    return false;
+  }
+
+  private boolean jj_3R_29() {
+    Token xsp;
+    xsp = jj_scanpos;
+    if (jj_3_49()) {
+    jj_scanpos = xsp;
+    if (jj_3_50()) return true;
+    }
+    return false;
+  }
+
+  private boolean jj_3_49() {
+    if (jj_scan_token(ID)) return true;
+    if (jj_scan_token(DOT)) return true;
+    if (jj_scan_token(ID)) return true;
+    return false;
+  }
+
+  private boolean jj_3_11() {
+    if (jj_scan_token(NUM)) return true;
+    return false;
+  }
+
+  private boolean jj_3_10() {
+    if (jj_scan_token(TEXT)) return true;
+    return false;
+  }
+
+  private boolean jj_3R_16() {
+    Token xsp;
+    xsp = jj_scanpos;
+    if (jj_3_10()) {
+    jj_scanpos = xsp;
+    if (jj_3_11()) return true;
+    }
+    return false;
+  }
+
+  private boolean jj_3_48() {
+    if (jj_scan_token(NUM)) return true;
+    return false;
+  }
+
+  private boolean jj_3_47() {
+    if (jj_scan_token(TEXT)) return true;
+    return false;
+  }
+
+  private boolean jj_3_46() {
+    if (jj_3R_29()) return true;
+    return false;
+  }
+
+  private boolean jj_3R_9() {
+    if (jj_scan_token(INSERT)) return true;
+    if (jj_scan_token(INTO)) return true;
+    if (jj_scan_token(ID)) return true;
+    return false;
+  }
+
+  private boolean jj_3_45() {
+    if (jj_scan_token(45)) return true;
+    return false;
+  }
+
+  private boolean jj_3R_15() {
+    if (jj_scan_token(ID)) return true;
+    if (jj_scan_token(ID)) return true;
+    return false;
+  }
+
+  private boolean jj_3_44() {
+    if (jj_scan_token(44)) return true;
+    return false;
+  }
+
+  private boolean jj_3_43() {
+    if (jj_scan_token(43)) return true;
+    return false;
+  }
+
+  private boolean jj_3_42() {
+    if (jj_scan_token(42)) return true;
+    return false;
+  }
+
+  private boolean jj_3R_12() {
+    if (jj_scan_token(CREATE)) return true;
+    if (jj_scan_token(INDEX)) return true;
+    if (jj_scan_token(ID)) return true;
+    return false;
+  }
+
+  private boolean jj_3_27() {
+    if (jj_scan_token(MIN)) return true;
+    return false;
+  }
+
+  private boolean jj_3R_30() {
+    Token xsp;
+    xsp = jj_scanpos;
+    if (jj_3_41()) {
+    jj_scanpos = xsp;
+    if (jj_3_42()) {
+    jj_scanpos = xsp;
+    if (jj_3_43()) {
+    jj_scanpos = xsp;
+    if (jj_3_44()) {
+    jj_scanpos = xsp;
+    if (jj_3_45()) return true;
+    }
+    }
+    }
+    }
+    return false;
+  }
+
+  private boolean jj_3_41() {
+    if (jj_scan_token(41)) return true;
+    return false;
+  }
+
+  private boolean jj_3R_8() {
+    if (jj_scan_token(CREATE)) return true;
+    if (jj_scan_token(TABLE)) return true;
+    if (jj_scan_token(ID)) return true;
+    return false;
+  }
+
+  private boolean jj_3_35() {
+    if (jj_scan_token(38)) return true;
+    if (jj_3R_27()) return true;
+    return false;
+  }
+
+  private boolean jj_3R_19() {
+    if (jj_3R_29()) return true;
+    if (jj_3R_30()) return true;
+    return false;
+  }
+
+  private boolean jj_3R_11() {
+    if (jj_scan_token(DROP)) return true;
+    if (jj_scan_token(TABLE)) return true;
+    if (jj_scan_token(ID)) return true;
+    return false;
+  }
+
+  private boolean jj_3R_26() {
+    if (jj_scan_token(ID)) return true;
     return false;
   }
 
   private boolean jj_3R_13() {
+    if (jj_scan_token(ANALYZE)) return true;
+    if (jj_scan_token(ID)) return true;
+    if (jj_scan_token(36)) return true;
+    return false;
+  }
+
+  private boolean jj_3_40() {
+    if (jj_scan_token(LIMIT)) return true;
+    if (jj_scan_token(NUM)) return true;
+    if (jj_scan_token(OFFSET)) return true;
+    return false;
+  }
+
+  private boolean jj_3_29() {
+    if (jj_scan_token(AVG)) return true;
+    return false;
+  }
+
+  private boolean jj_3_26() {
+    if (jj_scan_token(SUM)) return true;
+    return false;
+  }
+
+  private boolean jj_3_34() {
+    if (jj_scan_token(38)) return true;
+    if (jj_3R_26()) return true;
+    return false;
+  }
+
+  private boolean jj_3_39() {
+    if (jj_scan_token(LIMIT)) return true;
+    if (jj_scan_token(NUM)) return true;
+    if (jj_scan_token(36)) return true;
+    return false;
+  }
+
+  private boolean jj_3R_28() {
     Token xsp;
     xsp = jj_scanpos;
-    if (jj_3_16()) {
+    if (jj_3_38()) {
+    jj_scanpos = xsp;
+    if (jj_3_39()) {
     jj_scanpos = xsp;
-    if (jj_3_17()) return true;
+    if (jj_3_40()) return true;
+    }
     }
     return false;
   }
 
-  private boolean jj_3_4() {
-    if (jj_3R_10()) return true;
+  private boolean jj_3_38() {
+    if (jj_scan_token(36)) return true;
     return false;
   }
 
-  private boolean jj_3_16() {
-    if (jj_3R_17()) return true;
+  private boolean jj_3R_14() {
+    if (jj_scan_token(COPY)) return true;
+    if (jj_scan_token(ID)) return true;
+    if (jj_scan_token(FROM)) return true;
+    return false;
+  }
+
+  private boolean jj_3_7() {
+    if (jj_3R_14()) return true;
+    return false;
+  }
+
+  private boolean jj_3_37() {
+    if (jj_scan_token(ORDER)) return true;
+    if (jj_scan_token(BY)) return true;
+    if (jj_3R_27()) return true;
+    return false;
+  }
+
+  private boolean jj_3_6() {
+    if (jj_3R_13()) return true;
+    return false;
+  }
+
+  private boolean jj_3_36() {
+    if (jj_3R_28()) return true;
+    return false;
+  }
+
+  private boolean jj_3R_22() {
     Token xsp;
-    while (true) {
-      xsp = jj_scanpos;
-      if (jj_3_15()) { jj_scanpos = xsp; break; }
+    xsp = jj_scanpos;
+    if (jj_3_36()) {
+    jj_scanpos = xsp;
+    if (jj_3_37()) return true;
     }
     return false;
   }
 
+  private boolean jj_3_5() {
+    if (jj_3R_12()) return true;
+    return false;
+  }
+
+  private boolean jj_3_4() {
+    if (jj_3R_11()) return true;
+    return false;
+  }
+
   private boolean jj_3_3() {
-    if (jj_3R_9()) return true;
+    if (jj_3R_10()) return true;
     return false;
   }
 
   private boolean jj_3_2() {
-    if (jj_3R_8()) return true;
+    if (jj_3R_9()) return true;
+    return false;
+  }
+
+  private boolean jj_3R_18() {
+    if (jj_scan_token(FROM)) return true;
     return false;
   }
 
   private boolean jj_3_1() {
-    if (jj_3R_7()) return true;
+    if (jj_3R_8()) return true;
     return false;
   }
 
-  private boolean jj_3_5() {
-    if (jj_scan_token(26)) return true;
-    if (jj_3R_11()) return true;
+  private boolean jj_3_31() {
+    if (jj_scan_token(ID)) return true;
     return false;
   }
 
   private boolean jj_3_28() {
-    if (jj_scan_token(ID)) return true;
+    if (jj_scan_token(MAX)) return true;
     return false;
   }
 
-  private boolean jj_3_14() {
-    if (jj_3R_16()) return true;
+  private boolean jj_3_17() {
+    if (jj_scan_token(38)) return true;
+    if (jj_3R_21()) return true;
     return false;
   }
 
-  private boolean jj_3_13() {
-    if (jj_scan_token(WHERE)) return true;
-    if (jj_3R_15()) return true;
+  private boolean jj_3_30() {
+    if (jj_scan_token(ID)) return true;
+    if (jj_scan_token(DOT)) return true;
     return false;
   }
 
-  private boolean jj_3R_17() {
+  private boolean jj_3_25() {
+    if (jj_scan_token(COUNT)) return true;
+    return false;
+  }
+
+  private boolean jj_3_33() {
     Token xsp;
     xsp = jj_scanpos;
+    if (jj_3_25()) {
+    jj_scanpos = xsp;
+    if (jj_3_26()) {
+    jj_scanpos = xsp;
     if (jj_3_27()) {
     jj_scanpos = xsp;
-    if (jj_3_28()) return true;
+    if (jj_3_28()) {
+    jj_scanpos = xsp;
+    if (jj_3_29()) return true;
+    }
+    }
+    }
+    }
+    if (jj_scan_token(37)) return true;
+    xsp = jj_scanpos;
+    if (jj_3_30()) {
+    jj_scanpos = xsp;
+    if (jj_3_31()) return true;
     }
     return false;
   }
 
-  private boolean jj_3_12() {
-    if (jj_scan_token(24)) return true;
+  private boolean jj_3R_25() {
+    Token xsp;
+    xsp = jj_scanpos;
+    if (jj_3_32()) {
+    jj_scanpos = xsp;
+    if (jj_3_33()) return true;
+    }
     return false;
   }
 
-  private boolean jj_3_27() {
+  private boolean jj_3_32() {
+    if (jj_scan_token(COUNT)) return true;
+    if (jj_scan_token(37)) return true;
+    if (jj_scan_token(40)) return true;
+    return false;
+  }
+
+  private boolean jj_3_56() {
+    if (jj_scan_token(ID)) return true;
+    return false;
+  }
+
+  private boolean jj_3_20() {
+    if (jj_scan_token(38)) return true;
+    if (jj_3R_23()) return true;
+    return false;
+  }
+
+  private boolean jj_3R_27() {
+    Token xsp;
+    xsp = jj_scanpos;
+    if (jj_3_55()) {
+    jj_scanpos = xsp;
+    if (jj_3_56()) return true;
+    }
+    return false;
+  }
+
+  private boolean jj_3_55() {
     if (jj_scan_token(ID)) return true;
     if (jj_scan_token(DOT)) return true;
     if (jj_scan_token(ID)) return true;
     return false;
   }
 
+  private boolean jj_3_24() {
+    if (jj_3R_25()) return true;
+    return false;
+  }
+
+  private boolean jj_3R_23() {
+    Token xsp;
+    xsp = jj_scanpos;
+    if (jj_3_23()) {
+    jj_scanpos = xsp;
+    if (jj_3_24()) return true;
+    }
+    return false;
+  }
+
+  private boolean jj_3_23() {
+    if (jj_3R_24()) return true;
+    return false;
+  }
+
+  private boolean jj_3_14() {
+    if (jj_scan_token(AND)) return true;
+    if (jj_3R_19()) return true;
+    return false;
+  }
+
+  private boolean jj_3_22() {
+    if (jj_scan_token(40)) return true;
+    return false;
+  }
+
   /** Generated Token Manager. */
   public SQLParserTokenManager token_source;
   SimpleCharStream jj_input_stream;
@@ -828,13 +1546,18 @@ public class SQLParser implements SQLParserConstants {
   private int jj_gen;
   final private int[] jj_la1 = new int[0];
   static private int[] jj_la1_0;
+  static private int[] jj_la1_1;
   static {
       jj_la1_init_0();
+      jj_la1_init_1();
    }
    private static void jj_la1_init_0() {
       jj_la1_0 = new int[] {};
    }
-  final private JJCalls[] jj_2_rtns = new JJCalls[30];
+   private static void jj_la1_init_1() {
+      jj_la1_1 = new int[] {};
+   }
+  final private JJCalls[] jj_2_rtns = new JJCalls[56];
   private boolean jj_rescan = false;
   private int jj_gc = 0;
 
@@ -1018,7 +1741,7 @@ public class SQLParser implements SQLParserConstants {
   /** Generate ParseException. */
   public ParseException generateParseException() {
     jj_expentries.clear();
-    boolean[] la1tokens = new boolean[30];
+    boolean[] la1tokens = new boolean[46];
     if (jj_kind >= 0) {
       la1tokens[jj_kind] = true;
       jj_kind = -1;
@@ -1029,10 +1752,13 @@ public class SQLParser implements SQLParserConstants {
           if ((jj_la1_0[i] & (1<<j)) != 0) {
             la1tokens[j] = true;
           }
+          if ((jj_la1_1[i] & (1<<j)) != 0) {
+            la1tokens[32+j] = true;
+          }
         }
       }
     }
-    for (int i = 0; i < 30; i++) {
+    for (int i = 0; i < 46; i++) {
       if (la1tokens[i]) {
         jj_expentry = new int[1];
         jj_expentry[0] = i;
@@ -1059,7 +1785,7 @@ public class SQLParser implements SQLParserConstants {
 
   private void jj_rescan_token() {
     jj_rescan = true;
-    for (int i = 0; i < 30; i++) {
+    for (int i = 0; i < 56; i++) {
     try {
       JJCalls p = jj_2_rtns[i];
       do {
@@ -1096,6 +1822,32 @@ public class SQLParser implements SQLParserConstants {
             case 27: jj_3_28(); break;
             case 28: jj_3_29(); break;
             case 29: jj_3_30(); break;
+            case 30: jj_3_31(); break;
+            case 31: jj_3_32(); break;
+            case 32: jj_3_33(); break;
+            case 33: jj_3_34(); break;
+            case 34: jj_3_35(); break;
+            case 35: jj_3_36(); break;
+            case 36: jj_3_37(); break;
+            case 37: jj_3_38(); break;
+            case 38: jj_3_39(); break;
+            case 39: jj_3_40(); break;
+            case 40: jj_3_41(); break;
+            case 41: jj_3_42(); break;
+            case 42: jj_3_43(); break;
+            case 43: jj_3_44(); break;
+            case 44: jj_3_45(); break;
+            case 45: jj_3_46(); break;
+            case 46: jj_3_47(); break;
+            case 47: jj_3_48(); break;
+            case 48: jj_3_49(); break;
+            case 49: jj_3_50(); break;
+            case 50: jj_3_51(); break;
+            case 51: jj_3_52(); break;
+            case 52: jj_3_53(); break;
+            case 53: jj_3_54(); break;
+            case 54: jj_3_55(); break;
+            case 55: jj_3_56(); break;
           }
         }
         p = p.next;
@@ -13,39 +13,63 @@ public interface SQLParserConstants {
   /** RegularExpression Id. */
   int TABLE = 6;
   /** RegularExpression Id. */
-  int INSERT = 7;
+  int INDEX = 7;
   /** RegularExpression Id. */
-  int INTO = 8;
+  int ANALYZE = 8;
   /** RegularExpression Id. */
-  int VALUES = 9;
+  int COPY = 9;
   /** RegularExpression Id. */
-  int DROP = 10;
+  int ON = 10;
   /** RegularExpression Id. */
-  int WHERE = 11;
+  int INSERT = 11;
   /** RegularExpression Id. */
-  int FROM = 12;
+  int INTO = 12;
   /** RegularExpression Id. */
-  int SELECT = 13;
+  int VALUES = 13;
   /** RegularExpression Id. */
-  int DISTINCT = 14;
+  int DROP = 14;
   /** RegularExpression Id. */
-  int ORDER = 15;
+  int WHERE = 15;
   /** RegularExpression Id. */
-  int BY = 16;
+  int FROM = 16;
   /** RegularExpression Id. */
-  int PRIMARY = 17;
+  int SELECT = 17;
   /** RegularExpression Id. */
-  int KEY = 18;
+  int DISTINCT = 18;
   /** RegularExpression Id. */
-  int AND = 19;
+  int ORDER = 19;
   /** RegularExpression Id. */
-  int DOT = 20;
+  int BY = 20;
   /** RegularExpression Id. */
-  int ID = 21;
+  int LIMIT = 21;
   /** RegularExpression Id. */
-  int TEXT = 22;
+  int OFFSET = 22;
   /** RegularExpression Id. */
-  int NUM = 23;
+  int PRIMARY = 23;
+  /** RegularExpression Id. */
+  int KEY = 24;
+  /** RegularExpression Id. */
+  int AND = 25;
+  /** RegularExpression Id. */
+  int GROUP = 26;
+  /** RegularExpression Id. */
+  int COUNT = 27;
+  /** RegularExpression Id. */
+  int SUM = 28;
+  /** RegularExpression Id. */
+  int MIN = 29;
+  /** RegularExpression Id. */
+  int MAX = 30;
+  /** RegularExpression Id. */
+  int AVG = 31;
+  /** RegularExpression Id. */
+  int DOT = 32;
+  /** RegularExpression Id. */
+  int ID = 33;
+  /** RegularExpression Id. */
+  int TEXT = 34;
+  /** RegularExpression Id. */
+  int NUM = 35;
 
   /** Lexical state. */
   int DEFAULT = 0;
@@ -59,6 +83,10 @@ public interface SQLParserConstants {
     "\"\\r\"",
     "\"CREATE\"",
     "\"TABLE\"",
+    "\"INDEX\"",
+    "\"ANALYZE\"",
+    "\"COPY\"",
+    "\"ON\"",
     "\"INSERT\"",
     "\"INTO\"",
     "\"VALUES\"",
@@ -69,9 +97,17 @@ public interface SQLParserConstants {
     "\"DISTINCT\"",
     "\"ORDER\"",
     "\"BY\"",
+    "\"LIMIT\"",
+    "\"OFFSET\"",
     "\"PRIMARY\"",
     "\"KEY\"",
     "\"AND\"",
+    "\"GROUP\"",
+    "\"COUNT\"",
+    "\"SUM\"",
+    "\"MIN\"",
+    "\"MAX\"",
+    "\"AVG\"",
     "\".\"",
     "<ID>",
     "<TEXT>",
@@ -82,6 +118,10 @@ public interface SQLParserConstants {
     "\")\"",
     "\"*\"",
     "\"=\"",
+    "\"<=\"",
+    "\">=\"",
+    "\"<\"",
+    "\">\"",
   };
 
 }
@@ -15,72 +15,72 @@ private final int jjStopStringLiteralDfa_0(int pos, long active0)
    switch (pos)
    {
       case 0:
-         if ((active0 & 0x100000L) != 0L)
-            return 6;
-         if ((active0 & 0xfffe0L) != 0L)
+         if ((active0 & 0x100000000L) != 0L)
+            return 5;
+         if ((active0 & 0xffffffe0L) != 0L)
          {
-            jjmatchedKind = 21;
+            jjmatchedKind = 33;
             return 1;
          }
          return -1;
       case 1:
-         if ((active0 & 0x10000L) != 0L)
-            return 1;
-         if ((active0 & 0xeffe0L) != 0L)
+         if ((active0 & 0xffeffbe0L) != 0L)
          {
-            jjmatchedKind = 21;
+            jjmatchedKind = 33;
             jjmatchedPos = 1;
             return 1;
          }
+         if ((active0 & 0x100400L) != 0L)
+            return 1;
          return -1;
       case 2:
-         if ((active0 & 0x2ffe0L) != 0L)
+         if ((active0 & 0xceffbe0L) != 0L)
          {
-            jjmatchedKind = 21;
+            jjmatchedKind = 33;
             jjmatchedPos = 2;
             return 1;
          }
-         if ((active0 & 0xc0000L) != 0L)
+         if ((active0 & 0xf3000000L) != 0L)
             return 1;
          return -1;
       case 3:
-         if ((active0 & 0x1500L) != 0L)
-            return 1;
-         if ((active0 & 0x2eae0L) != 0L)
+         if ((active0 & 0xceea9e0L) != 0L)
          {
-            jjmatchedKind = 21;
+            jjmatchedKind = 33;
             jjmatchedPos = 3;
             return 1;
          }
+         if ((active0 & 0x15200L) != 0L)
+            return 1;
          return -1;
       case 4:
-         if ((active0 & 0x262a0L) != 0L)
+         if ((active0 & 0xc62920L) != 0L)
          {
-            jjmatchedKind = 21;
+            jjmatchedKind = 33;
             jjmatchedPos = 4;
             return 1;
          }
-         if ((active0 & 0x8840L) != 0L)
+         if ((active0 & 0xc2880c0L) != 0L)
             return 1;
          return -1;
       case 5:
-         if ((active0 & 0x24000L) != 0L)
+         if ((active0 & 0x840100L) != 0L)
          {
-            jjmatchedKind = 21;
+            jjmatchedKind = 33;
             jjmatchedPos = 5;
             return 1;
          }
-         if ((active0 & 0x22a0L) != 0L)
+         if ((active0 & 0x422820L) != 0L)
             return 1;
          return -1;
       case 6:
-         if ((active0 & 0x4000L) != 0L)
+         if ((active0 & 0x40000L) != 0L)
          {
-            jjmatchedKind = 21;
+            jjmatchedKind = 33;
             jjmatchedPos = 6;
             return 1;
          }
-         if ((active0 & 0x20000L) != 0L)
+         if ((active0 & 0x800100L) != 0L)
             return 1;
          return -1;
       default :
@@ -102,58 +102,73 @@ private int jjMoveStringLiteralDfa0_0()
    switch(curChar)
    {
       case 40:
-         return jjStopAtPos(0, 25);
+         return jjStopAtPos(0, 37);
       case 41:
-         return jjStopAtPos(0, 27);
+         return jjStopAtPos(0, 39);
       case 42:
-         return jjStopAtPos(0, 28);
+         return jjStopAtPos(0, 40);
       case 44:
-         return jjStopAtPos(0, 26);
+         return jjStopAtPos(0, 38);
       case 46:
-         return jjStartNfaWithStates_0(0, 20, 6);
+         return jjStartNfaWithStates_0(0, 32, 5);
       case 59:
-         return jjStopAtPos(0, 24);
+         return jjStopAtPos(0, 36);
+      case 60:
+         jjmatchedKind = 44;
+         return jjMoveStringLiteralDfa1_0(0x40000000000L);
       case 61:
-         return jjStopAtPos(0, 29);
+         return jjStopAtPos(0, 41);
+      case 62:
+         jjmatchedKind = 45;
+         return jjMoveStringLiteralDfa1_0(0x80000000000L);
       case 65:
       case 97:
-         return jjMoveStringLiteralDfa1_0(0x80000L);
+         return jjMoveStringLiteralDfa1_0(0x82000100L);
       case 66:
       case 98:
-         return jjMoveStringLiteralDfa1_0(0x10000L);
+         return jjMoveStringLiteralDfa1_0(0x100000L);
       case 67:
       case 99:
-         return jjMoveStringLiteralDfa1_0(0x20L);
+         return jjMoveStringLiteralDfa1_0(0x8000220L);
       case 68:
       case 100:
-         return jjMoveStringLiteralDfa1_0(0x4400L);
+         return jjMoveStringLiteralDfa1_0(0x44000L);
       case 70:
       case 102:
-         return jjMoveStringLiteralDfa1_0(0x1000L);
+         return jjMoveStringLiteralDfa1_0(0x10000L);
+      case 71:
+      case 103:
+         return jjMoveStringLiteralDfa1_0(0x4000000L);
       case 73:
       case 105:
-         return jjMoveStringLiteralDfa1_0(0x180L);
+         return jjMoveStringLiteralDfa1_0(0x1880L);
       case 75:
       case 107:
-         return jjMoveStringLiteralDfa1_0(0x40000L);
+         return jjMoveStringLiteralDfa1_0(0x1000000L);
+      case 76:
+      case 108:
+         return jjMoveStringLiteralDfa1_0(0x200000L);
+      case 77:
+      case 109:
+         return jjMoveStringLiteralDfa1_0(0x60000000L);
       case 79:
       case 111:
-         return jjMoveStringLiteralDfa1_0(0x8000L);
+         return jjMoveStringLiteralDfa1_0(0x480400L);
       case 80:
       case 112:
-         return jjMoveStringLiteralDfa1_0(0x20000L);
+         return jjMoveStringLiteralDfa1_0(0x800000L);
       case 83:
       case 115:
-         return jjMoveStringLiteralDfa1_0(0x2000L);
+         return jjMoveStringLiteralDfa1_0(0x10020000L);
       case 84:
       case 116:
          return jjMoveStringLiteralDfa1_0(0x40L);
       case 86:
       case 118:
-         return jjMoveStringLiteralDfa1_0(0x200L);
+         return jjMoveStringLiteralDfa1_0(0x2000L);
       case 87:
       case 119:
-         return jjMoveStringLiteralDfa1_0(0x800L);
+         return jjMoveStringLiteralDfa1_0(0x8000L);
       default :
          return jjMoveNfa_0(0, 0);
    }
@@ -167,28 +182,48 @@ private int jjMoveStringLiteralDfa1_0(long active0)
    }
    switch(curChar)
    {
+      case 61:
+         if ((active0 & 0x40000000000L) != 0L)
+            return jjStopAtPos(1, 42);
+         else if ((active0 & 0x80000000000L) != 0L)
+            return jjStopAtPos(1, 43);
+         break;
       case 65:
       case 97:
-         return jjMoveStringLiteralDfa2_0(active0, 0x240L);
+         return jjMoveStringLiteralDfa2_0(active0, 0x40002040L);
       case 69:
       case 101:
-         return jjMoveStringLiteralDfa2_0(active0, 0x42000L);
+         return jjMoveStringLiteralDfa2_0(active0, 0x1020000L);
+      case 70:
+      case 102:
+         return jjMoveStringLiteralDfa2_0(active0, 0x400000L);
       case 72:
       case 104:
-         return jjMoveStringLiteralDfa2_0(active0, 0x800L);
+         return jjMoveStringLiteralDfa2_0(active0, 0x8000L);
       case 73:
       case 105:
-         return jjMoveStringLiteralDfa2_0(active0, 0x4000L);
+         return jjMoveStringLiteralDfa2_0(active0, 0x20240000L);
       case 78:
       case 110:
-         return jjMoveStringLiteralDfa2_0(active0, 0x80180L);
+         if ((active0 & 0x400L) != 0L)
+            return jjStartNfaWithStates_0(1, 10, 1);
+         return jjMoveStringLiteralDfa2_0(active0, 0x2001980L);
+      case 79:
+      case 111:
+         return jjMoveStringLiteralDfa2_0(active0, 0x8000200L);
       case 82:
       case 114:
-         return jjMoveStringLiteralDfa2_0(active0, 0x29420L);
+         return jjMoveStringLiteralDfa2_0(active0, 0x4894020L);
+      case 85:
+      case 117:
+         return jjMoveStringLiteralDfa2_0(active0, 0x10000000L);
+      case 86:
+      case 118:
+         return jjMoveStringLiteralDfa2_0(active0, 0x80000000L);
       case 89:
       case 121:
-         if ((active0 & 0x10000L) != 0L)
-            return jjStartNfaWithStates_0(1, 16, 1);
+         if ((active0 & 0x100000L) != 0L)
+            return jjStartNfaWithStates_0(1, 20, 1);
          break;
       default :
          break;
@@ -206,36 +241,68 @@ private int jjMoveStringLiteralDfa2_0(long old0, long active0)
    }
    switch(curChar)
    {
+      case 65:
+      case 97:
+         return jjMoveStringLiteralDfa3_0(active0, 0x100L);
       case 66:
       case 98:
          return jjMoveStringLiteralDfa3_0(active0, 0x40L);
       case 68:
       case 100:
-         if ((active0 & 0x80000L) != 0L)
-            return jjStartNfaWithStates_0(2, 19, 1);
-         return jjMoveStringLiteralDfa3_0(active0, 0x8000L);
+         if ((active0 & 0x2000000L) != 0L)
+            return jjStartNfaWithStates_0(2, 25, 1);
+         return jjMoveStringLiteralDfa3_0(active0, 0x80080L);
       case 69:
       case 101:
-         return jjMoveStringLiteralDfa3_0(active0, 0x820L);
+         return jjMoveStringLiteralDfa3_0(active0, 0x8020L);
+      case 70:
+      case 102:
+         return jjMoveStringLiteralDfa3_0(active0, 0x400000L);
+      case 71:
+      case 103:
+         if ((active0 & 0x80000000L) != 0L)
+            return jjStartNfaWithStates_0(2, 31, 1);
+         break;
       case 73:
       case 105:
-         return jjMoveStringLiteralDfa3_0(active0, 0x20000L);
+         return jjMoveStringLiteralDfa3_0(active0, 0x800000L);
       case 76:
       case 108:
-         return jjMoveStringLiteralDfa3_0(active0, 0x2200L);
+         return jjMoveStringLiteralDfa3_0(active0, 0x22000L);
+      case 77:
+      case 109:
+         if ((active0 & 0x10000000L) != 0L)
+            return jjStartNfaWithStates_0(2, 28, 1);
+         return jjMoveStringLiteralDfa3_0(active0, 0x200000L);
+      case 78:
+      case 110:
+         if ((active0 & 0x20000000L) != 0L)
+            return jjStartNfaWithStates_0(2, 29, 1);
+         break;
       case 79:
       case 111:
-         return jjMoveStringLiteralDfa3_0(active0, 0x1400L);
+         return jjMoveStringLiteralDfa3_0(active0, 0x4014000L);
+      case 80:
+      case 112:
+         return jjMoveStringLiteralDfa3_0(active0, 0x200L);
       case 83:
       case 115:
-         return jjMoveStringLiteralDfa3_0(active0, 0x4080L);
+         return jjMoveStringLiteralDfa3_0(active0, 0x40800L);
       case 84:
       case 116:
-         return jjMoveStringLiteralDfa3_0(active0, 0x100L);
+         return jjMoveStringLiteralDfa3_0(active0, 0x1000L);
+      case 85:
+      case 117:
+         return jjMoveStringLiteralDfa3_0(active0, 0x8000000L);
+      case 88:
+      case 120:
+         if ((active0 & 0x40000000L) != 0L)
+            return jjStartNfaWithStates_0(2, 30, 1);
+         break;
       case 89:
       case 121:
-         if ((active0 & 0x40000L) != 0L)
-            return jjStartNfaWithStates_0(2, 18, 1);
+         if ((active0 & 0x1000000L) != 0L)
+            return jjStartNfaWithStates_0(2, 24, 1);
          break;
       default :
          break;
@@ -258,34 +325,48 @@ private int jjMoveStringLiteralDfa3_0(long old0, long active0)
          return jjMoveStringLiteralDfa4_0(active0, 0x20L);
       case 69:
       case 101:
-         return jjMoveStringLiteralDfa4_0(active0, 0xa080L);
+         return jjMoveStringLiteralDfa4_0(active0, 0xa0880L);
+      case 73:
+      case 105:
+         return jjMoveStringLiteralDfa4_0(active0, 0x200000L);
       case 76:
       case 108:
-         return jjMoveStringLiteralDfa4_0(active0, 0x40L);
+         return jjMoveStringLiteralDfa4_0(active0, 0x140L);
       case 77:
       case 109:
-         if ((active0 & 0x1000L) != 0L)
-            return jjStartNfaWithStates_0(3, 12, 1);
-         return jjMoveStringLiteralDfa4_0(active0, 0x20000L);
+         if ((active0 & 0x10000L) != 0L)
+            return jjStartNfaWithStates_0(3, 16, 1);
+         return jjMoveStringLiteralDfa4_0(active0, 0x800000L);
+      case 78:
+      case 110:
+         return jjMoveStringLiteralDfa4_0(active0, 0x8000000L);
       case 79:
       case 111:
-         if ((active0 & 0x100L) != 0L)
-            return jjStartNfaWithStates_0(3, 8, 1);
+         if ((active0 & 0x1000L) != 0L)
+            return jjStartNfaWithStates_0(3, 12, 1);
          break;
       case 80:
       case 112:
-         if ((active0 & 0x400L) != 0L)
-            return jjStartNfaWithStates_0(3, 10, 1);
+         if ((active0 & 0x4000L) != 0L)
+            return jjStartNfaWithStates_0(3, 14, 1);
          break;
       case 82:
       case 114:
-         return jjMoveStringLiteralDfa4_0(active0, 0x800L);
+         return jjMoveStringLiteralDfa4_0(active0, 0x8000L);
+      case 83:
+      case 115:
+         return jjMoveStringLiteralDfa4_0(active0, 0x400000L);
       case 84:
       case 116:
-         return jjMoveStringLiteralDfa4_0(active0, 0x4000L);
+         return jjMoveStringLiteralDfa4_0(active0, 0x40000L);
       case 85:
       case 117:
-         return jjMoveStringLiteralDfa4_0(active0, 0x200L);
+         return jjMoveStringLiteralDfa4_0(active0, 0x4002000L);
+      case 89:
+      case 121:
+         if ((active0 & 0x200L) != 0L)
+            return jjStartNfaWithStates_0(3, 9, 1);
+         break;
       default :
          break;
    }
@@ -304,28 +385,45 @@ private int jjMoveStringLiteralDfa4_0(long old0, long active0)
    {
       case 65:
       case 97:
-         return jjMoveStringLiteralDfa5_0(active0, 0x20000L);
+         return jjMoveStringLiteralDfa5_0(active0, 0x800000L);
       case 67:
       case 99:
-         return jjMoveStringLiteralDfa5_0(active0, 0x2000L);
+         return jjMoveStringLiteralDfa5_0(active0, 0x20000L);
       case 69:
       case 101:
          if ((active0 & 0x40L) != 0L)
             return jjStartNfaWithStates_0(4, 6, 1);
-         else if ((active0 & 0x800L) != 0L)
-            return jjStartNfaWithStates_0(4, 11, 1);
-         return jjMoveStringLiteralDfa5_0(active0, 0x200L);
+         else if ((active0 & 0x8000L) != 0L)
+            return jjStartNfaWithStates_0(4, 15, 1);
+         return jjMoveStringLiteralDfa5_0(active0, 0x402000L);
       case 73:
       case 105:
-         return jjMoveStringLiteralDfa5_0(active0, 0x4000L);
+         return jjMoveStringLiteralDfa5_0(active0, 0x40000L);
+      case 80:
+      case 112:
+         if ((active0 & 0x4000000L) != 0L)
+            return jjStartNfaWithStates_0(4, 26, 1);
+         break;
       case 82:
       case 114:
-         if ((active0 & 0x8000L) != 0L)
-            return jjStartNfaWithStates_0(4, 15, 1);
-         return jjMoveStringLiteralDfa5_0(active0, 0x80L);
+         if ((active0 & 0x80000L) != 0L)
+            return jjStartNfaWithStates_0(4, 19, 1);
+         return jjMoveStringLiteralDfa5_0(active0, 0x800L);
       case 84:
       case 116:
+         if ((active0 & 0x200000L) != 0L)
+            return jjStartNfaWithStates_0(4, 21, 1);
+         else if ((active0 & 0x8000000L) != 0L)
+            return jjStartNfaWithStates_0(4, 27, 1);
          return jjMoveStringLiteralDfa5_0(active0, 0x20L);
+      case 88:
+      case 120:
+         if ((active0 & 0x80L) != 0L)
+            return jjStartNfaWithStates_0(4, 7, 1);
+         break;
+      case 89:
+      case 121:
+         return jjMoveStringLiteralDfa5_0(active0, 0x100L);
       default :
          break;
    }
@@ -349,22 +447,27 @@ private int jjMoveStringLiteralDfa5_0(long old0, long active0)
          break;
       case 78:
       case 110:
-         return jjMoveStringLiteralDfa6_0(active0, 0x4000L);
+         return jjMoveStringLiteralDfa6_0(active0, 0x40000L);
       case 82:
       case 114:
-         return jjMoveStringLiteralDfa6_0(active0, 0x20000L);
+         return jjMoveStringLiteralDfa6_0(active0, 0x800000L);
       case 83:
       case 115:
-         if ((active0 & 0x200L) != 0L)
-            return jjStartNfaWithStates_0(5, 9, 1);
+         if ((active0 & 0x2000L) != 0L)
+            return jjStartNfaWithStates_0(5, 13, 1);
          break;
       case 84:
       case 116:
-         if ((active0 & 0x80L) != 0L)
-            return jjStartNfaWithStates_0(5, 7, 1);
-         else if ((active0 & 0x2000L) != 0L)
-            return jjStartNfaWithStates_0(5, 13, 1);
+         if ((active0 & 0x800L) != 0L)
+            return jjStartNfaWithStates_0(5, 11, 1);
+         else if ((active0 & 0x20000L) != 0L)
+            return jjStartNfaWithStates_0(5, 17, 1);
+         else if ((active0 & 0x400000L) != 0L)
+            return jjStartNfaWithStates_0(5, 22, 1);
          break;
+      case 90:
+      case 122:
+         return jjMoveStringLiteralDfa6_0(active0, 0x100L);
       default :
          break;
    }
@@ -383,11 +486,16 @@ private int jjMoveStringLiteralDfa6_0(long old0, long active0)
    {
       case 67:
       case 99:
-         return jjMoveStringLiteralDfa7_0(active0, 0x4000L);
+         return jjMoveStringLiteralDfa7_0(active0, 0x40000L);
+      case 69:
+      case 101:
+         if ((active0 & 0x100L) != 0L)
+            return jjStartNfaWithStates_0(6, 8, 1);
+         break;
       case 89:
       case 121:
-         if ((active0 & 0x20000L) != 0L)
-            return jjStartNfaWithStates_0(6, 17, 1);
+         if ((active0 & 0x800000L) != 0L)
+            return jjStartNfaWithStates_0(6, 23, 1);
          break;
       default :
          break;
@@ -407,8 +515,8 @@ private int jjMoveStringLiteralDfa7_0(long old0, long active0)
    {
       case 84:
       case 116:
-         if ((active0 & 0x4000L) != 0L)
-            return jjStartNfaWithStates_0(7, 14, 1);
+         if ((active0 & 0x40000L) != 0L)
+            return jjStartNfaWithStates_0(7, 18, 1);
          break;
       default :
          break;
@@ -423,10 +531,13 @@ private int jjStartNfaWithStates_0(int pos, int kind, int state)
    catch(java.io.IOException e) { return pos + 1; }
    return jjMoveNfa_0(state, pos + 1);
 }
+static final long[] jjbitVec0 = {
+   0x0L, 0x0L, 0xffffffffffffffffL, 0xffffffffffffffffL
+};
 private int jjMoveNfa_0(int startState, int curPos)
 {
    int startsAt = 0;
-   jjnewStateCnt = 7;
+   jjnewStateCnt = 6;
    int i = 1;
    jjstateSet[0] = startState;
    int kind = 0x7fffffff;
@@ -444,38 +555,38 @@ private int jjMoveNfa_0(int startState, int curPos)
                case 0:
                   if ((0x3ff400000000000L & l) != 0L)
                   {
-                     if (kind > 23)
-                        kind = 23;
-                     jjCheckNAdd(6);
+                     if (kind > 35)
+                        kind = 35;
+                     jjCheckNAdd(5);
                   }
                   else if (curChar == 39)
-                     jjstateSet[jjnewStateCnt++] = 3;
+                     jjCheckNAddTwoStates(3, 4);
                   break;
                case 1:
                   if ((0x3ff000000000000L & l) == 0L)
                      break;
-                  if (kind > 21)
-                     kind = 21;
+                  if (kind > 33)
+                     kind = 33;
                   jjstateSet[jjnewStateCnt++] = 1;
                   break;
                case 2:
                   if (curChar == 39)
-                     jjstateSet[jjnewStateCnt++] = 3;
+                     jjCheckNAddTwoStates(3, 4);
+                  break;
+               case 3:
+                  if ((0xffffff7fffffdbffL & l) != 0L)
+                     jjCheckNAddTwoStates(3, 4);
                   break;
                case 4:
-                  if ((0x3ff000100000000L & l) != 0L)
-                     jjAddStates(0, 1);
+                  if (curChar == 39 && kind > 34)
+                     kind = 34;
                   break;
                case 5:
-                  if (curChar == 39 && kind > 22)
-                     kind = 22;
-                  break;
-               case 6:
                   if ((0x3ff400000000000L & l) == 0L)
                      break;
-                  if (kind > 23)
-                     kind = 23;
-                  jjCheckNAdd(6);
+                  if (kind > 35)
+                     kind = 35;
+                  jjCheckNAdd(5);
                   break;
                default : break;
             }
@@ -492,14 +603,12 @@ private int jjMoveNfa_0(int startState, int curPos)
                case 1:
                   if ((0x7fffffe87fffffeL & l) == 0L)
                      break;
-                  if (kind > 21)
-                     kind = 21;
+                  if (kind > 33)
+                     kind = 33;
                   jjCheckNAdd(1);
                   break;
                case 3:
-               case 4:
-                  if ((0x7fffffe87fffffeL & l) != 0L)
-                     jjCheckNAddTwoStates(4, 5);
+                  jjAddStates(0, 1);
                   break;
                default : break;
             }
@@ -513,6 +622,10 @@ private int jjMoveNfa_0(int startState, int curPos)
          {
             switch(jjstateSet[--i])
             {
+               case 3:
+                  if ((jjbitVec0[i2] & l2) != 0L)
+                     jjAddStates(0, 1);
+                  break;
                default : break;
             }
          } while(i != startsAt);
@@ -524,35 +637,36 @@ private int jjMoveNfa_0(int startState, int curPos)
          kind = 0x7fffffff;
       }
       ++curPos;
-      if ((i = jjnewStateCnt) == (startsAt = 7 - (jjnewStateCnt = startsAt)))
+      if ((i = jjnewStateCnt) == (startsAt = 6 - (jjnewStateCnt = startsAt)))
          return curPos;
       try { curChar = input_stream.readChar(); }
       catch(java.io.IOException e) { return curPos; }
    }
 }
 static final int[] jjnextStates = {
-   4, 5, 
+   3, 4, 
 };
 
 /** Token literal values. */
 public static final String[] jjstrLiteralImages = {
 "", null, null, null, null, null, null, null, null, null, null, null, null, 
-null, null, null, null, null, null, null, "\56", null, null, null, "\73", "\50", 
-"\54", "\51", "\52", "\75", };
+null, null, null, null, null, null, null, null, null, null, null, null, null, null, 
+null, null, null, null, null, "\56", null, null, null, "\73", "\50", "\54", "\51", 
+"\52", "\75", "\74\75", "\76\75", "\74", "\76", };
 
 /** Lexer state names. */
 public static final String[] lexStateNames = {
    "DEFAULT",
 };
 static final long[] jjtoToken = {
-   0x3fffffe1L, 
+   0x3fffffffffe1L, 
 };
 static final long[] jjtoSkip = {
    0x1eL, 
 };
 protected SimpleCharStream input_stream;
-private final int[] jjrounds = new int[7];
-private final int[] jjstateSet = new int[14];
+private final int[] jjrounds = new int[6];
+private final int[] jjstateSet = new int[12];
 protected char curChar;
 /** Constructor. */
 public SQLParserTokenManager(SimpleCharStream stream){
@@ -579,7 +693,7 @@ private void ReInitRounds()
 {
    int i;
    jjround = 0x80000001;
-   for (i = 7; i-- > 0;)
+   for (i = 6; i-- > 0;)
       jjrounds[i] = 0x80000000;
 }
 
@@ -10,10 +10,11 @@ import com.sleepycat.je.LockMode;
 import com.sleepycat.je.OperationStatus; 
 
 import java.io.*;
+import java.util.Arrays;
 import java.util.Vector;
 
 /*****************************************************************************************************
-  Sequential Scan Operator implementation.
+  Scan Operator implementation.
 
   init(): open the database and set up the cursor.
   get_next(): get the next tuple from the table that satisfies the predicates.
@@ -21,6 +22,21 @@ import java.util.Vector;
 
   We also need:
   re_init(): reinitialize the cursor and make it point to the beginning of table.
+
+  Access paths: the planner gives us the predicates on the primary key separately (key_predicates).
+  Since the primary key is the BerkeleyDB key, we use them to avoid reading the whole table:
+    key = c:             a point lookup with Cursor.getSearchKey().
+    key > c, key >= c:   we position the cursor with Cursor.getSearchKeyRange(), and scan from there.
+    key < c, key <= c:   we stop scanning as soon as the key is past the upper bound.
+  All the predicates (including the key predicates) are still checked on every tuple we return.
+
+  The predicates are checked on the serialized records, before decoding them (see RecordFilter), so 
+  that a rejected record costs no BaseTuple and no Strings. Only the records that match are decoded.
+
+  For parallel execution, splitIntoRanges() cuts the scan into scans over consecutive ranges of the
+  primary key, which can be run by different threads (each with its own cursor, positioned with
+  getSearchKeyRange()), so that the records are read, filtered and decoded in parallel. The range
+  scans are run by an ExchangeOperator (or a MorselDrivenOperator, or a HashAggregateOperator).
 ***************************************************************************************************/
 public class ScanOperator extends Operator {
     /* Pre-init information. */
@@ -31,10 +47,67 @@ public class ScanOperator extends Operator {
     Database myDatabase = null;
     Cursor myCursor = null;
 
+    /* The access path. */
+    static final int FULL_SCAN = 0;
+    static final int KEY_LOOKUP = 1;
+    static final int KEY_RANGE = 2;
+
+    int access_path = FULL_SCAN;
+
+    /* For KEY_LOOKUP: lowKey is the key. For KEY_RANGE: either bound may be null (unbounded). */
+    Object lowKey = null;
+    Object highKey = null;
+    Predicate highKeyPredicate = null;
+
+    /* The slot of the relation in the IntermediateTuples of the query, and the number of slots (see IntermediateTuple). */
+    int slot = 0;
+    int num_slots = 1;
+
+    /* Has the cursor been positioned yet ? Are we past the end of the key range ? */
+    boolean positioned = false;
+    boolean finished = false;
+
+    /* The predicates, and the upper bound on the key, compiled against the serialized records. Built on first use. */
+    RecordFilter filter = null;
+    RecordFilter highKeyFilter = null;
+
     ScanOperator(BaseRelationSchema rs, Vector<Predicate> predicates_vector) 
+    {
+        this(rs, predicates_vector, new Vector<Predicate>());
+    }
+
+    ScanOperator(BaseRelationSchema rs, Vector<Predicate> predicates_vector, Vector<Predicate> key_predicates) 
     {
         this.rs = rs;
         this.predicates = predicates_vector;
+        chooseAccessPath(key_predicates);
+    }
+
+    /* Equality on the key beats everything else. Otherwise we use the tightest lower and upper bounds. */
+    void chooseAccessPath(Vector<Predicate> key_predicates) {
+        for(Predicate p : key_predicates) {
+            Object c = ((Constant) p.rhs()).o;
+
+            switch(p.getOperator()) {
+                case Predicate.EQ:
+                    access_path = KEY_LOOKUP;
+                    lowKey = c;
+                    return;
+                case Predicate.GT:
+                case Predicate.GE:
+                    if(lowKey == null || Globals.compareValues(c, lowKey) > 0) 
+                        lowKey = c;
+                    access_path = KEY_RANGE;
+                    break;
+                default:
+                    if(highKey == null || Globals.compareValues(c, highKey) < 0) {
+                        highKey = c;
+                        highKeyPredicate = p;
+                    }
+                    access_path = KEY_RANGE;
+                    break;
+            }
+        }
     }
 
     /* Pretty print. */
@@ -43,20 +116,70 @@ public class ScanOperator extends Operator {
             System.out.print("	");
         System.out.print("Scan operator on " + rs.getName());
 
-        if(predicates.size() == 0) {
-            System.out.println();
-        } else {
+        if(access_path == KEY_LOOKUP) 
+            System.out.print(" using key lookup on " + lowKey);
+        else if(access_path == KEY_RANGE) 
+            System.out.print(" using key range [" + (lowKey == null ? "" : lowKey) + ", " + (highKey == null ? "" : highKey) + "]");
+
+        if(predicates.size() != 0) {
             System.out.print(" with predicates: ");
             for(Predicate p : predicates)
                 System.out.print((p == predicates.get(0) ? "": ", ") + p);
-            System.out.println();
         }
+        System.out.println(estimates());
     }
 
     BaseRelationSchema getRelationSchema() {
         return rs;
     }
 
+    TupleAttribute primaryKeyAttribute() {
+        TupleAttribute pk = new TupleAttribute(rs.getName(), rs.attributeNames[rs.getPrimaryKeyPosition()]);
+        pk.setRelationSchema(rs);
+        pk.slot = slot;
+        return pk;
+    }
+
+    /* The predicates on the primary key. */
+    Vector<Predicate> keyPredicates() {
+        Vector<Predicate> key_predicates = new Vector<Predicate>();
+        for(Predicate p : predicates) 
+            if(((TupleAttribute) p.lhs()).position_of_attribute_in_table == rs.getPrimaryKeyPosition()) 
+                key_predicates.add(p);
+        return key_predicates;
+    }
+
+    /* BerkeleyDB returns the records in the order of the keys, and we use the primary key as the key. */
+    Vector<TupleAttribute> getSortOrder() {
+        Vector<TupleAttribute> order = new Vector<TupleAttribute>();
+        order.add(primaryKeyAttribute());
+        return order;
+    }
+
+    /* Since the primary key is unique, once the list reaches the primary key, the rest of it does not matter. 
+       Before that, it may only contain attributes that we are sorted on because they are constant (the 
+       indexed attribute of an IndexScanOperator). */
+    boolean isSortedOn(Vector<TupleAttribute> attributes) {
+        for(TupleAttribute ta : attributes) {
+            if(ta.getRelationSchema() != rs || ! isSortedOn(ta)) 
+                return false;
+            if(ta.position_of_attribute_in_table == rs.getPrimaryKeyPosition()) 
+                return true;
+        }
+        return true;
+    }
+
+    void compileFilters() {
+        if(filter == null) {
+            filter = new RecordFilter(rs, predicates);
+            if(highKeyPredicate != null) {
+                Vector<Predicate> v = new Vector<Predicate>();
+                v.add(highKeyPredicate);
+                highKeyFilter = new RecordFilter(rs, v);
+            }
+        }
+    }
+
     /* Open a cursor for reading the tuples. */
     void open_cursor() {
         try {
@@ -65,6 +188,8 @@ public class ScanOperator extends Operator {
                 myCursor.close();
 
             myCursor = myDatabase.openCursor(null, null);
+            positioned = false;
+            finished = false;
         } catch (Exception dbe) {
             // Exception handling goes here
             dbe.printStackTrace();
@@ -89,7 +214,348 @@ public class ScanOperator extends Operator {
         open_cursor();
     }
 
+    /* Fraction of the tuples of the table that satisfy all of the given predicates. */
+    double selectivity(Vector<Predicate> v) {
+        TableStatistics ts = Globals.getTableStatistics(rs);
+        double sel = 1;
+        for(Predicate p : v) 
+            sel *= ts.selectivity(p);
+        return sel;
+    }
+
+    void estimate() {
+        TableStatistics ts = Globals.getTableStatistics(rs);
+        double n = ts.getRowCount();
+
+        estimated_rows = n * selectivity(predicates);
+        estimated_width = 32 + 24 * rs.getNumberOfAttributes() + 2 * ts.getAverageRowBytes();
+
+        if(access_path == KEY_LOOKUP) {
+            estimated_cost = LOOKUP_COST;
+        } else if(access_path == KEY_RANGE) {
+            estimated_cost = LOOKUP_COST + n * selectivity(keyPredicates());
+        } else {
+            estimated_cost = n;
+        }
+    }
+
+    /* Split the scan into (at most) n scans over consecutive ranges of the primary key, that together return 
+       the same tuples. The split points are quantiles of the primary keys within our key range, so that the ranges 
+       hold about the same number of tuples: from the histogram of the primary key (see TableStatistics) if it has 
+       one that is fine enough, and from the keys themselves otherwise (see keySplitPoints()). Every range scan 
+       gets the predicates "key >= previous split point" and "key < next split point" on top of ours, and so uses 
+       a key range access path. 
+       Returns null if the scan can't be split (a key lookup, an index scan, or too few distinct split points). 
+       The split points are kept, since the planner asks for the same ones several times. */
+    Vector<Object> splitPoints = null;
+    int splitPointsFor = 0;
+
+    Vector<ScanOperator> splitIntoRanges(int n) {
+        if(getClass() != ScanOperator.class || access_path == KEY_LOOKUP || n < 2) 
+            return null;
+
+        if(splitPoints == null || splitPointsFor != n) {
+            /* The histogram has HISTOGRAM_BUCKETS buckets: for a STRING key, it can't give more split points than that. */
+            splitPoints = histogramSplitPoints(n);
+            if(splitPoints.size() < Math.min(n, TableStatistics.HISTOGRAM_BUCKETS) / 2) 
+                splitPoints = keySplitPoints(n);
+            splitPointsFor = n;
+        }
+
+        Vector<Object> splits = splitPoints;
+        if(splits.size() == 0) 
+            return null;
+
+        Vector<ScanOperator> ranges = new Vector<ScanOperator>();
+        for(int i = 0; i <= splits.size(); i++) {
+            Vector<Predicate> v = new Vector<Predicate>(predicates);
+            Vector<Predicate> key_predicates = keyPredicates();
+
+            if(i > 0) {
+                Predicate p = new Predicate(primaryKeyAttribute(), new Constant(splits.get(i - 1)));
+                p.setOperator(Predicate.GE);
+                v.add(p);
+                key_predicates.add(p);
+            }
+            if(i < splits.size()) {
+                Predicate p = new Predicate(primaryKeyAttribute(), new Constant(splits.get(i)));
+                p.setOperator(Predicate.LT);
+                v.add(p);
+                key_predicates.add(p);
+            }
+
+            ScanOperator so = new ScanOperator(rs, v, key_predicates);
+            so.slot = slot;
+            so.num_slots = num_slots;
+            so.estimate();
+            ranges.add(so);
+        }
+        return ranges;
+    }
+
+    /* The split points from the histogram of the primary key: the fractions of the tuples below the ends of our key 
+       range tell us which part of the histogram we cover. */
+    Vector<Object> histogramSplitPoints(int n) {
+        ColumnStatistics cs = Globals.getTableStatistics(rs).columns[rs.getPrimaryKeyPosition()];
+        double from = (lowKey == null) ? 0 : cs.fractionBelow(lowKey);
+        double to = (highKey == null) ? 1 : cs.fractionBelow(highKey);
+
+        Vector<Object> splits = new Vector<Object>();
+        for(int i = 1; i < n; i++) {
+            Object s = cs.quantile(from + (to - from) * i / n);
+            if(s == null) 
+                return splits;
+            addSplitPoint(splits, s);
+        }
+        return splits;
+    }
+
+    /* The split points from the keys of our key range, if the histogram can't tell (e.g., the table was never analyzed, 
+       or the range falls within a few buckets of a STRING key). We find the first and the last key of the range, 
+       which takes two B-tree searches, and cut the range between them into equal parts: for an INTEGER key, by 
+       value; for a STRING key, by interpolating between the bytes of the two keys, and moving every interpolated 
+       key to the next key of the table with getSearchKeyRange() (so at most MAX_KEY_SEARCHES more searches). 
+       Only the keys are read, not the records. */
+    static final int MAX_KEY_SEARCHES = 64;
+
+    Vector<Object> keySplitPoints(int n) {
+        Vector<Object> splits = new Vector<Object>();
+        int keyType = rs.getAttributeType(rs.getPrimaryKeyPosition());
+
+        Database db = Globals.openDatabase(rs.getName());
+        Cursor cursor = null;
+        try {
+            cursor = db.openCursor(null, null);
+            DatabaseEntry foundKey = new DatabaseEntry();
+            DatabaseEntry foundData = new DatabaseEntry();
+            foundData.setPartial(0, 0, true);
+
+            OperationStatus status;
+            if(lowKey == null) {
+                status = cursor.getFirst(foundKey, foundData, LockMode.DEFAULT);
+            } else {
+                foundKey.setData(Globals.simpleObjectToEntry(lowKey).getData());
+                status = cursor.getSearchKeyRange(foundKey, foundData, LockMode.DEFAULT);
+            }
+            if(status != OperationStatus.SUCCESS) 
+                return splits;
+            byte[] first = foundKey.getData();
+
+            /* The last key: the last one before the first key past the upper bound (or the last one of the table). */
+            if(highKey == null) {
+                status = cursor.getLast(foundKey, foundData, LockMode.DEFAULT);
+            } else {
+                foundKey.setData(Globals.simpleObjectToEntry(highKey).getData());
+                status = cursor.getSearchKeyRange(foundKey, foundData, LockMode.DEFAULT);
+                if(status != OperationStatus.SUCCESS) 
+                    status = cursor.getLast(foundKey, foundData, LockMode.DEFAULT);
+                else if(Globals.compareValues(Globals.simpleEntryToObject(foundKey, keyType), highKey) > 0) 
+                    status = cursor.getPrev(foundKey, foundData, LockMode.DEFAULT);
+            }
+            if(status != OperationStatus.SUCCESS) 
+                return splits;
+            byte[] last = foundKey.getData();
+
+            if(keyType == Globals.INTEGER) {
+                long lo = ((Integer) Globals.simpleEntryToObject(new DatabaseEntry(first), keyType)).intValue();
+                long hi = ((Integer) Globals.simpleEntryToObject(new DatabaseEntry(last), keyType)).intValue();
+                for(int i = 1; i < n; i++) 
+                    addSplitPoint(splits, Integer.valueOf((int) (lo + (hi - lo) * i / n)));
+                return splits;
+            }
+
+            int m = Math.min(n, MAX_KEY_SEARCHES);
+            for(int i = 1; i < m; i++) {
+                foundKey.setData(interpolateKeys(first, last, i, m));
+                if(cursor.getSearchKeyRange(foundKey, foundData, LockMode.DEFAULT) != OperationStatus.SUCCESS) 
+                    break;
+                addSplitPoint(splits, Globals.simpleEntryToObject(foundKey, keyType));
+            }
+        } catch (Exception dbe) {
+            dbe.printStackTrace();
+            System.out.println("=========> Error while reading the keys of " + rs.getName());
+            System.exit(1);
+        } finally {
+            try {
+                if(cursor != null) 
+                    cursor.close();
+            } catch (Exception dbe) {
+                dbe.printStackTrace();
+                System.exit(1);
+            }
+            Globals.closeDatabase(db);
+        }
+        return splits;
+    }
+
+    /* The key at i/n of the way from lo to hi (in the byte order of the keys): after their common prefix, the next 
+       INTERPOLATED_BYTES bytes of each are read as a number (missing bytes count as 0), and we interpolate between 
+       the two numbers. The result need not be a key of the table (nor valid UTF-8). */
+    static final int INTERPOLATED_BYTES = 6;
+
+    static byte[] interpolateKeys(byte[] lo, byte[] hi, int i, int n) {
+        int prefix = 0;
+        while(prefix < lo.length && prefix < hi.length && lo[prefix] == hi[prefix]) 
+            prefix++;
+
+        long l = 0;
+        long h = 0;
+        for(int k = prefix; k < prefix + INTERPOLATED_BYTES; k++) {
+            l = (l << 8) | ((k < lo.length) ? (lo[k] & 0xff) : 0);
+            h = (h << 8) | ((k < hi.length) ? (hi[k] & 0xff) : 0);
+        }
+        long v = l + (h - l) * i / n;
+
+        /* Drop the trailing zero bytes. */
+        int length = prefix + INTERPOLATED_BYTES;
+        while(length > prefix && ((v >> (8 * (prefix + INTERPOLATED_BYTES - length))) & 0xff) == 0) 
+            length--;
+
+        byte[] key = Arrays.copyOf(lo, length);
+        for(int k = prefix; k < length; k++) 
+            key[k] = (byte) (v >> (8 * (prefix + INTERPOLATED_BYTES - 1 - k)));
+        return key;
+    }
+
+    /* Add a split point, if it is after the start of our key range (and of the previous range), and not past its end. */
+    void addSplitPoint(Vector<Object> splits, Object s) {
+        if(lowKey != null && Globals.compareValues(s, lowKey) <= 0) 
+            return;
+        if(highKey != null && Globals.compareValues(s, highKey) > 0) 
+            return;
+        if(splits.size() != 0 && Globals.compareValues(s, splits.lastElement()) <= 0) 
+            return;
+        splits.add(s);
+    }
+
+    /* Estimated number of tuples (satisfying the predicates) returned by a lookup on an attribute, and the cost of the lookup. */
+    double rowsPerLookup(TupleAttribute ta) {
+        TableStatistics ts = Globals.getTableStatistics(rs);
+        return ts.getRowCount() * selectivity(predicates) / ts.getDistinctCount(ta.position_of_attribute_in_table);
+    }
+
+    double lookupCost(TupleAttribute ta) {
+        return LOOKUP_COST;
+    }
+
+    /* Can we find the tuples with a given value of the attribute without scanning the table ?
+       For a ScanOperator, only if the attribute is the primary key (which is the BerkeleyDB key). 
+       See IndexScanOperator for lookups on other attributes. */
+    boolean supportsLookupOn(TupleAttribute ta) {
+        return ta.getRelationSchema() == rs && ta.position_of_attribute_in_table == rs.getPrimaryKeyPosition();
+    }
+
+    /* If there is a secondary index on the attribute, returns an IndexScanOperator that does the 
+       same scan as this one, but supports lookups on the attribute. Otherwise returns null. */
+    ScanOperator withIndexOn(TupleAttribute ta) {
+        if(ta.getRelationSchema() != rs || supportsLookupOn(ta)) 
+            return null;
+
+        IndexSchema index = rs.getIndexOn(ta.position_of_attribute_in_table);
+        if(index == null) 
+            return null;
+
+        IndexScanOperator so = new IndexScanOperator(rs, predicates, index, null);
+        so.slot = slot;
+        so.num_slots = num_slots;
+        return so;
+    }
+
+    /* Lookups are done by calling startLookup(key), followed by nextLookupMatch() until it returns null. */
+    Tuple lookupResult = null;
+
+    void startLookup(Object key) {
+        lookupResult = lookup(key);
+    }
+
+    Tuple nextLookupMatch() {
+        Tuple t = lookupResult;
+        lookupResult = null;
+        return t;
+    }
+
+    /* Point lookup on the primary key. Returns the tuple with that key if it exists and satisfies 
+       the predicates, null otherwise. The key is encoded the same way as in Globals.insertTuple(). */
+    Tuple lookup(Object key) {
+        try {
+            DatabaseEntry foundData = new DatabaseEntry();
+
+            compileFilters();
+            if(myDatabase.get(null, Globals.simpleObjectToEntry(key), foundData, LockMode.DEFAULT) == OperationStatus.SUCCESS) {
+                if(! filter.matches(foundData)) 
+                    return null;
+
+                Tuple t = (Tuple) rs.getCustomBinding().entryToObject(foundData);
+                return filter.matches(t) ? t : null;
+            }
+        } catch (Exception dbe) {
+            // Exception handling goes here
+            dbe.printStackTrace();
+            System.exit(1);
+        }
+        return null;
+    }
+
+    /* Move the cursor to the next record in our access path. */
+    OperationStatus advance(DatabaseEntry foundKey, DatabaseEntry foundData) throws DatabaseException {
+        if(finished) 
+            return OperationStatus.NOTFOUND;
+
+        if(! positioned) {
+            positioned = true;
+
+            if(access_path == KEY_LOOKUP) {
+                /* There is at most one record with the key, so we are done after this. */
+                finished = true;
+                foundKey.setData(Globals.simpleObjectToEntry(lowKey).getData());
+                return myCursor.getSearchKey(foundKey, foundData, LockMode.DEFAULT);
+            }
+
+            if(access_path == KEY_RANGE && lowKey != null) {
+                foundKey.setData(Globals.simpleObjectToEntry(lowKey).getData());
+                return myCursor.getSearchKeyRange(foundKey, foundData, LockMode.DEFAULT);
+            }
+        }
+
+        return myCursor.getNext(foundKey, foundData, LockMode.DEFAULT);
+    }
+
+    /* Batch-at-a-time version of get_next(): only the records that satisfy the predicates are decoded, 
+       straight into the columns of the batch (no BaseTuples). Residual predicates (if any) are applied to 
+       whole columns (see Predicate.filter()). */
+    boolean next_batch(TupleBatch batch) {
+        batch.resetColumns(rs);
+        compileFilters();
+
+        try {
+            DatabaseEntry foundKey = new DatabaseEntry();
+            DatabaseEntry foundData = new DatabaseEntry();
+
+            while(! batch.isFull() && advance(foundKey, foundData) == OperationStatus.SUCCESS) {
+                /* The keys come in order, so once we fail the upper bound, nothing else can satisfy it. */
+                if(highKeyFilter != null && ! highKeyFilter.matches(foundData)) {
+                    finished = true;
+                    break;
+                }
+
+                if(filter.matches(foundData)) 
+                    rs.getCustomBinding().entryToColumns(foundData, batch, batch.size++);
+            }
+        } catch (Exception dbe) {
+            // Exception handling goes here
+            dbe.printStackTrace();
+            System.exit(1);
+        }
+
+        batch.selectAll();
+        for(Predicate p : filter.residual) 
+            p.filter(batch);
+        return batch.size > 0;
+    }
+
     Tuple get_next() {
+        compileFilters();
+
         try {
             // Cursors need a pair of DatabaseEntry objects to operate. These hold
             // the key and data found at any given position in the database.
@@ -97,22 +563,21 @@ public class ScanOperator extends Operator {
             DatabaseEntry foundData = new DatabaseEntry();
 
             // To iterate, just call getNext() until the last database record has been 
-            // read. All cursor operations return an OperationStatus, so just read 
-            // until we no longer see OperationStatus.SUCCESS
-            while (myCursor.getNext(foundKey, foundData, LockMode.DEFAULT) == OperationStatus.SUCCESS) {
-                boolean satisfies = true;
-
-                Tuple t = (Tuple) rs.getCustomBinding().entryToObject(foundData);
-
-                /* Check if it satisfies the predicates. */
-                for(Predicate p : predicates) {
-                    if(! p.evaluate(t)) {
-                        satisfies = false;
-                        break;
-                    }
+            // read (or we are past the end of the key range). All cursor operations 
+            // return an OperationStatus, so just read until we no longer see OperationStatus.SUCCESS
+            while (advance(foundKey, foundData) == OperationStatus.SUCCESS) {
+                /* The keys come in order, so once we fail the upper bound, nothing else can satisfy it. */
+                if(highKeyFilter != null && ! highKeyFilter.matches(foundData)) {
+                    finished = true;
+                    return null;
                 }
 
-                if(satisfies) 
+                /* Check if it satisfies the predicates, before decoding it. */
+                if(! filter.matches(foundData)) 
+                    continue;
+
+                Tuple t = (Tuple) rs.getCustomBinding().entryToObject(foundData);
+                if(filter.matches(t)) 
                     return t;
             }
         } catch (Exception dbe) {
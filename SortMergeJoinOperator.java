@@ -0,0 +1,159 @@
+import java.util.Vector;
+
+/****************************************************************************************************
+  This class implements the Sort-Merge Join.
+
+  BerkeleyDB returns the records of a table in key order, so a ScanOperator on a table whose join 
+  attribute is the primary key already produces sorted output (see Operator.isSortedOn()). 
+  In that case we merge the input directly. An input that is not sorted on its join attribute is 
+  first sorted using an ExternalSorter.
+
+  At any point:
+    We have a current left tuple, and the "group" of right tuples that have the same join value
+    as the last left tuple we looked at. We also keep the first right tuple after the group.
+
+  When get_next() is called:
+    We return the next combination of the current left tuple with the group. Once the group is 
+    exhausted, we get the next left tuple. If it has the same join value, we reuse the group; 
+    otherwise we advance the right input till we reach a value >= the left join value, and 
+    collect the new group.
+******************************************************************************************************/
+
+public class SortMergeJoinOperator extends JoinOperator {
+    /* Sort-Merge join can always be used (we sort the inputs if needed). */
+    static boolean canBeUsed(Operator left, Operator right, Predicate jp) {
+        return true;
+    }
+
+    SortMergeJoinOperator(Operator l, Operator r, Predicate jp) {
+        super(l, r, jp);
+    }
+
+    /* Pretty print for the query plan. */
+    void print(int num_tabs) {
+        for(int i = 0; i < num_tabs; i++) 
+            System.out.print("	");
+        System.out.println("Sort-Merge Join operator with predicate " + jp + estimates());
+        leftOp.print(num_tabs+1);
+        rightOp.print(num_tabs+1);
+    }
+
+    /* The inputs that are not sorted on the join attributes have to be sorted first. */
+    void estimate() {
+        estimateJoinOutput();
+        estimated_cost = leftOp.estimated_cost + rightOp.estimated_cost + leftOp.estimated_rows + rightOp.estimated_rows + estimated_rows;
+        if(! leftOp.isSortedOn((TupleAttribute) jp.lhs())) 
+            estimated_cost += sortCost(leftOp.estimated_rows, leftOp.estimated_width);
+        if(! rightOp.isSortedOn((TupleAttribute) jp.rhs())) 
+            estimated_cost += sortCost(rightOp.estimated_rows, rightOp.estimated_width);
+    }
+
+    /* The output is in the order of the join attribute (on either side). */
+    Vector<TupleAttribute> getSortOrder() {
+        Vector<TupleAttribute> order = new Vector<TupleAttribute>();
+        order.add((TupleAttribute) jp.lhs());
+        return order;
+    }
+
+    boolean isSortedOn(TupleAttribute ta) {
+        return sameAttribute(ta, (TupleAttribute) jp.lhs()) || sameAttribute(ta, (TupleAttribute) jp.rhs());
+    }
+
+    /* Sorters for the inputs that are not already sorted. null if the input is sorted. */
+    ExternalSorter leftSorter = null;
+    ExternalSorter rightSorter = null;
+
+    Tuple leftTuple = null;
+    Object leftKey = null;
+
+    Vector<Tuple> rightGroup = new Vector<Tuple>();
+    Object groupKey = null;
+    int groupPosition = 0;
+
+    /* The first right tuple after the group. */
+    Tuple nextRightTuple = null;
+
+    void init() {
+        super.init();
+
+        leftSorter = null;
+        rightSorter = null;
+
+        if(! leftOp.isSortedOn((TupleAttribute) jp.lhs())) 
+            leftSorter = sortInput(leftOp, (TupleAttribute) jp.lhs());
+        if(! rightOp.isSortedOn((TupleAttribute) jp.rhs())) 
+            rightSorter = sortInput(rightOp, (TupleAttribute) jp.rhs());
+
+        leftTuple = null;
+        rightGroup.clear();
+        groupKey = null;
+        groupPosition = 0;
+        nextRightTuple = nextRight();
+    }
+
+    static ExternalSorter sortInput(Operator op, TupleAttribute ta) {
+        ExternalSorter sorter = new ExternalSorter(new TupleComparator(ta));
+        Tuple t = null;
+        while((t = op.get_next()) != null) 
+            sorter.add(t);
+        sorter.finish();
+        return sorter;
+    }
+
+    Tuple nextLeft() {
+        return (leftSorter == null) ? leftOp.get_next() : leftSorter.next();
+    }
+
+    Tuple nextRight() {
+        return (rightSorter == null) ? rightOp.get_next() : rightSorter.next();
+    }
+
+    Tuple get_next() {
+        while(true) {
+            if(leftTuple != null && groupPosition < rightGroup.size()) 
+                return combine(leftTuple, rightGroup.get(groupPosition++));
+
+            /* Advance the left side. */
+            leftTuple = nextLeft();
+            if(leftTuple == null) 
+                return null;
+            leftKey = left_key.evaluate(leftTuple);
+            groupPosition = 0;
+
+            if(rightGroup.size() != 0 && Globals.compareValues(leftKey, groupKey) == 0) 
+                continue;
+
+            /* Skip the right tuples that are smaller than the left join value. */
+            rightGroup.clear();
+            while(nextRightTuple != null && Globals.compareValues(right_key.evaluate(nextRightTuple), leftKey) < 0) 
+                nextRightTuple = nextRight();
+
+            /* Nothing left on the right side: no more output. */
+            if(nextRightTuple == null) 
+                return null;
+
+            /* Collect the group of right tuples with this join value (if any). */
+            if(Globals.compareValues(right_key.evaluate(nextRightTuple), leftKey) == 0) {
+                groupKey = leftKey;
+                while(nextRightTuple != null && Globals.compareValues(right_key.evaluate(nextRightTuple), groupKey) == 0) {
+                    rightGroup.add(nextRightTuple);
+                    nextRightTuple = nextRight();
+                }
+            }
+        }
+    }
+
+    void close() {
+        super.close();
+
+        if(leftSorter != null) 
+            leftSorter.close();
+        if(rightSorter != null) 
+            rightSorter.close();
+        leftSorter = null;
+        rightSorter = null;
+        rightGroup.clear();
+        leftTuple = null;
+        nextRightTuple = null;
+    }
+}
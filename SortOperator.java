@@ -0,0 +1,95 @@
+import java.util.Comparator;
+import java.util.Vector;
+
+/*****************************************************************************************************
+  Sort Operator implementation, used for ORDER BY.
+
+  This operator has exactly one child, and sorts its output (ascending) on a list of attributes,
+  using an ExternalSorter. The planner puts it above the ProjectOperator if all the sort attributes
+  are projected (so that we sort the narrower projected tuples), and below it otherwise.
+
+  init(): read all of the child's output into the sorter
+  get_next(): return the next tuple in sorted order
+  close(): delete the sorted runs, if any
+***************************************************************************************************/
+public class SortOperator extends Operator {
+    Operator child;
+    Vector<TupleAttribute> sort_attributes;
+
+    Comparator<Tuple> comparator;
+    ExternalSorter sorter = null;
+
+    SortOperator(Operator child, Vector<TupleAttribute> sort_attributes) {
+        this.child = child;
+        this.sort_attributes = sort_attributes;
+
+        /* The output of a ProjectOperator (or a HashAggregateOperator) is flattened, so we compare on the positions of the attributes in it. */
+        if(child instanceof ProjectOperator) {
+            Vector<TupleAttribute> projected = ((ProjectOperator) child).select_attributes;
+            int[] positions = new int[sort_attributes.size()];
+            for(int i = 0; i < positions.length; i++)
+                positions[i] = positionIn(sort_attributes.get(i), projected);
+            comparator = new FlattenedTupleComparator(positions);
+        } else if(child instanceof HashAggregateOperator) {
+            int[] positions = new int[sort_attributes.size()];
+            for(int i = 0; i < positions.length; i++)
+                positions[i] = ((HashAggregateOperator) child).outputPosition(sort_attributes.get(i));
+            comparator = new FlattenedTupleComparator(positions);
+        } else {
+            comparator = new TupleComparator(sort_attributes);
+        }
+    }
+
+    /* Position of the attribute in the list, or -1 if it is not there. */
+    static int positionIn(TupleAttribute ta, Vector<TupleAttribute> list) {
+        for(int i = 0; i < list.size(); i++)
+            if(sameAttribute(ta, list.get(i)))
+                return i;
+        return -1;
+    }
+
+    /* Can we sort the output of the projection on these attributes ? */
+    static boolean canSortProjection(Vector<TupleAttribute> sort_attributes, Vector<TupleAttribute> select_attributes) {
+        for(TupleAttribute ta : sort_attributes)
+            if(positionIn(ta, select_attributes) == -1)
+                return false;
+        return true;
+    }
+
+    /* Pretty print. */
+    void print(int num_tabs) {
+        for(int i = 0; i < num_tabs; i++)
+            System.out.print("	");
+        System.out.println("Sort operator: on " + sort_attributes + estimates());
+        child.print(num_tabs+1);
+    }
+
+    void estimate() {
+        estimated_rows = child.estimated_rows;
+        estimated_width = child.estimated_width;
+        estimated_cost = child.estimated_cost + sortCost(child.estimated_rows, child.estimated_width);
+    }
+
+    Vector<TupleAttribute> getSortOrder() {
+        return sort_attributes;
+    }
+
+    void init() {
+        child.init();
+
+        sorter = new ExternalSorter(comparator);
+        Tuple t;
+        while((t = child.get_next()) != null)
+            sorter.add(t);
+        sorter.finish();
+    }
+
+    Tuple get_next() {
+        return sorter.next();
+    }
+
+    void close() {
+        sorter.close();
+        child.close();
+    }
+}
@@ -0,0 +1,209 @@
+import com.sleepycat.je.DatabaseEntry;
+
+import java.io.*;
+import java.util.Vector;
+
+/*****************************************************************************************************
+  A SpillFile is a temporary file holding a sequence of tuples. Operators that run out of memory 
+  (see Globals.memoryBudget) write their state out to SpillFiles and read it back later.
+
+  Usage:
+    write(t) any number of times, then startReading(), then read() until it returns null, 
+    then delete().
+
+  Tuples are written as a one-byte tag followed by the tuple:
+    BASE:         relation name, followed by the bytes produced by the RelationSpecificTupleBinding
+    INTERMEDIATE: number of slots, followed by each slot: a byte telling if it is empty, and the base tuple as above
+    FLATTENED:    number of values, followed by each value (tagged Integer, String, Long, Double or null;
+                  the last three only appear in the output of aggregates)
+***************************************************************************************************/
+class SpillFile {
+    static final byte BASE = 1;
+    static final byte INTERMEDIATE = 2;
+    static final byte FLATTENED = 3;
+
+    static final byte INTEGER_VALUE = 1;
+    static final byte STRING_VALUE = 2;
+    static final byte LONG_VALUE = 3;
+    static final byte DOUBLE_VALUE = 4;
+    static final byte NULL_VALUE = 5;
+
+    File file;
+    DataOutputStream out = null;
+    DataInputStream in = null;
+
+    long numTuples = 0;
+    long tuplesRead = 0;
+
+    SpillFile() {
+        try {
+            file = File.createTempFile("spill", ".tmp");
+            file.deleteOnExit();
+            out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 64 * 1024));
+        } catch (IOException e) {
+            System.out.println("=========> Could not create a temporary file for spilling: " + e);
+            e.printStackTrace();
+            System.exit(1);
+        }
+    }
+
+    long size() {
+        return numTuples;
+    }
+
+    void write(Tuple t) {
+        try {
+            writeTuple(out, t);
+            numTuples++;
+        } catch (IOException e) {
+            System.out.println("=========> Error while writing to a spill file: " + e);
+            e.printStackTrace();
+            System.exit(1);
+        }
+    }
+
+    void startReading() {
+        try {
+            if(out != null) {
+                out.close();
+                out = null;
+            }
+            if(in != null) 
+                in.close();
+            in = new DataInputStream(new BufferedInputStream(new FileInputStream(file), 64 * 1024));
+            tuplesRead = 0;
+        } catch (IOException e) {
+            System.out.println("=========> Error while reading a spill file: " + e);
+            e.printStackTrace();
+            System.exit(1);
+        }
+    }
+
+    /* Returns null once all the tuples have been read. */
+    Tuple read() {
+        if(tuplesRead == numTuples) 
+            return null;
+
+        try {
+            tuplesRead++;
+            return readTuple(in);
+        } catch (IOException e) {
+            System.out.println("=========> Error while reading a spill file: " + e);
+            e.printStackTrace();
+            System.exit(1);
+            return null;
+        }
+    }
+
+    void delete() {
+        try {
+            if(out != null) 
+                out.close();
+            if(in != null) 
+                in.close();
+        } catch (IOException e) {
+            // Nothing useful to do here; we are throwing the file away anyway.
+        }
+        out = null;
+        in = null;
+        file.delete();
+    }
+
+    /*****************************
+      (De)serialization of tuples.
+      ***************************/
+    static void writeTuple(DataOutputStream out, Tuple t) throws IOException {
+        if(t instanceof BaseTuple) {
+            out.writeByte(BASE);
+            writeBaseTuple(out, (BaseTuple) t);
+        } else if(t instanceof IntermediateTuple) {
+            IntermediateTuple it = (IntermediateTuple) t;
+            out.writeByte(INTERMEDIATE);
+            out.writeInt(it.baseTuples.length);
+            for(BaseTuple bt : it.baseTuples) {
+                out.writeBoolean(bt != null);
+                if(bt != null) 
+                    writeBaseTuple(out, bt);
+            }
+        } else {
+            IntermediateFlattenedTuple ift = (IntermediateFlattenedTuple) t;
+            out.writeByte(FLATTENED);
+            out.writeInt(ift.values.length);
+            for(int i = 0; i < ift.values.length; i++) 
+                writeValue(out, ift.values[i]);
+        }
+    }
+
+    static Tuple readTuple(DataInputStream in) throws IOException {
+        byte tag = in.readByte();
+
+        if(tag == BASE) {
+            return readBaseTuple(in);
+        } else if(tag == INTERMEDIATE) {
+            IntermediateTuple it = new IntermediateTuple(in.readInt());
+            for(int i = 0; i < it.baseTuples.length; i++) 
+                if(in.readBoolean()) 
+                    it.baseTuples[i] = readBaseTuple(in);
+            return it;
+        } else {
+            assert tag == FLATTENED;
+            IntermediateFlattenedTuple ift = new IntermediateFlattenedTuple(in.readInt());
+            for(int i = 0; i < ift.values.length; i++) 
+                ift.setValue(i, readValue(in));
+            return ift;
+        }
+    }
+
+    static void writeBaseTuple(DataOutputStream out, BaseTuple bt) throws IOException {
+        DatabaseEntry de = new DatabaseEntry();
+        bt.getRelationSchema().getCustomBinding().objectToEntry(bt, de);
+
+        out.writeUTF(bt.getRelationSchema().getName());
+        out.writeInt(de.getSize());
+        out.write(de.getData(), de.getOffset(), de.getSize());
+    }
+
+    static BaseTuple readBaseTuple(DataInputStream in) throws IOException {
+        /* RelationSchemas are unique (see RelationSchema.java), so we look the schema up by name. */
+        BaseRelationSchema rs = Globals.getRelationSchema(in.readUTF());
+
+        byte[] data = new byte[in.readInt()];
+        in.readFully(data);
+
+        return (BaseTuple) rs.getCustomBinding().entryToObject(new DatabaseEntry(data));
+    }
+
+    static void writeValue(DataOutputStream out, Object o) throws IOException {
+        if(o instanceof Integer) {
+            out.writeByte(INTEGER_VALUE);
+            out.writeInt(((Integer) o).intValue());
+        } else if(o instanceof Long) {
+            out.writeByte(LONG_VALUE);
+            out.writeLong(((Long) o).longValue());
+        } else if(o instanceof Double) {
+            out.writeByte(DOUBLE_VALUE);
+            out.writeDouble(((Double) o).doubleValue());
+        } else if(o == null) {
+            out.writeByte(NULL_VALUE);
+        } else {
+            out.writeByte(STRING_VALUE);
+            out.writeUTF((String) o);
+        }
+    }
+
+    static Object readValue(DataInputStream in) throws IOException {
+        byte tag = in.readByte();
+        if(tag == INTEGER_VALUE) {
+            return Integer.valueOf(in.readInt());
+        } else if(tag == LONG_VALUE) {
+            return Long.valueOf(in.readLong());
+        } else if(tag == DOUBLE_VALUE) {
+            return Double.valueOf(in.readDouble());
+        } else if(tag == NULL_VALUE) {
+            return null;
+        } else {
+            assert tag == STRING_VALUE;
+            return in.readUTF();
+        }
+    }
+}
@@ -0,0 +1,471 @@
+import com.sleepycat.je.Cursor;
+import com.sleepycat.je.Database;
+import com.sleepycat.je.DatabaseEntry;
+import com.sleepycat.je.LockMode;
+import com.sleepycat.je.OperationStatus;
+import com.sleepycat.bind.tuple.TupleBinding;
+import com.sleepycat.bind.tuple.TupleOutput;
+import com.sleepycat.bind.tuple.TupleInput;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.Vector;
+
+/*****************************************************************************************************
+  Statistics about a table, used by the planner to estimate the sizes of intermediate results.
+
+  For the table:     the number of tuples, and their average size (in bytes, as stored in BerkeleyDB).
+  For each column:   - the number of distinct values (a HyperLogLog sketch),
+                     - min/max (INTEGER columns only),
+                     - an equi-depth histogram,
+                     - the most common values (MCVs) and their frequencies.
+
+  collect() computes all of this in a single pass over the table. The histograms and the MCVs are built
+  from a uniform sample of the tuples (reservoir sampling), so the pass needs a bounded amount of memory.
+
+  The statistics produced by "ANALYZE table;" are stored in the "statistics" Database (see Globals), and
+  are read back the first time the planner needs them. After that, Globals.insertTuple() keeps the tuple
+  count, the average size, the sketches and min/max up to date (addTuple()); the histograms and MCVs are
+  only refreshed by the next ANALYZE.
+
+  For a table that was never analyzed, defaults() only counts the tuples (Database.count() walks the
+  tree without reading the records), and we assume the values are spread uniformly: the primary key
+  is unique, every other column has DEFAULT_DISTINCT_FRACTION as many distinct values as tuples, and
+  ranges go by the usual 1/3 (see ColumnStatistics.fractionBelow()).
+***************************************************************************************************/
+class TableStatistics {
+    static final int SAMPLE_SIZE = 10000;
+    static final int HISTOGRAM_BUCKETS = 20;
+    static final int MAX_MCVS = 10;
+
+    /* Assumptions for a table without statistics. */
+    static final double DEFAULT_DISTINCT_FRACTION = 0.1;
+    static final int DEFAULT_ATTRIBUTE_BYTES = 12;
+
+    BaseRelationSchema rs;
+    long rowCount = 0;
+    long totalBytes = 0;
+    ColumnStatistics[] columns;
+
+    /* Were these produced by ANALYZE (and so should be written back when they change) ? */
+    boolean persistent = false;
+    boolean modified = false;
+
+    /* Are these the defaults for a table that was never analyzed (and so only the tuple count is known) ? */
+    boolean defaults = false;
+
+    TableStatistics(BaseRelationSchema rs) {
+        this.rs = rs;
+        columns = new ColumnStatistics[rs.getNumberOfAttributes()];
+        for(int i = 0; i < columns.length; i++)
+            columns[i] = new ColumnStatistics(rs.getAttributeType(i));
+    }
+
+    long getRowCount() {
+        return rowCount;
+    }
+
+    double getAverageRowBytes() {
+        return (rowCount == 0) ? 0 : (double) totalBytes / rowCount;
+    }
+
+    /* Never returns 0, so that it is safe to divide by it. Never more than the number of tuples either. */
+    long getDistinctCount(int position) {
+        if(defaults)
+            return Math.max(1, (position == rs.getPrimaryKeyPosition()) ? rowCount : (long) (rowCount * DEFAULT_DISTINCT_FRACTION));
+        return Math.max(1, Math.min(rowCount, columns[position].sketch.estimate()));
+    }
+
+    /* Fraction of the tuples that satisfy a predicate comparing an attribute of this table with a constant. */
+    double selectivity(Predicate p) {
+        int position = ((TupleAttribute) p.lhs()).position_of_attribute_in_table;
+        Object c = ((Constant) p.rhs()).o;
+        ColumnStatistics cs = columns[position];
+
+        if(p.getOperator() == Predicate.EQ)
+            return cs.equalitySelectivity(c, getDistinctCount(position));
+
+        double below = cs.fractionBelow(c);
+        if(p.getOperator() == Predicate.LT || p.getOperator() == Predicate.LE)
+            return below;
+        return 1 - below;
+    }
+
+    /* Account for a newly inserted tuple. */
+    void addTuple(BaseTuple bt, int bytes) {
+        rowCount++;
+        totalBytes += bytes;
+        if(defaults)
+            return;
+        for(int i = 0; i < columns.length; i++)
+            columns[i].add(bt.getAttributeValueByPosition(i));
+        modified = true;
+    }
+
+    /* Read the whole table once and compute the statistics. */
+    static TableStatistics collect(BaseRelationSchema rs) {
+        TableStatistics ts = new TableStatistics(rs);
+
+        int n = rs.getNumberOfAttributes();
+        Vector<Object[]> sample = new Vector<Object[]>();
+        Random random = new Random(42);
+
+        try {
+            Database myDatabase = Globals.openDatabase(rs.getName());
+            Cursor myCursor = myDatabase.openCursor(null, null);
+
+            DatabaseEntry foundKey = new DatabaseEntry();
+            DatabaseEntry foundData = new DatabaseEntry();
+
+            while (myCursor.getNext(foundKey, foundData, LockMode.DEFAULT) == OperationStatus.SUCCESS) {
+                BaseTuple bt = (BaseTuple) rs.getCustomBinding().entryToObject(foundData);
+                ts.addTuple(bt, foundData.getSize());
+
+                /* Reservoir sampling: the k-th tuple replaces a random element of the sample with probability SAMPLE_SIZE/k. */
+                if(sample.size() < SAMPLE_SIZE) {
+                    sample.add(bt.getAttributeValues());
+                } else {
+                    long r = (long) (random.nextDouble() * ts.rowCount);
+                    if(r < SAMPLE_SIZE)
+                        sample.set((int) r, bt.getAttributeValues());
+                }
+            }
+
+            myCursor.close();
+            Globals.closeDatabase(myDatabase);
+        } catch (Exception dbe) {
+            System.out.println("=========> Error while collecting statistics on " + rs.getName() + ": " + dbe);
+            dbe.printStackTrace();
+            System.exit(1);
+        }
+
+        for(int i = 0; i < n; i++) {
+            Vector<Object> values = new Vector<Object>(sample.size());
+            for(Object[] row : sample)
+                values.add(row[i]);
+            ts.columns[i].buildFromSample(values);
+        }
+
+        ts.modified = false;
+        return ts;
+    }
+
+    /* The defaults for a table that was never analyzed: the number of tuples, without reading the table. */
+    static TableStatistics defaults(BaseRelationSchema rs) {
+        TableStatistics ts = new TableStatistics(rs);
+        ts.defaults = true;
+
+        try {
+            Database myDatabase = Globals.openDatabase(rs.getName());
+            ts.rowCount = myDatabase.count();
+            Globals.closeDatabase(myDatabase);
+        } catch (Exception dbe) {
+            System.out.println("=========> Error while counting the tuples of " + rs.getName() + ": " + dbe);
+            dbe.printStackTrace();
+            System.exit(1);
+        }
+
+        ts.totalBytes = ts.rowCount * DEFAULT_ATTRIBUTE_BYTES * rs.getNumberOfAttributes();
+        return ts;
+    }
+
+    void print() {
+        System.out.println("Statistics on " + rs.getName() + ": " + rowCount + " tuples, " + String.format("%.1f", getAverageRowBytes()) + " bytes per tuple");
+        for(int i = 0; i < columns.length; i++)
+            System.out.println("	" + rs.attributeNames[i] + ": " + getDistinctCount(i) + " distinct values" + columns[i]);
+    }
+}
+
+/* Statistics on one column of a table. */
+class ColumnStatistics {
+    int type;
+
+    HyperLogLog sketch = new HyperLogLog();
+
+    /* Only for INTEGER columns. Meaningless if the table is empty. */
+    int min = Integer.MAX_VALUE;
+    int max = Integer.MIN_VALUE;
+
+    /* Equi-depth histogram: the bucket boundaries, bounds[0] is the smallest value and bounds[length-1] the largest.
+       Every bucket holds (about) the same number of tuples. */
+    Object[] bounds = new Object[0];
+
+    /* Most common values and the fraction of the tuples that have them. */
+    Object[] mcvValues = new Object[0];
+    double[] mcvFrequencies = new double[0];
+
+    ColumnStatistics(int type) {
+        this.type = type;
+    }
+
+    void add(Object o) {
+        sketch.add(o);
+        if(type == Globals.INTEGER) {
+            int v = ((Integer) o).intValue();
+            if(v < min) min = v;
+            if(v > max) max = v;
+        }
+    }
+
+    void buildFromSample(Vector<Object> values) {
+        if(values.size() == 0)
+            return;
+
+        /* Most common values: the values that appear more than once in the sample. */
+        HashMap<Object, Integer> counts = new HashMap<Object, Integer>();
+        for(Object o : values) {
+            Integer c = counts.get(o);
+            counts.put(o, (c == null) ? 1 : c + 1);
+        }
+
+        Vector<Map.Entry<Object, Integer>> entries = new Vector<Map.Entry<Object, Integer>>(counts.entrySet());
+        Collections.sort(entries, new Comparator<Map.Entry<Object, Integer>>() {
+            public int compare(Map.Entry<Object, Integer> e1, Map.Entry<Object, Integer> e2) {
+                return e2.getValue().intValue() - e1.getValue().intValue();
+            }
+        });
+
+        int numMcvs = 0;
+        while(numMcvs < TableStatistics.MAX_MCVS && numMcvs < entries.size() && entries.get(numMcvs).getValue() > 1)
+            numMcvs++;
+
+        mcvValues = new Object[numMcvs];
+        mcvFrequencies = new double[numMcvs];
+        for(int i = 0; i < numMcvs; i++) {
+            mcvValues[i] = entries.get(i).getKey();
+            mcvFrequencies[i] = (double) entries.get(i).getValue() / values.size();
+        }
+
+        /* Equi-depth histogram. */
+        Object[] sorted = values.toArray();
+        Arrays.sort(sorted, new Comparator<Object>() {
+            public int compare(Object o1, Object o2) {
+                return Globals.compareValues(o1, o2);
+            }
+        });
+
+        int buckets = Math.min(TableStatistics.HISTOGRAM_BUCKETS, sorted.length);
+        bounds = new Object[buckets + 1];
+        for(int i = 0; i <= buckets; i++)
+            bounds[i] = sorted[(int) Math.min(sorted.length - 1, (long) i * sorted.length / buckets)];
+    }
+
+    double equalitySelectivity(Object c, long distinct) {
+        double mcvTotal = 0;
+        for(int i = 0; i < mcvValues.length; i++) {
+            if(mcvValues[i].equals(c))
+                return mcvFrequencies[i];
+            mcvTotal += mcvFrequencies[i];
+        }
+
+        /* Outside the range of values we know of: nothing matches (but let's not be too sure). */
+        if(type == Globals.INTEGER && min <= max) {
+            int v = ((Integer) c).intValue();
+            if(v < min || v > max)
+                return 0.1 / distinct;
+        }
+
+        /* The remaining tuples are spread uniformly over the remaining values. */
+        return Math.max(0, 1 - mcvTotal) / Math.max(1, distinct - mcvValues.length);
+    }
+
+    /* The fraction of the tuples with values less than c. */
+    double fractionBelow(Object c) {
+        if(bounds.length < 2)
+            return 1.0 / 3;
+
+        int buckets = bounds.length - 1;
+
+        if(Globals.compareValues(c, bounds[0]) <= 0)
+            return 0;
+        if(Globals.compareValues(c, bounds[buckets]) > 0)
+            return 1;
+
+        int i = 0;
+        while(i < buckets - 1 && Globals.compareValues(c, bounds[i + 1]) > 0)
+            i++;
+
+        /* Within the bucket, interpolate linearly for integers, and assume the middle for strings. */
+        double within = 0.5;
+        if(type == Globals.INTEGER) {
+            double lo = ((Integer) bounds[i]).intValue();
+            double hi = ((Integer) bounds[i + 1]).intValue();
+            within = (hi > lo) ? (((Integer) c).intValue() - lo) / (hi - lo) : 0.5;
+        }
+
+        return (i + within) / buckets;
+    }
+
+    /* The value below which (about) a fraction q of the tuples are: the inverse of fractionBelow(). 
+       Returns null if we have no histogram. */
+    Object quantile(double q) {
+        if(bounds.length < 2)
+            return null;
+
+        int buckets = bounds.length - 1;
+        double position = Math.max(0, Math.min(1, q)) * buckets;
+        int i = (int) Math.min(buckets - 1, Math.floor(position));
+
+        /* Within the bucket, interpolate linearly for integers; for strings, all we have is the bucket boundaries. */
+        if(type == Globals.INTEGER) {
+            long lo = ((Integer) bounds[i]).intValue();
+            long hi = ((Integer) bounds[i + 1]).intValue();
+            return Integer.valueOf((int) (lo + Math.round((hi - lo) * (position - i))));
+        }
+        return bounds[(int) Math.round(position)];
+    }
+
+    public String toString() {
+        String ret = "";
+        if(type == Globals.INTEGER && min <= max)
+            ret += ", min " + min + ", max " + max;
+        ret += ", histogram " + Arrays.toString(bounds);
+        ret += ", most common values [";
+        for(int i = 0; i < mcvValues.length; i++)
+            ret += (i == 0 ? "" : ", ") + mcvValues[i] + String.format(" (%.3f)", mcvFrequencies[i]);
+        return ret + "]";
+    }
+}
+
+/*****************************************************************************************************
+  HyperLogLog sketch for estimating the number of distinct values (Flajolet et al.).
+
+  Every value is hashed to 64 bits. The first P bits pick one of M = 2^P registers, and the register
+  remembers the largest number of leading zeros (+1) seen in the remaining bits.
+  With P = 12 the standard error is about 1.6%, and the sketch takes 4KB.
+***************************************************************************************************/
+class HyperLogLog {
+    static final int P = 12;
+    static final int M = 1 << P;
+
+    byte[] registers = new byte[M];
+
+    void add(Object o) {
+        long h = hash(o);
+        int register = (int) (h >>> (64 - P));
+        int rank = Long.numberOfLeadingZeros((h << P) | (1L << (P - 1))) + 1;
+        if(rank > registers[register])
+            registers[register] = (byte) rank;
+    }
+
+    long estimate() {
+        double sum = 0;
+        int zeros = 0;
+        for(int i = 0; i < M; i++) {
+            sum += 1.0 / (1L << registers[i]);
+            if(registers[i] == 0)
+                zeros++;
+        }
+
+        double alpha = 0.7213 / (1 + 1.079 / M);
+        double e = alpha * M * M / sum;
+
+        /* For small cardinalities, linear counting is more accurate. */
+        if(e <= 2.5 * M && zeros != 0)
+            e = M * Math.log((double) M / zeros);
+
+        return Math.round(e);
+    }
+
+    static long hash(Object o) {
+        long h;
+        if(o instanceof Integer) {
+            h = ((Integer) o).intValue();
+        } else {
+            /* 64-bit FNV-1a over the characters. */
+            String s = (String) o;
+            h = 0xcbf29ce484222325L;
+            for(int i = 0; i < s.length(); i++) {
+                h ^= s.charAt(i);
+                h *= 0x100000001b3L;
+            }
+        }
+
+        /* Finalizer from MurmurHash3, so that consecutive integers end up far apart. */
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
+
+/**********************************************************************************************
+  Serialization of the TableStatistics for the "statistics" Database.
+  See RelationSchemaTupleBinding.
+***********************************************************************************************/
+class TableStatisticsTupleBinding extends TupleBinding {
+    TableStatisticsTupleBinding() {
+    }
+
+    static void writeValue(TupleOutput to, int type, Object o) {
+        if(type == Globals.INTEGER)
+            to.writeInt(((Integer) o).intValue());
+        else
+            to.writeString((String) o);
+    }
+
+    static Object readValue(TupleInput ti, int type) {
+        if(type == Globals.INTEGER)
+            return Integer.valueOf(ti.readInt());
+        else
+            return ti.readString();
+    }
+
+    public void objectToEntry(Object object, TupleOutput to) {
+        TableStatistics ts = (TableStatistics) object;
+
+        to.writeString(ts.rs.getName());
+        to.writeLong(ts.rowCount);
+        to.writeLong(ts.totalBytes);
+
+        for(ColumnStatistics cs : ts.columns) {
+            to.writeFast(cs.sketch.registers);
+            to.writeInt(cs.min);
+            to.writeInt(cs.max);
+
+            to.writeInt(cs.bounds.length);
+            for(Object o : cs.bounds)
+                writeValue(to, cs.type, o);
+
+            to.writeInt(cs.mcvValues.length);
+            for(int i = 0; i < cs.mcvValues.length; i++) {
+                writeValue(to, cs.type, cs.mcvValues[i]);
+                to.writeDouble(cs.mcvFrequencies[i]);
+            }
+        }
+    }
+
+    public Object entryToObject(TupleInput ti) {
+        TableStatistics ts = new TableStatistics(Globals.getRelationSchema(ti.readString()));
+
+        ts.rowCount = ti.readLong();
+        ts.totalBytes = ti.readLong();
+
+        for(ColumnStatistics cs : ts.columns) {
+            ti.readFast(cs.sketch.registers);
+            cs.min = ti.readInt();
+            cs.max = ti.readInt();
+
+            cs.bounds = new Object[ti.readInt()];
+            for(int i = 0; i < cs.bounds.length; i++)
+                cs.bounds[i] = readValue(ti, cs.type);
+
+            int numMcvs = ti.readInt();
+            cs.mcvValues = new Object[numMcvs];
+            cs.mcvFrequencies = new double[numMcvs];
+            for(int i = 0; i < numMcvs; i++) {
+                cs.mcvValues[i] = readValue(ti, cs.type);
+                cs.mcvFrequencies[i] = ti.readDouble();
+            }
+        }
+
+        ts.persistent = true;
+        return ts;
+    }
+}
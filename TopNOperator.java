@@ -0,0 +1,73 @@
+import java.util.Collections;
+import java.util.PriorityQueue;
+import java.util.Vector;
+
+/*****************************************************************************************************
+  Top-N Operator implementation, used for ORDER BY with LIMIT.
+
+  Returns the first n tuples of the child in sorted order (the planner puts a LimitOperator above it
+  for the OFFSET). Instead of sorting all of the child's output, we keep the n smallest tuples seen
+  so far in a max-heap: a new tuple only goes in if it is smaller than the largest one in the heap,
+  which it then replaces. So we need memory for n tuples only, and most tuples cost one comparison.
+  The planner only uses this operator if n tuples fit in memory (see Query.plan()).
+
+  The comparator and the placement above or below the projection are the same as for SortOperator.
+***************************************************************************************************/
+public class TopNOperator extends SortOperator {
+    int n;
+
+    /* The heap grows as needed: n may be much larger than the child's output. */
+    static final int INITIAL_HEAP_CAPACITY = 1024;
+
+    Vector<Tuple> result;
+    int position;
+
+    TopNOperator(Operator child, Vector<TupleAttribute> sort_attributes, int n) {
+        super(child, sort_attributes);
+        this.n = n;
+    }
+
+    /* Pretty print. */
+    void print(int num_tabs) {
+        for(int i = 0; i < num_tabs; i++)
+            System.out.print("	");
+        System.out.println("Top-N operator: first " + n + " on " + sort_attributes + estimates());
+        child.print(num_tabs+1);
+    }
+
+    void estimate() {
+        estimated_rows = Math.min(n, child.estimated_rows);
+        estimated_width = child.estimated_width;
+        estimated_cost = child.estimated_cost + child.estimated_rows * Math.log(n + 2.0) / Math.log(2);
+    }
+
+    void init() {
+        child.init();
+
+        PriorityQueue<Tuple> heap = new PriorityQueue<Tuple>(Math.max(1, Math.min(n, INITIAL_HEAP_CAPACITY)), Collections.reverseOrder(comparator));
+        Tuple t;
+        while((t = child.get_next()) != null) {
+            if(heap.size() < n) {
+                heap.add(t);
+            } else if(n > 0 && comparator.compare(t, heap.peek()) < 0) {
+                heap.poll();
+                heap.add(t);
+            }
+        }
+
+        result = new Vector<Tuple>(heap);
+        Collections.sort(result, comparator);
+        position = 0;
+    }
+
+    Tuple get_next() {
+        if(position == result.size())
+            return null;
+        return result.get(position++);
+    }
+
+    void close() {
+        result = null;
+        child.close();
+    }
+}
@@ -1,3 +1,4 @@
+import java.util.Arrays;
 import java.util.Vector;
 
 import com.sleepycat.bind.tuple.TupleBinding;
@@ -10,10 +11,11 @@ import com.sleepycat.je.DatabaseEntry;
   Tuple classes. There are two types of tuples:
 
   1. BaseTuple:
-        Specified by a RelationSchema object, and a list of values. 
+        Specified by a RelationSchema object, and a list of values. The INTEGER values are kept 
+        unboxed in an int[], and the STRING values in a String[].
 
   2. IntermediateTuple:
-        Implemented as a vector of BaseTuples. 
+        Implemented as an array of BaseTuples, with one slot for every relation in the query.
 *****************************************************************/
 public class Tuple {
     void print() {
@@ -24,27 +26,54 @@ public class Tuple {
     public String toString() {
         return "";
     }
+
+    /* A rough estimate of the number of bytes this tuple occupies on the heap. 
+       Used by the operators that need to stay within Globals.memoryBudget. */
+    long estimatedSize() {
+        return 16;
+    }
+
+    static long estimatedSize(Object o) {
+        if(o instanceof String) 
+            return 40 + 2 * ((String) o).length();
+        return 16;
+    }
+
+    /* Typed access to the value of an attribute (of a base or intermediate tuple). BaseTuple and IntermediateTuple 
+       override these so that INTEGER values are never boxed. */
+    int getInt(TupleAttribute ta) {
+        return ((Integer) ta.evaluate(this)).intValue();
+    }
+
+    String getString(TupleAttribute ta) {
+        return (String) ta.evaluate(this);
+    }
 }
 
 class BaseTuple extends Tuple {
     BaseRelationSchema r;
-    Object[] values;
+
+    /* The values of the INTEGER and of the STRING attributes, in the order of the schema 
+       (see RelationSchema.getTypedPosition()). */
+    int[] ints;
+    String[] strings;
 
     BaseTuple() {
         r = null;
-        values = null;
+        ints = null;
+        strings = null;
     }
 
     BaseTuple(BaseRelationSchema r) {
         this.r = r;
-        values = new Object[r.getNumberOfAttributes()];
+        ints = new int[r.numIntegers];
+        strings = new String[r.numStrings];
     }
 
     BaseTuple(BaseRelationSchema r, Vector<Object> attributeValues) {
-        this.r = r;
-        values = new Object[r.getNumberOfAttributes()];
+        this(r);
 
-        for(int i = 0; i < values.length; i++) {
+        for(int i = 0; i < r.getNumberOfAttributes(); i++) {
             setAttributeValueByPosition(i, attributeValues.get(i));
         }
     }
@@ -53,34 +82,70 @@ class BaseTuple extends Tuple {
         return r;
     }
 
+    int getInt(int position) {
+        return ints[r.getTypedPosition(position)];
+    }
+
+    String getString(int position) {
+        return strings[r.getTypedPosition(position)];
+    }
+
+    int getInt(TupleAttribute ta) {
+        return ints[ta.typed_position];
+    }
+
+    String getString(TupleAttribute ta) {
+        return strings[ta.typed_position];
+    }
+
+    /* The untyped accessors box INTEGER values. */
     Object getAttributeValueByPosition(int position) {
-        return values[position];
+        if(r.getAttributeType(position) == Globals.INTEGER) 
+            return Integer.valueOf(getInt(position));
+        return getString(position);
     }
 
     Object getAttributeValueByName(String attrName) {
-        return values[r.getPosition(attrName)];
+        return getAttributeValueByPosition(r.getPosition(attrName));
+    }
+
+    Object[] getAttributeValues() {
+        Object[] values = new Object[r.getNumberOfAttributes()];
+        for(int i = 0; i < values.length; i++)
+            values[i] = getAttributeValueByPosition(i);
+        return values;
     }
 
     void setAttributeValueByPosition(int position, Object o) {
-        values[position] = o;
+        if(r.getAttributeType(position) == Globals.INTEGER) 
+            ints[r.getTypedPosition(position)] = ((Integer) o).intValue();
+        else 
+            strings[r.getTypedPosition(position)] = (String) o;
     }
 
     void setAttributeValueByName(String attrName, Object o) {
-        values[r.getPosition(attrName)] = o;
+        setAttributeValueByPosition(r.getPosition(attrName), o);
     }
 
     Object getPrimaryKeyValue() {
-        return values[r.getPrimaryKeyPosition()];
+        return getAttributeValueByPosition(r.getPrimaryKeyPosition());
     }
 
     DatabaseEntry primaryKeyToEntry() {
         return Globals.simpleObjectToEntry(getPrimaryKeyValue());
     }
 
+    long estimatedSize() {
+        long size = 32 + 16 + 4 * ints.length + 16 + 8 * strings.length;
+        for(int i = 0; i < strings.length; i++)
+            size += estimatedSize(strings[i]);
+        return size;
+    }
+
     public String toString() {
         String ret = " [";
-        for(int i = 0; i < values.length; i++)
-            ret += (i == 0 ? "" : "		") + values[i];
+        for(int i = 0; i < r.getNumberOfAttributes(); i++)
+            ret += (i == 0 ? "" : "		") + getAttributeValueByPosition(i);
         return ret + "] ";
     }
 }
@@ -93,10 +158,30 @@ class IntermediateFlattenedTuple extends Tuple {
         values = new Object[num_attributes];
     }
 
+    IntermediateFlattenedTuple(Object[] values) {
+        this.values = values;
+    }
+
     void setValue(int i, Object o) {
         values[i] = o;
     }
 
+    /* Two flattened tuples are equal if they have the same values (used for DISTINCT). */
+    public boolean equals(Object o) {
+        return (o instanceof IntermediateFlattenedTuple) && Arrays.equals(values, ((IntermediateFlattenedTuple) o).values);
+    }
+
+    public int hashCode() {
+        return Arrays.hashCode(values);
+    }
+
+    long estimatedSize() {
+        long size = 32 + 8 * values.length;
+        for(int i = 0; i < values.length; i++)
+            size += estimatedSize(values[i]);
+        return size;
+    }
+
     public String toString() {
         String ret = "";
         for(int i = 0; i < values.length; i++)
@@ -105,44 +190,75 @@ class IntermediateFlattenedTuple extends Tuple {
     }
 }
 
-/* An intermediate (non-flattened) tuple is stored as a vector of basetuples. Ideally such representations 
- * should not be used, but it simplifies coding in many cases. */
+/* An intermediate (non-flattened) tuple is stored as an array of basetuples, with one slot for every relation 
+ * in the query: the base tuple of the i-th relation in the FROM clause is in slot i (null if the tuple does not 
+ * include that relation yet). The layout is fixed when the query is planned: a TupleAttribute knows the slot 
+ * of its relation (see Query.analyzeTupleAttribute()), so evaluating it is a couple of array accesses, and 
+ * the join operators know the slots of their inputs (see JoinOperator.combine()). */
 class IntermediateTuple extends Tuple {
-    Vector<BaseTuple> baseTuples = new Vector<BaseTuple>();
+    BaseTuple[] baseTuples;
 
+    /* Only used if we don't know the slot of the relation. */
     BaseTuple getBaseTuple(RelationSchema rs) {
         for(BaseTuple bt : baseTuples) {
-            if(bt.getRelationSchema() == rs) {
+            if(bt != null && bt.getRelationSchema() == rs) {
                 return bt;
             }
         }
         return null;
     }
 
-    /* Intermediate tuple constructed by combining two tuples. */
-    IntermediateTuple(Tuple t1, Tuple t2) {
+    /* Empty intermediate tuple; the base tuples are added by the caller (see SpillFile). */
+    IntermediateTuple(int num_slots) {
+        baseTuples = new BaseTuple[num_slots];
+    }
 
-        if(t1 instanceof BaseTuple) {
-            baseTuples.add((BaseTuple) t1);
+    /* Intermediate tuple constructed by combining two tuples. The slot of a tuple is the slot of its relation if 
+       it is a BaseTuple, and -1 if it is an IntermediateTuple (which brings its own slots). */
+    IntermediateTuple(Tuple t1, int slot1, Tuple t2, int slot2, int num_slots) {
+        if(slot1 == -1) {
+            baseTuples = ((IntermediateTuple) t1).baseTuples.clone();
         } else {
-            for(BaseTuple bt : ((IntermediateTuple) t1).baseTuples) {
-                baseTuples.add(bt);
-            }
+            baseTuples = new BaseTuple[num_slots];
+            baseTuples[slot1] = (BaseTuple) t1;
         }
 
-        if(t2 instanceof BaseTuple) {
-            baseTuples.add((BaseTuple) t2);
-        } else {
-            for(BaseTuple bt : ((IntermediateTuple) t2).baseTuples) {
-                baseTuples.add(bt);
+        if(slot2 == -1) {
+            BaseTuple[] other = ((IntermediateTuple) t2).baseTuples;
+            for(int i = 0; i < other.length; i++) {
+                if(other[i] != null) 
+                    baseTuples[i] = other[i];
             }
+        } else {
+            baseTuples[slot2] = (BaseTuple) t2;
         }
     }
 
+    int getInt(TupleAttribute ta) {
+        if(ta.slot == -1) 
+            return getBaseTuple(ta.rs).getInt(ta);
+        return baseTuples[ta.slot].ints[ta.typed_position];
+    }
+
+    String getString(TupleAttribute ta) {
+        if(ta.slot == -1) 
+            return getBaseTuple(ta.rs).getString(ta);
+        return baseTuples[ta.slot].strings[ta.typed_position];
+    }
+
+    long estimatedSize() {
+        long size = 48 + 8 * baseTuples.length;
+        for(BaseTuple bt : baseTuples)
+            if(bt != null) 
+                size += bt.estimatedSize();
+        return size;
+    }
+
     public String toString() {
         String ret = "Intermediate Tuple:  ";
         for(BaseTuple bt : baseTuples) {
-            ret += bt.getRelationSchema().getName() + bt + "  ";
+            if(bt != null) 
+                ret += bt.getRelationSchema().getName() + bt + "  ";
         }
         return ret;
     }
@@ -169,27 +285,45 @@ class RelationSpecificTupleBinding extends TupleBinding {
 
         for(int i = 0; i < r.getNumberOfAttributes(); i++) {
             if(r.getAttributeType(i) == Globals.INTEGER) {
-                to.writeInt(((Integer) bt.values[i]).intValue());
+                to.writeInt(bt.getInt(i));
             } else {
                 assert r.getAttributeType(i) == Globals.STRING;
-                to.writeString((String) bt.values[i]);
+                to.writeString(bt.getString(i));
             }
         }
     }
 
-    // Convert a TupleInput to a MyData2 object
+    // Convert a TupleInput to a MyData2 object. The attributes of each type are stored in order, so we 
+    // just fill in the two arrays one after the other (no boxing of the integers).
     public Object entryToObject(TupleInput ti) {
         BaseTuple bt = new BaseTuple(r);
+        int ints = 0;
+        int strings = 0;
 
         for(int i = 0; i < r.getNumberOfAttributes(); i++) {
             if(r.getAttributeType(i) == Globals.INTEGER) {
-                bt.setAttributeValueByPosition(i, new Integer(ti.readInt()));
+                bt.ints[ints++] = ti.readInt();
             } else {
                 assert r.getAttributeType(i) == Globals.STRING;
-                bt.setAttributeValueByPosition(i, ti.readString());
+                bt.strings[strings++] = ti.readString();
             }
         }
 
         return bt;
     }
+
+    // Decode a record straight into a row of a column-oriented TupleBatch (see ScanOperator.next_batch()).
+    public void entryToColumns(DatabaseEntry entry, TupleBatch batch, int row) {
+        TupleInput ti = entryToInput(entry);
+        int ints = 0;
+        int strings = 0;
+
+        for(int i = 0; i < r.getNumberOfAttributes(); i++) {
+            if(r.getAttributeType(i) == Globals.INTEGER) {
+                batch.intColumns[ints++][row] = ti.readInt();
+            } else {
+                batch.stringColumns[strings++][row] = ti.readString();
+            }
+        }
+    }
 }
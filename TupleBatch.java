@@ -0,0 +1,106 @@
+/*****************************************************************************************************
+  A batch of up to CAPACITY tuples, for batch-at-a-time execution (see Operator.next_batch()).
+
+  The rows of the batch are numbered 0 .. size-1. The selection vector lists the rows that are still
+  "live": selection[0 .. count-1]. Filtering a batch (see Predicate.filter()) only shrinks the selection
+  vector; it never moves any data.
+
+  A batch is either:
+    column-oriented: the rows of a single table, as produced by a ScanOperator. The values of the
+        INTEGER and STRING attributes are kept in one array per attribute (indexed by the typed position
+        of the attribute, as in BaseTuple), so that predicates run as tight loops over primitive arrays.
+        The BaseTuple of a row is only built if someone asks for it (getTuple()).
+    row-oriented: an array of Tuples, as produced by any other operator.
+
+  Batches are allocated once by the consumer, and refilled by every call to next_batch().
+***************************************************************************************************/
+class TupleBatch {
+    static final int CAPACITY = 1024;
+
+    int size = 0;
+    int[] selection = new int[CAPACITY];
+    int count = 0;
+
+    /* The tuples of the rows (for a column-oriented batch: the ones that have been built so far, or null). */
+    Tuple[] tuples = new Tuple[CAPACITY];
+
+    /* For a column-oriented batch: the table, and the columns. null for a row-oriented batch. */
+    BaseRelationSchema rs = null;
+    int[][] intColumns = null;
+    String[][] stringColumns = null;
+
+    /* The table the columns were allocated for, so that we only allocate them once. */
+    BaseRelationSchema columnsFor = null;
+
+    /* Start filling the batch with tuples. */
+    void reset() {
+        java.util.Arrays.fill(tuples, 0, size, null);
+        size = 0;
+        count = 0;
+        rs = null;
+    }
+
+    /* Start filling the batch with the columns of rows of a table. */
+    void resetColumns(BaseRelationSchema rs) {
+        reset();
+        this.rs = rs;
+        if(columnsFor != rs) {
+            intColumns = new int[rs.numIntegers][CAPACITY];
+            stringColumns = new String[rs.numStrings][CAPACITY];
+            columnsFor = rs;
+        }
+    }
+
+    boolean isFull() {
+        return size == CAPACITY;
+    }
+
+    /* Add a tuple to a row-oriented batch (selected). */
+    void add(Tuple t) {
+        tuples[size] = t;
+        selection[count++] = size++;
+    }
+
+    /* Select all the rows. */
+    void selectAll() {
+        for(int i = 0; i < size; i++)
+            selection[i] = i;
+        count = size;
+    }
+
+    /* Does the batch have the attribute as a column ? */
+    boolean hasColumn(TupleAttribute ta) {
+        return rs != null && ta.rs == rs;
+    }
+
+    Tuple getTuple(int row) {
+        if(tuples[row] == null) {
+            BaseTuple bt = new BaseTuple(rs);
+            for(int i = 0; i < bt.ints.length; i++)
+                bt.ints[i] = intColumns[i][row];
+            for(int i = 0; i < bt.strings.length; i++)
+                bt.strings[i] = stringColumns[i][row];
+            tuples[row] = bt;
+        }
+        return tuples[row];
+    }
+
+    int getInt(TupleAttribute ta, int row) {
+        if(hasColumn(ta))
+            return intColumns[ta.typed_position][row];
+        return getTuple(row).getInt(ta);
+    }
+
+    String getString(TupleAttribute ta, int row) {
+        if(hasColumn(ta))
+            return stringColumns[ta.typed_position][row];
+        return getTuple(row).getString(ta);
+    }
+
+    /* The value of the attribute, boxed. */
+    Object getValue(TupleAttribute ta, int row) {
+        if(ta.getAttributeType() == Globals.INTEGER)
+            return Integer.valueOf(getInt(ta, row));
+        return getString(ta, row);
+    }
+}